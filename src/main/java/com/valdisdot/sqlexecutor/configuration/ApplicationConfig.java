@@ -5,9 +5,15 @@ import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
 import java.io.File;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 import java.util.function.Supplier;
 
@@ -34,6 +40,31 @@ public class ApplicationConfig {
      */
     private final File localDatabaseDirectory;
 
+    /**
+     * Directory of jar files with custom result writers, it is not created if it is absent.
+     */
+    private final File pluginDirectory;
+
+    /**
+     * File for persisting parsed sequence holders between runs, {@code null} if they are cached in memory only.
+     */
+    private final File sequenceHolderCacheFile;
+
+    /**
+     * Number of threads parsing and validating the sequence holders of the input directory.
+     */
+    private final int loadingThreads;
+
+    /**
+     * Whether the input directory is watched and the changed sequence holders are reloaded, off unless it is enabled.
+     */
+    private final boolean watchInputDirectory;
+
+    /**
+     * Quiet interval in milliseconds before the changes of the input directory are reloaded.
+     */
+    private final int watchDebounceMillis;
+
     /**
      * Size of the connection pool.
      */
@@ -59,31 +90,219 @@ public class ApplicationConfig {
      */
     private final boolean includeSequenceResults;
 
+    /**
+     * Flag indicating whether independent sequences should be executed concurrently.
+     */
+    private final boolean parallelExecution;
+
+    /**
+     * Flag indicating whether fetching and writing of a result should run on separate threads.
+     */
+    private final boolean pipelinedExecution;
+
+    /**
+     * Amount of rows per batch passed from the fetching thread to the writing thread.
+     */
+    private final int pipelineBatchSize;
+
+    /**
+     * Amount of row batches which may wait for the writing thread before the fetching thread is paused.
+     */
+    private final int pipelineCapacity;
+
+    /**
+     * Time in minutes a fetched result is reused for by the sequences of the same connection, database and SQL,
+     * 0 disables the result cache.
+     */
+    private final int resultCacheTtl;
+
+    /**
+     * Size in megabytes of the result cache, entries are evicted above it.
+     */
+    private final int resultCacheLimit;
+
+    /**
+     * Eviction policy of the result cache: "lru", "lfu" or "fifo".
+     */
+    private final String resultCacheEviction;
+
+    /**
+     * Flag indicating whether XLSX result files should be written in the streaming mode.
+     */
+    private final boolean xlsxStreaming;
+
+    /**
+     * Amount of rows per sheet kept in memory while writing XLSX result files in the streaming mode.
+     */
+    private final int xlsxStreamingRowWindow;
+
+    /**
+     * Amount of leading rows per sheet measured for the column widths of XLSX result files,
+     * negative if every row is measured, {@code 0} if the columns are not auto-sized.
+     */
+    private final int xlsxAutoSizeSampleRows;
+
+    /**
+     * Amount of data rows per sheet of XLSX result files, the rest of a result is written to continuation sheets.
+     */
+    private final int xlsxMaxRowsPerSheet;
+
+    /**
+     * Format of the result files of sequence holders which do not declare their own output format,
+     * a comma-separated list of formats writes every result to all of them with a single fetch.
+     */
+    private final String defaultOutputFormat;
+
+    /**
+     * Character encoding of CSV and TSV result files.
+     */
+    private final Charset csvCharset;
+
+    /**
+     * Flag indicating whether every value of CSV and TSV result files should be quoted.
+     */
+    private final boolean csvQuoteAll;
+
+    /**
+     * Compression of CSV and TSV result files, one of "none", "gzip" or "zip".
+     */
+    private final String csvCompression;
+
+    /**
+     * Amount of megabytes of the buffered values which closes a row group of Parquet result files.
+     */
+    private final int parquetRowGroupSize;
+
+    /**
+     * Amount of kilobytes of distinct values per column chunk of Parquet result files which are dictionary-encoded.
+     */
+    private final int parquetDictionarySize;
+
+    /**
+     * Flag indicating whether the pages of Parquet result files should be compressed.
+     */
+    private final boolean parquetCompression;
+
+    /**
+     * Flag indicating whether Arrow result files should be written in the IPC file format instead of the stream one.
+     */
+    private final boolean arrowFileFormat;
+
+    /**
+     * Amount of rows decoded into a column batch at once by the columnar (Parquet and Arrow) writers.
+     */
+    private final int columnarBatchSize;
+
+    /**
+     * Amount of rows inserted into the local temporary database per batch.
+     */
+    private final int stagingBatchSize;
+
+    /**
+     * SQLite pragmas applied to the local temporary database connections.
+     */
+    private final Map<String, String> stagingPragmas;
+
+    /**
+     * Flag indicating whether the local temporary databases of post-sequences should be kept in memory.
+     */
+    private final boolean stagingInMemory;
+
+    /**
+     * Size in megabytes above which an in-memory temporary database is moved to a file.
+     */
+    private final int stagingMemoryLimit;
+
+    /**
+     * Amount of local temporary databases the sequences of a post-sequence are staged into in parallel, from 1 to 10.
+     */
+    private final int stagingDatabaseFiles;
+
+    /**
+     * Flag indicating whether the staged tables should be indexed for the lookups of the post-sequence query.
+     */
+    private final boolean stagingAutoIndex;
+
+    /**
+     * Time in minutes a staged result is reused for by the next runs, 0 disables the staging cache.
+     */
+    private final int stagingCacheTtl;
+
+    /**
+     * Size in megabytes of the staging cache, the least recently used results are evicted above it.
+     */
+    private final int stagingCacheLimit;
+
+    /**
+     * All result writer settings as they are, including the ones of custom result writers.
+     */
+    private final Map<String, String> writerProperties;
+
     /**
      * Constructs an {@code ApplicationConfig} instance based on provided configuration maps.
      *
      * @param applicationConfig    the configuration map for application settings
      * @param connectionPoolConfig the configuration map for connection pool settings
      * @param executorConfig       the configuration map for executor settings
+     * @param writerConfig         the configuration map for result writer settings
+     * @param stagingConfig        the configuration map for local temporary database settings
      */
     @JsonCreator
     public ApplicationConfig(
             @JsonProperty("application") Map<String, String> applicationConfig,
             @JsonProperty("connectionPool") Map<String, String> connectionPoolConfig,
-            @JsonProperty("executor") Map<String, String> executorConfig
+            @JsonProperty("executor") Map<String, String> executorConfig,
+            @JsonProperty("writer") Map<String, String> writerConfig,
+            @JsonProperty("staging") Map<String, String> stagingConfig
     ) {
         applicationConfig = applicationConfig == null ? Map.of() : applicationConfig;
         connectionPoolConfig = connectionPoolConfig == null ? Map.of() : connectionPoolConfig;
         executorConfig = executorConfig == null ? Map.of() : executorConfig;
+        writerConfig = writerConfig == null ? Map.of() : writerConfig;
+        stagingConfig = stagingConfig == null ? Map.of() : stagingConfig;
 
         inputDirectory = getFile(applicationConfig.get("inputDirectory"), "scripts");
         outputDirectory = getFile(applicationConfig.get("outputDirectory"), "results");
         localDatabaseDirectory = getFile(applicationConfig.get("localDatabaseDirectory"), "localDatabase");
+        pluginDirectory = new File(applicationConfig.getOrDefault("pluginDirectory", "plugins"));
+        sequenceHolderCacheFile = getBoolean(applicationConfig.get("persistSequenceHolderCache"), false) ? new File(localDatabaseDirectory, "sequence_holder_cache.json") : null;
+        loadingThreads = Math.max(1, getInteger(applicationConfig.get("loadingThreads"), Runtime.getRuntime().availableProcessors()));
+        watchInputDirectory = getBoolean(applicationConfig.get("watchInputDirectory"), false);
+        watchDebounceMillis = Math.max(0, getInteger(applicationConfig.get("watchDebounceMillis"), 500));
         poolSize = getInteger(connectionPoolConfig.get("size"), 1);
         connectionTimeout = getInteger(connectionPoolConfig.get("connectionTimeout"), 10000);
         idleTimeout = getInteger(connectionPoolConfig.get("idleTimeout"), 300000);
         uniqueSuffixSupplier = makeUniqueSuffixSupplier(executorConfig.get("uniqueSuffixGenerator"));
         includeSequenceResults = getBoolean(executorConfig.get("includeSequenceResults"), false);
+        parallelExecution = getBoolean(executorConfig.get("parallelExecution"), false);
+        pipelinedExecution = getBoolean(executorConfig.get("pipelinedExecution"), false);
+        pipelineBatchSize = getInteger(executorConfig.get("pipelineBatchSize"), 1000);
+        pipelineCapacity = getInteger(executorConfig.get("pipelineCapacity"), 16);
+        resultCacheTtl = Math.max(0, getInteger(executorConfig.get("resultCacheTtl"), 0));
+        resultCacheLimit = Math.max(1, getInteger(executorConfig.get("resultCacheLimit"), 1024));
+        resultCacheEviction = makeResultCacheEviction(executorConfig.get("resultCacheEviction"));
+        xlsxStreaming = getBoolean(writerConfig.get("xlsxStreaming"), false);
+        xlsxStreamingRowWindow = getInteger(writerConfig.get("xlsxStreamingRowWindow"), 100);
+        xlsxAutoSizeSampleRows = makeXLSXAutoSizeSampleRows(writerConfig.get("xlsxAutoSize"), getInteger(writerConfig.get("xlsxAutoSizeSampleRows"), 1000));
+        xlsxMaxRowsPerSheet = Math.max(1, Math.min(1048575, getInteger(writerConfig.get("xlsxMaxRowsPerSheet"), 1048575)));
+        defaultOutputFormat = makeDefaultOutputFormat(writerConfig.get("defaultOutput"));
+        csvCharset = makeCSVCharset(writerConfig.get("csvEncoding"));
+        csvQuoteAll = "all".equalsIgnoreCase(writerConfig.get("csvQuoting"));
+        csvCompression = makeCSVCompression(writerConfig.get("csvCompression"));
+        parquetRowGroupSize = Math.max(1, getInteger(writerConfig.get("parquetRowGroupSize"), 64));
+        parquetDictionarySize = Math.max(0, getInteger(writerConfig.get("parquetDictionarySize"), 1024));
+        parquetCompression = !"none".equalsIgnoreCase(writerConfig.get("parquetCompression"));
+        arrowFileFormat = !"stream".equalsIgnoreCase(writerConfig.get("arrowFormat"));
+        columnarBatchSize = Math.max(1, getInteger(writerConfig.get("columnarBatchSize"), 8192));
+        stagingBatchSize = getInteger(stagingConfig.get("batchSize"), 10000);
+        stagingPragmas = makeStagingPragmas(stagingConfig);
+        stagingInMemory = getBoolean(stagingConfig.get("inMemory"), false);
+        stagingMemoryLimit = Math.max(1, getInteger(stagingConfig.get("memoryLimit"), 256));
+        stagingDatabaseFiles = Math.max(1, Math.min(10, getInteger(stagingConfig.get("databaseFiles"), 1)));
+        stagingAutoIndex = getBoolean(stagingConfig.get("autoIndex"), true);
+        stagingCacheTtl = Math.max(0, getInteger(stagingConfig.get("cacheTtl"), 0));
+        stagingCacheLimit = Math.max(1, getInteger(stagingConfig.get("cacheLimit"), 1024));
+        writerProperties = Collections.unmodifiableMap(new LinkedHashMap<>(writerConfig));
     }
 
     /**
@@ -131,6 +350,33 @@ public class ApplicationConfig {
         return dir;
     }
 
+    /**
+     * Collects SQLite pragmas for the local temporary databases, the database is disposable,
+     * so the defaults trade its durability for the loading speed.
+     *
+     * @param stagingConfig the configuration map for local temporary database settings
+     * @return an ordered map of pragma names and their values
+     */
+    private Map<String, String> makeStagingPragmas(Map<String, String> stagingConfig) {
+        Map<String, String> pragmas = new LinkedHashMap<>();
+        pragmas.put("journal_mode", getPragmaValue(stagingConfig.get("journalMode"), "OFF"));
+        pragmas.put("synchronous", getPragmaValue(stagingConfig.get("synchronous"), "OFF"));
+        pragmas.put("cache_size", getPragmaValue(stagingConfig.get("cacheSize"), "-65536"));
+        pragmas.put("temp_store", getPragmaValue(stagingConfig.get("tempStore"), "MEMORY"));
+        return Collections.unmodifiableMap(pragmas);
+    }
+
+    /**
+     * Validates a pragma value, using a default value if the value is absent or is not a plain keyword or number.
+     *
+     * @param value        the pragma value to validate
+     * @param defaultValue the default value to use in case of validation failure
+     * @return the validated pragma value or the default value
+     */
+    private String getPragmaValue(String value, String defaultValue) {
+        return value != null && value.trim().matches("-?[A-Za-z0-9_]+") ? value.trim() : defaultValue;
+    }
+
     /**
      * Creates a supplier for generating unique suffixes based on the specified type.
      *
@@ -147,6 +393,85 @@ public class ApplicationConfig {
         return () -> LocalDateTime.now().format(DateTimeFormatter.ofPattern(" (yyyy-MM-dd HHmmss)"));
     }
 
+    /**
+     * Resolves the amount of rows measured for the column widths based on the specified auto-size mode.
+     *
+     * @param autoSizeMode the auto-size mode ("full", "none", or default "sampled")
+     * @param sampleRows   the amount of leading rows measured in the sampled mode
+     * @return {@code -1} for the full mode, {@code 0} for none, or the positive amount of sampled rows
+     */
+    private int makeXLSXAutoSizeSampleRows(String autoSizeMode, int sampleRows) {
+        if ("full".equalsIgnoreCase(autoSizeMode)) {
+            return -1;
+        } else if ("none".equalsIgnoreCase(autoSizeMode)) {
+            return 0;
+        }
+        // sampled is default
+        return Math.max(1, sampleRows);
+    }
+
+    /**
+     * Validates the default output format, using "xlsx" if the value is absent or is not a list of plain format names.
+     *
+     * @param outputFormat the output format name or a comma-separated list of them
+     * @return the lower-cased output format names without duplicates, separated by commas
+     */
+    private String makeDefaultOutputFormat(String outputFormat) {
+        if (outputFormat == null) return "xlsx";
+        Set<String> outputFormats = new LinkedHashSet<>();
+        for (String format : outputFormat.split(",")) {
+            if (!format.trim().matches("[A-Za-z0-9_-]+")) return "xlsx";
+            outputFormats.add(format.trim().toLowerCase());
+        }
+        return String.join(",", outputFormats);
+    }
+
+    /**
+     * Resolves the character encoding of CSV and TSV result files, using UTF-8 if the encoding is absent or unsupported.
+     *
+     * @param encoding the name of the character encoding
+     * @return the resolved {@code Charset}
+     */
+    private Charset makeCSVCharset(String encoding) {
+        try {
+            return Charset.forName(encoding.trim());
+        } catch (Exception e) {
+            return StandardCharsets.UTF_8;
+        }
+    }
+
+    /**
+     * Resolves the compression of CSV and TSV result files.
+     *
+     * @param compression the compression mode ("gzip", "zip", or default "none")
+     * @return the lower-cased compression mode
+     */
+    private String makeCSVCompression(String compression) {
+        if ("gzip".equalsIgnoreCase(compression)) {
+            return "gzip";
+        } else if ("zip".equalsIgnoreCase(compression)) {
+            return "zip";
+        }
+        // none is default
+        return "none";
+    }
+
+    /**
+     * Validates the eviction policy of the result cache.
+     *
+     * @param eviction the eviction policy ("lfu", "fifo", or default "lru")
+     * @return the lower-cased eviction policy
+     */
+    private String makeResultCacheEviction(String eviction) {
+        if ("lfu".equalsIgnoreCase(eviction)) {
+            return "lfu";
+        } else if ("fifo".equalsIgnoreCase(eviction)) {
+            return "fifo";
+        }
+        // least recently used is default
+        return "lru";
+    }
+
     /**
      * @return the directory containing SQL scripts
      */
@@ -168,6 +493,42 @@ public class ApplicationConfig {
         return localDatabaseDirectory;
     }
 
+    /**
+     * @return the directory of jar files with custom result writers, "plugins" by default
+     */
+    public File getPluginDirectory() {
+        return pluginDirectory;
+    }
+
+    /**
+     * @return the file for persisting parsed sequence holders between runs,
+     * or {@code null} if they should be cached in memory only
+     */
+    public File getSequenceHolderCacheFile() {
+        return sequenceHolderCacheFile;
+    }
+
+    /**
+     * @return the number of threads parsing and validating the sequence holders of the input directory
+     */
+    public int getLoadingThreads() {
+        return loadingThreads;
+    }
+
+    /**
+     * @return {@code true} if the input directory should be watched and the changed sequence holders reloaded
+     */
+    public boolean shouldWatchInputDirectory() {
+        return watchInputDirectory;
+    }
+
+    /**
+     * @return the quiet interval in milliseconds before the changes of the input directory are reloaded
+     */
+    public int getWatchDebounceMillis() {
+        return watchDebounceMillis;
+    }
+
     /**
      * @return the size of the connection pool
      */
@@ -203,4 +564,218 @@ public class ApplicationConfig {
     public boolean shouldIncludeSequenceResults() {
         return includeSequenceResults;
     }
+
+    /**
+     * @return {@code true} if independent sequences should be executed concurrently,
+     * {@code false} if they should be executed one after another
+     */
+    public boolean shouldExecuteInParallel() {
+        return parallelExecution;
+    }
+
+    /**
+     * @return {@code true} if result rows should be fetched and written on separate threads,
+     * {@code false} if both should happen on the executing thread
+     */
+    public boolean shouldExecutePipelined() {
+        return pipelinedExecution;
+    }
+
+    /**
+     * @return the amount of rows per batch passed from the fetching thread to the writing thread
+     */
+    public int getPipelineBatchSize() {
+        return pipelineBatchSize;
+    }
+
+    /**
+     * @return the amount of row batches which may wait for the writing thread
+     */
+    public int getPipelineCapacity() {
+        return pipelineCapacity;
+    }
+
+    /**
+     * @return the time in milliseconds a fetched result is reused for by the sequences of the same connection,
+     * database and SQL instead of querying the source again, 0 (the result cache is disabled) by default
+     */
+    public long getResultCacheTtl() {
+        return resultCacheTtl * 60_000L;
+    }
+
+    /**
+     * @return the size in bytes of the result cache, 1024 MB by default
+     */
+    public long getResultCacheLimit() {
+        return resultCacheLimit * 1024L * 1024L;
+    }
+
+    /**
+     * @return the eviction policy of the result cache, one of "lru" (the least recently used entries are evicted first,
+     * by default), "lfu" (the least frequently used ones) or "fifo" (the oldest ones)
+     */
+    public String getResultCacheEviction() {
+        return resultCacheEviction;
+    }
+
+    /**
+     * @return {@code true} if XLSX result files should be written in the streaming mode,
+     * keeping only a window of rows in memory, {@code false} otherwise
+     */
+    public boolean shouldStreamXLSX() {
+        return xlsxStreaming;
+    }
+
+    /**
+     * @return the amount of rows per sheet kept in memory in the XLSX streaming mode
+     */
+    public int getXLSXStreamingRowWindow() {
+        return xlsxStreamingRowWindow;
+    }
+
+    /**
+     * @return the amount of leading rows per sheet measured for the column widths of XLSX result files,
+     * negative if every row should be measured, {@code 0} if the columns should not be auto-sized
+     */
+    public int getXLSXAutoSizeSampleRows() {
+        return xlsxAutoSizeSampleRows;
+    }
+
+    /**
+     * @return the amount of data rows per sheet of XLSX result files, at most 1048575
+     */
+    public int getXLSXMaxRowsPerSheet() {
+        return xlsxMaxRowsPerSheet;
+    }
+
+    /**
+     * @return the format of the result files of sequence holders which do not declare their own, "xlsx" by default
+     */
+    public String getDefaultOutputFormat() {
+        return defaultOutputFormat;
+    }
+
+    /**
+     * @return the character encoding of CSV and TSV result files
+     */
+    public Charset getCSVCharset() {
+        return csvCharset;
+    }
+
+    /**
+     * @return {@code true} if every value of CSV and TSV result files should be quoted,
+     * {@code false} if only the values containing delimiters, quotes or line breaks should be quoted
+     */
+    public boolean shouldQuoteAllCSVValues() {
+        return csvQuoteAll;
+    }
+
+    /**
+     * @return the compression of CSV and TSV result files, one of "none", "gzip" or "zip"
+     */
+    public String getCSVCompression() {
+        return csvCompression;
+    }
+
+    /**
+     * @return the amount of bytes of the buffered values which closes a row group of Parquet result files
+     */
+    public long getParquetRowGroupSize() {
+        return parquetRowGroupSize * 1024L * 1024L;
+    }
+
+    /**
+     * @return the amount of bytes of distinct values per column chunk of Parquet result files which are dictionary-encoded,
+     * {@code 0} if the values should be written plain
+     */
+    public int getParquetDictionarySize() {
+        return parquetDictionarySize * 1024;
+    }
+
+    /**
+     * @return {@code true} if the pages of Parquet result files should be compressed by gzip, {@code false} otherwise
+     */
+    public boolean shouldCompressParquet() {
+        return parquetCompression;
+    }
+
+    /**
+     * @return {@code true} if Arrow result files should be written in the IPC file format (.arrow),
+     * {@code false} for the IPC stream format (.arrows)
+     */
+    public boolean shouldWriteArrowFileFormat() {
+        return arrowFileFormat;
+    }
+
+    /**
+     * @return the amount of rows decoded into a column batch at once by the columnar writers
+     */
+    public int getColumnarBatchSize() {
+        return columnarBatchSize;
+    }
+
+    /**
+     * @return the amount of rows inserted into the local temporary database per batch
+     */
+    public int getStagingBatchSize() {
+        return stagingBatchSize;
+    }
+
+    /**
+     * @return the ordered map of SQLite pragmas applied to the local temporary database connections
+     */
+    public Map<String, String> getStagingPragmas() {
+        return stagingPragmas;
+    }
+
+    /**
+     * @return {@code true} if the local temporary databases of post-sequences should be kept in memory, {@code false} by default
+     */
+    public boolean shouldStageInMemory() {
+        return stagingInMemory;
+    }
+
+    /**
+     * @return the size in bytes above which an in-memory temporary database is moved to a file, 256 MB by default
+     */
+    public long getStagingMemoryLimit() {
+        return stagingMemoryLimit * 1024L * 1024L;
+    }
+
+    /**
+     * @return the amount of local temporary databases the sequences of a post-sequence are staged into in parallel,
+     * 1 (a single database) by default, the databases are used only with the parallel execution
+     */
+    public int getStagingDatabaseFiles() {
+        return stagingDatabaseFiles;
+    }
+
+    /**
+     * @return {@code true} if the staged tables should be indexed for the lookups of the post-sequence query, {@code true} by default
+     */
+    public boolean shouldIndexStagingTables() {
+        return stagingAutoIndex;
+    }
+
+    /**
+     * @return the time in milliseconds a staged result is reused for by the next runs instead of querying its source,
+     * 0 (the staging cache is disabled) by default
+     */
+    public long getStagingCacheTtl() {
+        return stagingCacheTtl * 60_000L;
+    }
+
+    /**
+     * @return the size in bytes of the staging cache, 1024 MB by default
+     */
+    public long getStagingCacheLimit() {
+        return stagingCacheLimit * 1024L * 1024L;
+    }
+
+    /**
+     * @return the unmodifiable map of all result writer settings, custom result writers read their own settings from it
+     */
+    public Map<String, String> getWriterProperties() {
+        return writerProperties;
+    }
 }
@@ -22,6 +22,8 @@ public class ConnectionConfig {
     private transient String password;
     private Properties properties = new Properties();
     private List<String> databases;
+    private int fetchSize;
+    private boolean streamResults;
 
     /**
      * Constructs a {@code ConnectionConfig} instance.
@@ -32,6 +34,8 @@ public class ConnectionConfig {
      * @param password             the password for the database connection.
      * @param properties           additional connection properties as a map.
      * @param databases            a list of associated databases.
+     * @param fetchSize            the amount of rows fetched per round trip, 0 for the driver default.
+     * @param streamResults        whether the results should be streamed instead of being loaded into memory at once.
      */
     @JsonCreator
     public ConnectionConfig(
@@ -40,13 +44,17 @@ public class ConnectionConfig {
             @JsonProperty(value = "user") String user,
             @JsonProperty(value = "password") String password,
             @JsonProperty(value = "properties") Map<String, String> properties,
-            @JsonProperty(value = "databases") List<String> databases) throws JsonProcessingException {
+            @JsonProperty(value = "databases") List<String> databases,
+            @JsonProperty(value = "fetchSize") Integer fetchSize,
+            @JsonProperty(value = "streamResults") Boolean streamResults) throws JsonProcessingException {
         this.connectionIdentifier = connectionIdentifier.trim();
         this.jdbcURL = jdbcURL.trim();
         this.user = user;
         this.password = password;
         this.databases = databases == null ? new ArrayList<>(0) : new ArrayList<>(databases);
         if (properties != null) this.properties.putAll(properties);
+        this.fetchSize = fetchSize == null || fetchSize < 0 ? 0 : fetchSize;
+        this.streamResults = streamResults != null && streamResults;
         int startIndex = jdbcURL.indexOf(":") + 1;
         int endIndex = jdbcURL.indexOf(":", startIndex);
         try {
@@ -119,6 +127,24 @@ public class ConnectionConfig {
         return databases;
     }
 
+    /**
+     * Returns the amount of rows fetched per round trip.
+     *
+     * @return the fetch size, 0 for the driver default.
+     */
+    public int getFetchSize() {
+        return fetchSize;
+    }
+
+    /**
+     * Returns whether the results should be streamed from the database instead of being loaded into memory at once.
+     *
+     * @return {@code true} if the results should be streamed.
+     */
+    public boolean shouldStreamResults() {
+        return streamResults;
+    }
+
     @Override
     public String toString() {
         return "ConnectionConfig{" +
@@ -126,6 +152,8 @@ public class ConnectionConfig {
                 ", jdbcURL='" + jdbcURL + '\'' +
                 ", jdbcType='" + jdbcType + '\'' +
                 ", user='" + user + '\'' +
+                ", fetchSize=" + fetchSize +
+                ", streamResults=" + streamResults +
                 '}';
     }
 }
@@ -1,78 +1,535 @@
 package com.valdisdot.sqlexecutor.executor;
 
 import com.valdisdot.sqlexecutor.configuration.ApplicationConfig;
+import com.valdisdot.sqlexecutor.executor.cache.EvictionPolicy;
+import com.valdisdot.sqlexecutor.executor.cache.FileCache;
 import com.valdisdot.sqlexecutor.executor.database.DatabaseManager;
+import com.valdisdot.sqlexecutor.executor.pipeline.ResultSetPipeline;
+import com.valdisdot.sqlexecutor.executor.pipeline.RowFileWriter;
+import com.valdisdot.sqlexecutor.executor.writer.CompositeResultWriter;
+import com.valdisdot.sqlexecutor.executor.writer.ResultWriter;
 import com.valdisdot.sqlexecutor.executor.writer.ResultWriterException;
+import com.valdisdot.sqlexecutor.executor.writer.ResultWriterProvider;
 import com.valdisdot.sqlexecutor.executor.writer.SQLiteResultWriter;
-import com.valdisdot.sqlexecutor.executor.writer.XLSXResultWriter;
+import com.valdisdot.sqlexecutor.executor.writer.StagingIndexer;
+import com.valdisdot.sqlexecutor.executor.writer.provider.XLSXResultWriterProvider;
 import com.valdisdot.sqlexecutor.sequence.SequenceQueue;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.io.File;
+import java.io.IOException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
 import java.sql.Connection;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
 
 public class SequenceExecutor {
     private DatabaseManager databaseManager;
     private SQLiteResultWriter temporaryResultWriter;
-    private XLSXResultWriter resultWriter;
+    //the amount of databases the sequences of a post-sequence are staged into in parallel
+    private int stagingDatabaseFiles;
+    //indexes the staged tables for the post-sequence, null if they are left without indexes
+    private StagingIndexer stagingIndexer;
+    //the staged results of the previous runs by their connection, database and SQL, null if they are not reused
+    private FileCache stagingCache;
+    //result writers by the output format, sequence holders select one of them
+    private Map<String, ResultWriter> resultWriters;
+    //writers of several output formats by the list of the formats, e.g. "xlsx,csv"
+    private Map<String, ResultWriter> compositeResultWriters;
+    private String defaultOutputFormat;
     private boolean shouldIncludeSequenceResults;
+    private boolean shouldExecuteInParallel;
+    private ResultSetPipeline pipeline;
+    //tees a result to the writers of several output formats
+    private ResultSetPipeline teePipeline;
+    //the fetched results by their connection, database and SQL, null if they are not reused
+    private FileCache resultCache;
+    //records and replays the cached and the spooled results, even if the execution is not pipelined
+    private ResultSetPipeline recordingPipeline;
+    //the results of the parallel sequences are fetched into their own files there, before they are written into the shared output
+    private File spoolDirectory;
+    private Logger logger;
 
     public SequenceExecutor(DatabaseManager databaseManager, ApplicationConfig applicationConfig) {
         this.databaseManager = databaseManager;
+        this.logger = LoggerFactory.getLogger(this.getClass());
         this.shouldIncludeSequenceResults = applicationConfig.shouldIncludeSequenceResults();
-        this.resultWriter = new XLSXResultWriter(applicationConfig.getOutputDirectory(), applicationConfig.getUniqueSuffixSupplier());
-        this.temporaryResultWriter = new SQLiteResultWriter(applicationConfig.getLocalDatabaseDirectory(), databaseManager);
+        this.shouldExecuteInParallel = applicationConfig.shouldExecuteInParallel();
+        if (applicationConfig.shouldExecutePipelined())
+            this.pipeline = new ResultSetPipeline(applicationConfig.getPipelineBatchSize(), applicationConfig.getPipelineCapacity());
+        this.teePipeline = new ResultSetPipeline(applicationConfig.getPipelineBatchSize(), applicationConfig.getPipelineCapacity());
+        if (applicationConfig.getResultCacheTtl() > 0) {
+            this.resultCache = new FileCache(
+                    new File(applicationConfig.getLocalDatabaseDirectory(), "result_cache"),
+                    ".rows",
+                    applicationConfig.getResultCacheTtl(),
+                    applicationConfig.getResultCacheLimit(),
+                    EvictionPolicy.valueOf(applicationConfig.getResultCacheEviction().toUpperCase())
+            );
+        }
+        this.recordingPipeline = pipeline == null ? teePipeline : pipeline;
+        this.spoolDirectory = new File(applicationConfig.getLocalDatabaseDirectory(), "spool");
+        this.defaultOutputFormat = applicationConfig.getDefaultOutputFormat();
+        this.resultWriters = loadResultWriters(applicationConfig);
+        this.compositeResultWriters = new ConcurrentHashMap<>();
+        this.stagingDatabaseFiles = applicationConfig.getStagingDatabaseFiles();
+        if (applicationConfig.shouldIndexStagingTables()) this.stagingIndexer = new StagingIndexer();
+        if (applicationConfig.getStagingCacheTtl() > 0)
+            this.stagingCache = new FileCache(
+                    new File(applicationConfig.getLocalDatabaseDirectory(), "staging_cache"),
+                    ".db",
+                    applicationConfig.getStagingCacheTtl(),
+                    applicationConfig.getStagingCacheLimit()
+            );
+        this.temporaryResultWriter = new SQLiteResultWriter(
+                applicationConfig.getLocalDatabaseDirectory(),
+                databaseManager,
+                applicationConfig.getStagingBatchSize(),
+                applicationConfig.getStagingPragmas(),
+                applicationConfig.shouldStageInMemory(),
+                applicationConfig.getStagingMemoryLimit()
+        );
     }
 
     public File execute(SequenceQueue sequenceQueue) throws SequenceExecutorException {
         if (!sequenceQueue.hasNextSequence())
             throw new SequenceExecutorException("Sequence queue is empty, nothing to execute");
+        ResultWriter resultWriter = getResultWriter(sequenceQueue.getOutputFormat());
+        File resultFile = null;
         try {
-            //this operation is slow somehow
-            File resultFile = resultWriter.initializeResultFile(sequenceQueue.getSequenceName());
+            resultFile = resultWriter.initializeResultFile(sequenceQueue.getSequenceName());
+            List<QueuedSequence> sequences = drainSequences(sequenceQueue);
             //if post sequence
             if (sequenceQueue.hasPostSequence()) {
                 File temporaryDatabaseFile = temporaryResultWriter.initializeResultFile(sequenceQueue.getSequenceName());
-                while (sequenceQueue.hasNextSequence()) {
-                    try (Connection connection = databaseManager.getConnection(sequenceQueue.nextConnection(), sequenceQueue.nextDatabase())) {
-                        Statement statement = connection.createStatement();
-                        String seq = sequenceQueue.nextSequence();
+                //the databases of the sequences, which are attached to the temporary one, if they are staged in parallel
+                List<File> stagingFiles = List.of();
+                try {
+                    if (stagingDatabaseFiles > 1 && shouldExecuteInParallel && sequences.size() > 1) {
+                        stagingFiles = stageSequencesInParallel(sequenceQueue.getSequenceName(), sequences);
+                    } else {
                         //natural bottleneck, may be slow for hard sequences
-                        ResultSet rs = statement.executeQuery(seq);
-                        temporaryResultWriter.write(sequenceQueue.nextResultIdentifier(), rs, temporaryDatabaseFile);
-                        rs.close();
-                        statement.close();
+                        executeSequences(sequences, temporaryResultWriter, temporaryDatabaseFile);
                     }
-                }
-                try (Connection connection = databaseManager.getLocalConnection(temporaryDatabaseFile.getAbsolutePath())) {
-                    Statement statement = connection.createStatement();
-                    ResultSet rs = statement.executeQuery(sequenceQueue.getPostSequenceBody());
-                    //may be slow with a load of data
-                    resultWriter.write(sequenceQueue.getPostSequenceResultIdentifier(), rs, resultFile);
-                    rs.close();
-                    statement.close();
-                    if (shouldIncludeSequenceResults) {
-                        temporaryResultWriter.writeAllDatabaseTables(temporaryDatabaseFile, resultFile, resultWriter);
+                    try (Connection connection = temporaryResultWriter.getConnection(temporaryDatabaseFile, stagingFiles)) {
+                        //the tables have been loaded, the lookups of the post-sequence get their indexes
+                        if (stagingIndexer != null) stagingIndexer.createIndexes(connection, sequenceQueue.getPostSequenceBody());
+                        try (
+                                Statement statement = connection.createStatement();
+                                ResultSet rs = statement.executeQuery(sequenceQueue.getPostSequenceBody());
+                                ResultSet pipelinedRs = pipelined(rs)
+                        ) {
+                            //may be slow with a load of data
+                            resultWriter.write(sequenceQueue.getPostSequenceResultIdentifier(), pipelinedRs, resultFile);
+                        }
+                        if (shouldIncludeSequenceResults) {
+                            temporaryResultWriter.writeAllDatabaseTables(temporaryDatabaseFile, stagingFiles, resultFile, resultWriter);
+                            //tables have been staged in the completion order
+                            if (shouldExecuteInParallel) resultWriter.orderResults(resultFile, collectResultIdentifiers(sequenceQueue.getPostSequenceResultIdentifier(), sequences));
+                        }
                     }
+                } finally {
+                    //releases the in-memory temporary databases
+                    temporaryResultWriter.discardResultFile(temporaryDatabaseFile);
+                    stagingFiles.forEach(temporaryResultWriter::discardResultFile);
                 }
             } else {
-                while (sequenceQueue.hasNextSequence()) {
-                    try (Connection connection = databaseManager.getConnection(sequenceQueue.nextConnection(), sequenceQueue.nextDatabase())) {
-                        Statement statement = connection.createStatement();
-                        ResultSet rs = statement.executeQuery(sequenceQueue.nextSequence());
-                        resultWriter.write(sequenceQueue.nextResultIdentifier(), rs, resultFile);
-                        rs.close();
-                        statement.close();
-                    }
-                }
+                executeSequences(sequences, resultWriter, resultFile);
             }
+            //the result file is written once, after the last result table
+            resultWriter.finalizeResultFile(resultFile);
             return resultFile;
         } catch (SQLException e1) {
             throw new SequenceExecutorException("Error during sequence execution", e1);
-        } catch (ResultWriterException e2) {
+        } catch (ResultWriterException | IOException e2) {
             throw new SequenceExecutorException("Error during saving the result", e2);
+        } finally {
+            //releases the result collected in memory in case of failure
+            if (resultFile != null) resultWriter.discardResultFile(resultFile);
+        }
+    }
+
+    //the writers of the built-in formats and the custom ones from the class path and the plugin directory
+    private Map<String, ResultWriter> loadResultWriters(ApplicationConfig applicationConfig) {
+        ClassLoader classLoader = getPluginClassLoader(applicationConfig.getPluginDirectory());
+        Map<String, ResultWriterProvider> providers = new HashMap<>();
+        Iterator<ResultWriterProvider> iterator = ServiceLoader.load(ResultWriterProvider.class, classLoader).iterator();
+        while (true) {
+            ResultWriterProvider provider;
+            String outputFormat;
+            try {
+                if (!iterator.hasNext()) break;
+            } catch (ServiceConfigurationError e) {
+                //e.g. an unreadable provider configuration file, the rest of the providers can't be listed
+                logger.warn("Result writer providers can't be loaded further", e);
+                break;
+            }
+            try {
+                provider = iterator.next();
+                outputFormat = provider.getOutputFormat().trim().toLowerCase();
+            } catch (ServiceConfigurationError | RuntimeException e) {
+                //a broken plugin (e.g. an absent class or a failing constructor) doesn't cost the other formats
+                logger.warn("Result writer provider is skipped", e);
+                continue;
+            }
+            ResultWriterProvider registered = providers.get(outputFormat);
+            //a custom provider replaces the built-in one, the first one of several custom providers is kept
+            if (registered == null || isBuiltIn(registered) && !isBuiltIn(provider)) {
+                providers.put(outputFormat, provider);
+            } else if (!isBuiltIn(provider)) {
+                logger.warn("Result writer provider {} of the output format '{}' is ignored, {} has been registered already", provider.getClass().getName(), outputFormat, registered.getClass().getName());
+            }
+        }
+        Map<String, ResultWriter> writers = new HashMap<>();
+        providers.forEach((outputFormat, provider) -> {
+            try {
+                writers.put(outputFormat, provider.createResultWriter(applicationConfig, databaseManager));
+            } catch (RuntimeException e) {
+                logger.warn("Result writer provider {} of the output format '{}' is skipped", provider.getClass().getName(), outputFormat, e);
+            }
+        });
+        return writers;
+    }
+
+    private boolean isBuiltIn(ResultWriterProvider provider) {
+        return provider.getClass().getName().startsWith(XLSXResultWriterProvider.class.getPackageName() + ".");
+    }
+
+    private ClassLoader getPluginClassLoader(File pluginDirectory) {
+        ClassLoader parent = getClass().getClassLoader();
+        File[] jars = pluginDirectory.listFiles((directory, name) -> name.toLowerCase().endsWith(".jar"));
+        if (jars == null || jars.length == 0) return parent;
+        List<URL> urls = new ArrayList<>(jars.length);
+        for (File jar : jars) {
+            try {
+                urls.add(jar.toURI().toURL());
+            } catch (MalformedURLException e) {
+                logger.warn("Plugin {} is skipped: {}", jar.getAbsolutePath(), e.getMessage());
+            }
+        }
+        return new URLClassLoader(urls.toArray(new URL[0]), parent);
+    }
+
+    private ResultWriter getResultWriter(String outputFormat) throws SequenceExecutorException {
+        String format = outputFormat == null ? defaultOutputFormat : outputFormat;
+        String[] formats = format.split(",");
+        List<ResultWriter> writers = new ArrayList<>(formats.length);
+        for (String item : formats) {
+            ResultWriter resultWriter = resultWriters.get(item.trim());
+            if (resultWriter == null)
+                throw new SequenceExecutorException("Unknown output format '" + item.trim() + "', expected one of " + resultWriters.keySet());
+            writers.add(resultWriter);
+        }
+        if (writers.size() == 1) return writers.get(0);
+        //one fetch of every result feeds all formats
+        return compositeResultWriters.computeIfAbsent(format, key -> new CompositeResultWriter(writers, teePipeline));
+    }
+
+    private List<QueuedSequence> drainSequences(SequenceQueue sequenceQueue) {
+        List<QueuedSequence> sequences = new ArrayList<>();
+        while (sequenceQueue.hasNextSequence()) {
+            sequences.add(new QueuedSequence(
+                    sequenceQueue.nextConnection(),
+                    sequenceQueue.nextDatabase(),
+                    sequenceQueue.nextSequence(),
+                    sequenceQueue.nextResultIdentifier(),
+                    sequenceQueue.nextFetchSize()
+            ));
+        }
+        return sequences;
+    }
+
+    private void executeSequences(List<QueuedSequence> sequences, ResultWriter writer, File output) throws SQLException, ResultWriterException, IOException {
+        if (shouldExecuteInParallel && sequences.size() > 1) {
+            executeSequencesInParallel(sequences, writer, List.of(output));
+        } else {
+            for (QueuedSequence sequence : sequences) executeSequence(sequence, writer, output, writer, false);
+        }
+    }
+
+    //the sequences are staged into several databases, each one accepts its own writer, so the sequences are staged in parallel
+    private List<File> stageSequencesInParallel(String sequenceName, List<QueuedSequence> sequences) throws SQLException, ResultWriterException, IOException {
+        int databaseCount = Math.min(stagingDatabaseFiles, sequences.size());
+        List<File> stagingFiles = new ArrayList<>(databaseCount);
+        try {
+            for (int i = 1; i <= databaseCount; i++) stagingFiles.add(temporaryResultWriter.initializeResultFile(sequenceName + ".part" + i));
+            executeSequencesInParallel(sequences, temporaryResultWriter, stagingFiles);
+            return stagingFiles;
+        } catch (SQLException | ResultWriterException | IOException | RuntimeException e) {
+            stagingFiles.forEach(temporaryResultWriter::discardResultFile);
+            throw e;
+        }
+    }
+
+    //the lock guards the output against concurrent writers, the results of the concurrent sequences are spooled before they are written
+    private void executeSequence(QueuedSequence sequence, ResultWriter writer, File output, Object lock, boolean concurrent) throws SQLException, ResultWriterException, IOException {
+        String sourceDatabasePath = databaseManager.getSQLiteDatabasePath(sequence.connection);
+        if (sourceDatabasePath != null && writer instanceof SQLiteResultWriter) {
+            //a SQLite source is copied into a SQLite output by the engine itself, nothing is fetched
+            synchronized (lock) {
+                try {
+                    ((SQLiteResultWriter) writer).writeAttached(sequence.resultIdentifier, sourceDatabasePath, sequence.body, output);
+                    return;
+                } catch (SQLException e) {
+                    //e.g. a statement which can't be a part of CREATE TABLE ... AS, the regular path reports the real errors
+                    logger.debug("Native staging of '{}' has failed, the result is fetched: {}", sequence.resultIdentifier, e.getMessage());
+                }
+            }
+        } else if (stagingCache != null && writer == temporaryResultWriter) {
+            stageCached(sequence, output, lock);
+            return;
+        }
+        fetchSequence(sequence, writer, output, lock, concurrent);
+    }
+
+    //a staged result of the previous runs is copied while it is fresh, the source is queried only for the missing ones
+    private void stageCached(QueuedSequence sequence, File output, Object lock) throws SQLException, ResultWriterException, IOException {
+        String key = FileCache.key(sequence.connection, sequence.database, sequence.body);
+        File cachedFile = stagingCache.get(key);
+        if (cachedFile != null) {
+            synchronized (lock) {
+                try {
+                    temporaryResultWriter.writeCopy(sequence.resultIdentifier, cachedFile, output);
+                    logger.info("Result of '{}' has been reused from the staging cache, it was fetched {} s ago", sequence.resultIdentifier, stagingCache.getAge(key) / 1000);
+                    return;
+                } catch (SQLException e) {
+                    //e.g. the entry has been evicted meanwhile
+                    logger.debug("Cached result of '{}' can't be staged, the result is fetched: {}", sequence.resultIdentifier, e.getMessage());
+                }
+            }
+        }
+        //the result is fetched into its own file, which needs no lock, and copied into the output
+        File entryFile = stagingCache.createTemporaryFile();
+        try {
+            fetchSequence(sequence, temporaryResultWriter, entryFile, entryFile, false);
+            synchronized (lock) {
+                temporaryResultWriter.writeCopy(sequence.resultIdentifier, entryFile, output);
+            }
+            stagingCache.put(key, entryFile);
+        } finally {
+            //the file is left only if it has not become an entry
+            Files.deleteIfExists(entryFile.toPath());
+        }
+    }
+
+    private void fetchSequence(QueuedSequence sequence, ResultWriter writer, File output, Object lock, boolean concurrent) throws SQLException, ResultWriterException, IOException {
+        //results of SQLite sources are local already
+        if (resultCache != null && databaseManager.getSQLiteDatabasePath(sequence.connection) == null) {
+            fetchCached(sequence, writer, output, lock, concurrent);
+            return;
+        }
+        if (concurrent) {
+            spoolSequence(sequence, writer, output, lock);
+            return;
+        }
+        try (
+                Connection connection = databaseManager.getConnection(sequence.connection, sequence.database);
+                Statement statement = databaseManager.createStatement(connection, sequence.connection, sequence.fetchSize);
+                ResultSet rs = statement.executeQuery(sequence.body);
+                ResultSet pipelinedRs = pipelined(rs)
+        ) {
+            //the writers are not thread-safe and the SQLite file accepts a single writer
+            synchronized (lock) {
+                writer.write(sequence.resultIdentifier, pipelinedRs, output);
+            }
+        }
+    }
+
+    // The result is fetched into a file of its own, which needs no lock, and written into the shared output from there,
+    // so the concurrent sequences are fetched in parallel and a streamed result is never held back by the writing of another one
+    private void spoolSequence(QueuedSequence sequence, ResultWriter writer, File output, Object lock) throws SQLException, ResultWriterException, IOException {
+        spoolDirectory.mkdirs();
+        File spoolFile = File.createTempFile("spool-", ".rows", spoolDirectory);
+        try {
+            record(sequence, new RowFileWriter(spoolFile));
+            writeRecorded(sequence, writer, spoolFile, output, lock);
+        } finally {
+            Files.deleteIfExists(spoolFile.toPath());
+        }
+    }
+
+    //reads all rows of the sequence into the recorder
+    private void record(QueuedSequence sequence, RowFileWriter recorder) throws SQLException, IOException {
+        try (
+                Connection connection = databaseManager.getConnection(sequence.connection, sequence.database);
+                Statement statement = databaseManager.createStatement(connection, sequence.connection, sequence.fetchSize);
+                ResultSet rs = statement.executeQuery(sequence.body);
+                ResultSet recordedRs = recordingPipeline.open(rs, recorder)
+        ) {
+            while (recordedRs.next()) {
+                //the rows are kept by the recorder
+            }
+        }
+        //the recording has stopped with the closed result set
+        if (!recorder.isComplete())
+            throw new IOException("Result of '" + sequence.resultIdentifier + "' can't be recorded, see the log for the reason");
+    }
+
+    private void writeRecorded(QueuedSequence sequence, ResultWriter writer, File recordedFile, File output, Object lock) throws SQLException, ResultWriterException, IOException {
+        try (ResultSet rs = recordingPipeline.replay(recordedFile)) {
+            synchronized (lock) {
+                writer.write(sequence.resultIdentifier, rs, output);
+            }
+        }
+    }
+
+    //a result is fetched once while it is fresh, e.g. the one of a sequence which several holders share
+    private void fetchCached(QueuedSequence sequence, ResultWriter writer, File output, Object lock, boolean concurrent) throws SQLException, ResultWriterException, IOException {
+        String key = FileCache.key(sequence.connection, sequence.database, sequence.body);
+        File cachedFile = resultCache.get(key);
+        ResultSet replayedRs = null;
+        if (cachedFile != null) {
+            try {
+                replayedRs = recordingPipeline.replay(cachedFile);
+            } catch (SQLException e) {
+                //e.g. the entry has been evicted meanwhile or is of another version
+                resultCache.invalidate(key);
+                logger.debug("Cached result of '{}' can't be replayed, the result is fetched: {}", sequence.resultIdentifier, e.getMessage());
+            }
+        }
+        if (replayedRs != null) {
+            try (ResultSet rs = replayedRs) {
+                synchronized (lock) {
+                    writer.write(sequence.resultIdentifier, rs, output);
+                }
+            } catch (SQLException e) {
+                //a broken entry is not replayed again
+                resultCache.invalidate(key);
+                throw e;
+            }
+            logger.info("Result of '{}' has been replayed from the result cache, it was fetched {} s ago", sequence.resultIdentifier, resultCache.getAge(key) / 1000);
+            return;
+        }
+        File entryFile = resultCache.createTemporaryFile();
+        RowFileWriter recorder = new RowFileWriter(entryFile);
+        try {
+            if (concurrent) {
+                //the recording is the spooled result, the entry is written into the output once it is complete
+                record(sequence, recorder);
+                writeRecorded(sequence, writer, entryFile, output, lock);
+                resultCache.put(key, entryFile);
+                return;
+            }
+            try (
+                    Connection connection = databaseManager.getConnection(sequence.connection, sequence.database);
+                    Statement statement = databaseManager.createStatement(connection, sequence.connection, sequence.fetchSize);
+                    ResultSet rs = statement.executeQuery(sequence.body);
+                    ResultSet recordedRs = recordingPipeline.open(rs, recorder)
+            ) {
+                synchronized (lock) {
+                    writer.write(sequence.resultIdentifier, recordedRs, output);
+                }
+            }
+            //the recording has stopped with the closed result set
+            if (recorder.isComplete()) resultCache.put(key, entryFile);
+        } finally {
+            //the file is left only if it has not become an entry
+            Files.deleteIfExists(entryFile.toPath());
+        }
+    }
+
+    //the pipelined result set is closed first, it stops its reader before the source result set is closed
+    private ResultSet pipelined(ResultSet rs) throws SQLException {
+        return pipeline == null ? rs : pipeline.open(rs);
+    }
+
+    //the sequences are spread over the outputs in turn, several outputs are the staging databases of a sequence queue
+    private void executeSequencesInParallel(List<QueuedSequence> sequences, ResultWriter writer, List<File> outputs) throws SQLException, ResultWriterException, IOException {
+        //each database accepts no more concurrent sequences than its pool can serve
+        Map<String, Semaphore> permits = new HashMap<>();
+        int threads = 0;
+        for (QueuedSequence sequence : sequences) {
+            if (!permits.containsKey(sequence.key())) {
+                int maximumConnections = Math.max(1, databaseManager.getMaximumConnections(sequence.connection, sequence.database));
+                permits.put(sequence.key(), new Semaphore(maximumConnections, true));
+                threads += maximumConnections;
+            }
+        }
+        ExecutorService executorService = Executors.newFixedThreadPool(Math.min(threads, sequences.size()));
+        try {
+            List<Future<Void>> futures = new ArrayList<>(sequences.size());
+            for (int i = 0; i < sequences.size(); i++) {
+                QueuedSequence sequence = sequences.get(i);
+                Semaphore semaphore = permits.get(sequence.key());
+                File output = outputs.get(i % outputs.size());
+                //the staging writer is safe for distinct files, which are the locks then
+                Object lock = outputs.size() == 1 ? writer : output;
+                futures.add(executorService.submit(() -> {
+                    semaphore.acquire();
+                    try {
+                        executeSequence(sequence, writer, output, lock, true);
+                        return null;
+                    } finally {
+                        semaphore.release();
+                    }
+                }));
+            }
+            //join all sequences before the post-sequence, the first failure wins
+            for (Future<Void> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    futures.forEach(f -> f.cancel(true));
+                    Throwable cause = e.getCause();
+                    if (cause instanceof SQLException) throw (SQLException) cause;
+                    if (cause instanceof ResultWriterException) throw (ResultWriterException) cause;
+                    if (cause instanceof IOException) throw (IOException) cause;
+                    throw new SQLException("Unexpected error during parallel sequence execution", cause);
+                } catch (InterruptedException e) {
+                    futures.forEach(f -> f.cancel(true));
+                    Thread.currentThread().interrupt();
+                    throw new SQLException("Parallel sequence execution has been interrupted", e);
+                }
+            }
+        } finally {
+            executorService.shutdownNow();
+        }
+        //results have been written in the completion order, restore the declared one
+        for (File output : outputs) writer.orderResults(output, collectResultIdentifiers(null, sequences));
+    }
+
+    private List<String> collectResultIdentifiers(String postSequenceResultIdentifier, List<QueuedSequence> sequences) {
+        List<String> resultIdentifiers = new ArrayList<>(sequences.size() + 1);
+        if (postSequenceResultIdentifier != null) resultIdentifiers.add(postSequenceResultIdentifier);
+        sequences.forEach(sequence -> resultIdentifiers.add(sequence.resultIdentifier));
+        return resultIdentifiers;
+    }
+
+    private static class QueuedSequence {
+        private final String connection;
+        private final String database;
+        private final String body;
+        private final String resultIdentifier;
+        private final Integer fetchSize;
+
+        private QueuedSequence(String connection, String database, String body, String resultIdentifier, Integer fetchSize) {
+            this.connection = connection;
+            this.database = database;
+            this.body = body;
+            this.resultIdentifier = resultIdentifier;
+            this.fetchSize = fetchSize;
+        }
+
+        private String key() {
+            return connection + "." + database;
         }
     }
 }
@@ -0,0 +1,39 @@
+package com.valdisdot.sqlexecutor.executor.batch;
+
+// A batch of rows decoded into one vector per column, the vectors are reused by the next batch
+public class ColumnBatch {
+    private final ColumnVector[] columns;
+    private final int capacity;
+    private int rowCount;
+
+    ColumnBatch(ColumnVector[] columns, int capacity) {
+        this.columns = columns;
+        this.capacity = capacity;
+    }
+
+    public int getColumnCount() {
+        return columns.length;
+    }
+
+    // the index is 0-based, unlike the JDBC one
+    public ColumnVector getColumn(int index) {
+        return columns[index];
+    }
+
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    boolean isFull() {
+        return rowCount == capacity;
+    }
+
+    void addRow() {
+        rowCount++;
+    }
+
+    void reset() {
+        for (ColumnVector column : columns) column.reset();
+        rowCount = 0;
+    }
+}
@@ -0,0 +1,142 @@
+package com.valdisdot.sqlexecutor.executor.batch;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+// Decodes the rows of a result set into column batches, every value is read from the driver once.
+// The same batch is refilled by every call of next(), consumers must be done with it before that
+public class ColumnBatchReader {
+    private final ResultSet resultSet;
+    private final ColumnBatch batch;
+
+    public ColumnBatchReader(ResultSet resultSet, int batchSize) throws SQLException {
+        this.resultSet = resultSet;
+        ResultSetMetaData metaData = resultSet.getMetaData();
+        ColumnVector[] columns = new ColumnVector[metaData.getColumnCount()];
+        int capacity = Math.max(1, batchSize);
+        for (int i = 1; i <= columns.length; i++) {
+            ColumnType type = ColumnType.of(metaData, i);
+            columns[i - 1] = type == ColumnType.DECIMAL
+                    ? new ColumnVector(metaData.getColumnName(i), type, metaData.getPrecision(i), metaData.getScale(i), capacity)
+                    : new ColumnVector(metaData.getColumnName(i), type, 0, 0, capacity);
+        }
+        this.batch = new ColumnBatch(columns, capacity);
+    }
+
+    // the batch with the columns of the result, it is empty until the first call of next()
+    public ColumnBatch getBatch() {
+        return batch;
+    }
+
+    // Fill the batch with the next rows, false if the result has no more rows
+    public boolean next() throws SQLException {
+        batch.reset();
+        while (!batch.isFull() && resultSet.next()) {
+            for (int i = 0; i < batch.getColumnCount(); i++) decode(batch.getColumn(i), i + 1);
+            batch.addRow();
+        }
+        return batch.getRowCount() > 0;
+    }
+
+    private void decode(ColumnVector column, int columnIndex) throws SQLException {
+        switch (column.getType()) {
+            case BOOLEAN:
+                boolean flag = resultSet.getBoolean(columnIndex);
+                if (resultSet.wasNull()) column.appendNull();
+                else column.appendBoolean(flag);
+                return;
+            case FLOAT64:
+                double number = resultSet.getDouble(columnIndex);
+                if (resultSet.wasNull()) column.appendNull();
+                else column.appendDouble(number);
+                return;
+            case INT64:
+                Object value = resultSet.getObject(columnIndex);
+                if (value == null) column.appendNull();
+                else column.appendLong(toLong(value, column));
+                return;
+            case DATE:
+                Object date = resultSet.getObject(columnIndex);
+                if (date == null) column.appendNull();
+                else column.appendInt((int) toEpochDay(date, column));
+                return;
+            case TIMESTAMP:
+                Object timestamp = resultSet.getObject(columnIndex);
+                if (timestamp == null) column.appendNull();
+                else column.appendLong(toEpochMilli(timestamp, column));
+                return;
+            case DECIMAL:
+                BigDecimal decimal = resultSet.getBigDecimal(columnIndex);
+                if (decimal == null) column.appendNull();
+                else column.appendDecimal(toUnscaled(decimal, column));
+                return;
+            case BINARY:
+                byte[] bytes = resultSet.getBytes(columnIndex);
+                if (bytes == null) column.appendNull();
+                else column.appendBytes(bytes);
+                return;
+            default:
+                String text = resultSet.getString(columnIndex);
+                if (text == null) column.appendNull();
+                else column.appendBytes(text.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private long toLong(Object value, ColumnVector column) throws SQLException {
+        try {
+            if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte)
+                return ((Number) value).longValue();
+            if (value instanceof BigDecimal) return ((BigDecimal) value).longValueExact();
+            if (value instanceof BigInteger) return ((BigInteger) value).longValueExact();
+            if (value instanceof Boolean) return (Boolean) value ? 1 : 0;
+            return new BigDecimal(value.toString().trim()).longValueExact();
+        } catch (ArithmeticException | NumberFormatException e) {
+            throw new SQLException("Cannot read '" + value + "' as a value of the integer column '" + column.getName() + "'", e);
+        }
+    }
+
+    private long toEpochDay(Object value, ColumnVector column) throws SQLException {
+        if (value instanceof java.sql.Date) return ((java.sql.Date) value).toLocalDate().toEpochDay();
+        if (value instanceof LocalDate) return ((LocalDate) value).toEpochDay();
+        if (value instanceof LocalDateTime) return ((LocalDateTime) value).toLocalDate().toEpochDay();
+        if (value instanceof Timestamp) return ((Timestamp) value).toLocalDateTime().toLocalDate().toEpochDay();
+        if (value instanceof java.util.Date) return new java.sql.Date(((java.util.Date) value).getTime()).toLocalDate().toEpochDay();
+        try {
+            String text = value.toString().trim();
+            return LocalDate.parse(text.length() > 10 ? text.substring(0, 10) : text).toEpochDay();
+        } catch (RuntimeException e) {
+            throw new SQLException("Cannot read '" + value + "' as a value of the date column '" + column.getName() + "'", e);
+        }
+    }
+
+    // timestamps keep their wall-clock time, the same one the row-wise writers show
+    private long toEpochMilli(Object value, ColumnVector column) throws SQLException {
+        if (value instanceof Timestamp) return ((Timestamp) value).toLocalDateTime().toInstant(ZoneOffset.UTC).toEpochMilli();
+        if (value instanceof LocalDateTime) return ((LocalDateTime) value).toInstant(ZoneOffset.UTC).toEpochMilli();
+        if (value instanceof LocalDate) return ((LocalDate) value).atStartOfDay().toInstant(ZoneOffset.UTC).toEpochMilli();
+        if (value instanceof java.util.Date) return new Timestamp(((java.util.Date) value).getTime()).toLocalDateTime().toInstant(ZoneOffset.UTC).toEpochMilli();
+        if (value instanceof Number) return ((Number) value).longValue();
+        try {
+            String text = value.toString().trim();
+            return LocalDateTime.parse(text.length() == 10 ? text + "T00:00:00" : text.replace(' ', 'T')).toInstant(ZoneOffset.UTC).toEpochMilli();
+        } catch (RuntimeException e) {
+            throw new SQLException("Cannot read '" + value + "' as a value of the timestamp column '" + column.getName() + "'", e);
+        }
+    }
+
+    private BigInteger toUnscaled(BigDecimal decimal, ColumnVector column) throws SQLException {
+        BigInteger unscaled = decimal.setScale(column.getScale(), RoundingMode.HALF_UP).unscaledValue();
+        if (unscaled.abs().toString().length() > column.getPrecision())
+            throw new SQLException("Cannot read '" + decimal + "' as a value of the decimal column '" + column.getName() + "' of precision " + column.getPrecision());
+        return unscaled;
+    }
+}
@@ -0,0 +1,70 @@
+package com.valdisdot.sqlexecutor.executor.batch;
+
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+
+// The logical type of a column vector and the width of its values in the Arrow memory layout,
+// 0 for bit-packed booleans and -1 for variable-length values
+public enum ColumnType {
+    BOOLEAN(0),
+    INT64(8),
+    FLOAT64(8),
+    DECIMAL(16),
+    DATE(4),
+    TIMESTAMP(8),
+    BINARY(-1),
+    UTF8(-1);
+
+    // Arrow keeps decimals in 128 bits, which is 38 decimal digits
+    public static final int MAX_DECIMAL_PRECISION = 38;
+
+    private final int width;
+
+    ColumnType(int width) {
+        this.width = width;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public boolean isVariableLength() {
+        return width < 0;
+    }
+
+    // integers are widened to INT64 since the drivers (e.g. SQLite) may declare INTEGER for 64-bit values,
+    // decimals without a declared precision (reported as 0) are kept as text
+    public static ColumnType of(ResultSetMetaData metaData, int column) throws SQLException {
+        switch (metaData.getColumnType(column)) {
+            case Types.BOOLEAN:
+            case Types.BIT:
+                return BOOLEAN;
+            case Types.TINYINT:
+            case Types.SMALLINT:
+            case Types.INTEGER:
+            case Types.BIGINT:
+                return INT64;
+            case Types.REAL:
+            case Types.FLOAT:
+            case Types.DOUBLE:
+                return FLOAT64;
+            case Types.DECIMAL:
+            case Types.NUMERIC:
+                int precision = metaData.getPrecision(column);
+                int scale = metaData.getScale(column);
+                return precision > 0 && precision <= MAX_DECIMAL_PRECISION && scale >= 0 && scale <= precision ? DECIMAL : UTF8;
+            case Types.DATE:
+                return DATE;
+            case Types.TIMESTAMP:
+                return TIMESTAMP;
+            case Types.BINARY:
+            case Types.VARBINARY:
+            case Types.LONGVARBINARY:
+            case Types.BLOB:
+                return BINARY;
+            default:
+                return UTF8;
+        }
+    }
+}
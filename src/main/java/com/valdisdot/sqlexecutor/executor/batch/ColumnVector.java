@@ -0,0 +1,182 @@
+package com.valdisdot.sqlexecutor.executor.batch;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+// The values of a single column of a batch, kept in the Arrow memory layout: a validity bitmap and
+// little-endian fixed-width values, or int32 offsets into a data buffer for variable-length values.
+// Columnar writers may copy the buffers as they are, the row-wise getters decode a single value
+public class ColumnVector {
+    private final String name;
+    private final ColumnType type;
+    private final int precision;
+    private final int scale;
+    private final byte[] validity;
+    private final ByteBuffer values;
+    private ByteBuffer data;
+    private int size;
+    private int nullCount;
+
+    ColumnVector(String name, ColumnType type, int precision, int scale, int capacity) {
+        this.name = name;
+        this.type = type;
+        this.precision = precision;
+        this.scale = scale;
+        this.validity = new byte[(capacity + 7) / 8];
+        if (type == ColumnType.BOOLEAN) {
+            values = ByteBuffer.allocate((capacity + 7) / 8);
+        } else if (type.isVariableLength()) {
+            values = ByteBuffer.allocate((capacity + 1) * 4);
+            data = ByteBuffer.allocate(Math.max(1024, capacity * 16));
+        } else {
+            values = ByteBuffer.allocate(capacity * type.getWidth());
+        }
+        values.order(ByteOrder.LITTLE_ENDIAN);
+        reset();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public ColumnType getType() {
+        return type;
+    }
+
+    // the declared precision of decimals, 0 for the other types
+    public int getPrecision() {
+        return precision;
+    }
+
+    public int getScale() {
+        return scale;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public int getNullCount() {
+        return nullCount;
+    }
+
+    public boolean isNull(int row) {
+        return (validity[row >> 3] & 1 << (row & 7)) == 0;
+    }
+
+    public boolean getBoolean(int row) {
+        return (values.get(row >> 3) & 1 << (row & 7)) != 0;
+    }
+
+    // INT64 values and TIMESTAMP milliseconds of the wall-clock time (as if it were UTC)
+    public long getLong(int row) {
+        return values.getLong(row * 8);
+    }
+
+    // DATE days since the epoch
+    public int getInt(int row) {
+        return values.getInt(row * 4);
+    }
+
+    public double getDouble(int row) {
+        return values.getDouble(row * 8);
+    }
+
+    public BigDecimal getBigDecimal(int row) {
+        byte[] bigEndian = new byte[16];
+        for (int i = 0; i < 16; i++) bigEndian[15 - i] = values.get(row * 16 + i);
+        return new BigDecimal(new BigInteger(bigEndian), scale);
+    }
+
+    public byte[] getBytes(int row) {
+        int start = values.getInt(row * 4);
+        byte[] bytes = new byte[values.getInt(row * 4 + 4) - start];
+        System.arraycopy(data.array(), start, bytes, 0, bytes.length);
+        return bytes;
+    }
+
+    // the validity bitmap, empty if there are no nulls
+    public ByteBuffer getValidityBuffer() {
+        return ByteBuffer.wrap(validity, 0, nullCount == 0 ? 0 : (size + 7) / 8).slice().asReadOnlyBuffer().order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    // the values, the bitmap of booleans or the offsets of variable-length values
+    public ByteBuffer getValueBuffer() {
+        int length;
+        if (type == ColumnType.BOOLEAN) length = (size + 7) / 8;
+        else if (type.isVariableLength()) length = (size + 1) * 4;
+        else length = size * type.getWidth();
+        return values.duplicate().position(0).limit(length).slice().asReadOnlyBuffer().order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    // the bytes of variable-length values, null for the other types
+    public ByteBuffer getDataBuffer() {
+        if (data == null) return null;
+        return data.duplicate().position(0).limit(values.getInt(size * 4)).slice().asReadOnlyBuffer().order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    void appendNull() {
+        nullCount++;
+        if (type.isVariableLength()) values.putInt((size + 1) * 4, values.getInt(size * 4));
+        size++;
+    }
+
+    void appendBoolean(boolean value) {
+        if (value) values.put(size >> 3, (byte) (values.get(size >> 3) | 1 << (size & 7)));
+        markValid();
+    }
+
+    void appendLong(long value) {
+        values.putLong(size * 8, value);
+        markValid();
+    }
+
+    void appendInt(int value) {
+        values.putInt(size * 4, value);
+        markValid();
+    }
+
+    void appendDouble(double value) {
+        values.putDouble(size * 8, value);
+        markValid();
+    }
+
+    // the unscaled value in the little-endian two's complement of 128 bits
+    void appendDecimal(BigInteger unscaled) {
+        byte[] bigEndian = unscaled.toByteArray();
+        byte sign = (byte) (unscaled.signum() < 0 ? -1 : 0);
+        for (int i = 0; i < 16; i++) {
+            int source = bigEndian.length - 1 - i;
+            values.put(size * 16 + i, source >= 0 ? bigEndian[source] : sign);
+        }
+        markValid();
+    }
+
+    void appendBytes(byte[] value) {
+        int start = values.getInt(size * 4);
+        if (start + value.length > data.capacity()) {
+            ByteBuffer grown = ByteBuffer.allocate(Math.max(data.capacity() * 2, start + value.length));
+            grown.put(data.array(), 0, start);
+            data = grown;
+        }
+        System.arraycopy(value, 0, data.array(), start, value.length);
+        values.putInt((size + 1) * 4, start + value.length);
+        markValid();
+    }
+
+    void reset() {
+        //the skipped values of nulls must stay zero
+        Arrays.fill(validity, (byte) 0);
+        Arrays.fill(values.array(), (byte) 0);
+        size = 0;
+        nullCount = 0;
+    }
+
+    private void markValid() {
+        validity[size >> 3] |= 1 << (size & 7);
+        size++;
+    }
+}
@@ -0,0 +1,11 @@
+package com.valdisdot.sqlexecutor.executor.cache;
+
+// The order in which the entries of a cache are evicted once the cache has grown above its size limit
+public enum EvictionPolicy {
+    // the least recently used entries first
+    LRU,
+    // the least frequently used entries first, the least recently used ones of the same use count first
+    LFU,
+    // the oldest entries first, however often they are used
+    FIFO
+}
@@ -0,0 +1,253 @@
+package com.valdisdot.sqlexecutor.executor.cache;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+// A directory of files cached by their keys, e.g. the staged results of sequences by their connection, database and SQL.
+// An entry expires after its time to live; once the files exceed the size limit, entries are evicted by the eviction policy.
+// The entries are listed in the index file of the directory, so they are reused by the next runs
+public class FileCache {
+    // version of the index format, an index of another version is dropped with its entries
+    private static final int FORMAT_VERSION = 1;
+    private static final String INDEX_FILE = "index.json";
+    private static final String TEMPORARY_EXTENSION = ".tmp";
+
+    private final File directory;
+    private final String extension;
+    private final long timeToLive;
+    private final long maxBytes;
+    private final Comparator<Entry> evictionOrder;
+    private final LongSupplier clock;
+    private final ObjectMapper mapper;
+    private final Logger logger;
+    private final Map<String, Entry> entries = new HashMap<>();
+    private long totalBytes;
+    private boolean loaded;
+
+    // the time to live is in milliseconds, the size limit is in bytes, the least recently used entries are evicted first
+    public FileCache(File directory, String extension, long timeToLive, long maxBytes) {
+        this(directory, extension, timeToLive, maxBytes, EvictionPolicy.LRU);
+    }
+
+    public FileCache(File directory, String extension, long timeToLive, long maxBytes, EvictionPolicy evictionPolicy) {
+        this(directory, extension, timeToLive, maxBytes, evictionPolicy, System::currentTimeMillis);
+    }
+
+    FileCache(File directory, String extension, long timeToLive, long maxBytes, EvictionPolicy evictionPolicy, LongSupplier clock) {
+        this.directory = directory;
+        this.extension = extension;
+        this.timeToLive = timeToLive;
+        this.maxBytes = maxBytes;
+        this.evictionOrder = getEvictionOrder(evictionPolicy);
+        this.clock = clock;
+        this.mapper = new ObjectMapper();
+        this.logger = LoggerFactory.getLogger(this.getClass());
+    }
+
+    // The key of the values, e.g. of a connection, a database and a query. Every value is prefixed with its length,
+    // so the values can't run into each other, and the key is a file name
+    public static String key(String... values) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (String value : values) {
+                digest.update((value == null ? "-" : value.length() + ":" + value).getBytes(StandardCharsets.UTF_8));
+            }
+            StringBuilder builder = new StringBuilder(64);
+            for (byte b : digest.digest()) builder.append(String.format("%02x", b));
+            return builder.toString();
+        } catch (NoSuchAlgorithmException e) {
+            //every Java platform is required to support SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // the file of the entry, null if there is no entry or it has expired
+    public synchronized File get(String key) {
+        load();
+        Entry entry = entries.get(key);
+        if (entry == null) return null;
+        File file = getFile(key);
+        long now = clock.getAsLong();
+        if (now - entry.createdAt >= timeToLive || file.length() != entry.bytes) {
+            remove(key);
+            save();
+            return null;
+        }
+        entry.lastAccessedAt = now;
+        entry.hits++;
+        save();
+        return file;
+    }
+
+    // removes the entry, e.g. the one which can't be read
+    public synchronized void invalidate(String key) {
+        load();
+        remove(key);
+        save();
+    }
+
+    // the time in milliseconds the entry has been cached for
+    public synchronized long getAge(String key) {
+        Entry entry = entries.get(key);
+        return entry == null ? 0 : clock.getAsLong() - entry.createdAt;
+    }
+
+    // a file to write a new entry into, it becomes the entry with put
+    public synchronized File createTemporaryFile() throws IOException {
+        load();
+        directory.mkdirs();
+        return File.createTempFile("entry-", TEMPORARY_EXTENSION, directory);
+    }
+
+    // Moves the written file into the cache, it replaces the previous entry of the key.
+    // An entry larger than the whole cache is not kept, the other entries are evicted down to the size limit
+    public synchronized void put(String key, File file) throws IOException {
+        load();
+        long bytes = file.length();
+        if (bytes > maxBytes) {
+            Files.deleteIfExists(file.toPath());
+            logger.debug("Entry of {} bytes exceeds the cache size of {} bytes, it is not cached", bytes, maxBytes);
+            return;
+        }
+        remove(key);
+        Files.move(file.toPath(), getFile(key).toPath(), StandardCopyOption.REPLACE_EXISTING);
+        long now = clock.getAsLong();
+        //the result of the entry has been used once, by the run which has fetched it
+        entries.put(key, new Entry(bytes, now, now, 1));
+        totalBytes += bytes;
+        evict(now, key);
+        save();
+    }
+
+    // the expired entries first, then the ones the eviction policy selects; the new entry is kept, the others make room for it
+    private void evict(long now, String newKey) {
+        List<String> expired = new ArrayList<>();
+        entries.forEach((key, entry) -> {
+            if (now - entry.createdAt >= timeToLive) expired.add(key);
+        });
+        expired.forEach(this::remove);
+        if (totalBytes <= maxBytes) return;
+        List<Map.Entry<String, Entry>> candidates = new ArrayList<>(entries.entrySet());
+        candidates.removeIf(candidate -> candidate.getKey().equals(newKey));
+        candidates.sort(Map.Entry.comparingByValue(evictionOrder));
+        for (int i = 0; i < candidates.size() && totalBytes > maxBytes; i++) {
+            logger.debug("Cache entry {} is evicted", candidates.get(i).getKey());
+            remove(candidates.get(i).getKey());
+        }
+    }
+
+    private static Comparator<Entry> getEvictionOrder(EvictionPolicy evictionPolicy) {
+        Comparator<Entry> leastRecentlyUsed = Comparator.comparingLong(entry -> entry.lastAccessedAt);
+        switch (evictionPolicy) {
+            case LFU:
+                return Comparator.<Entry>comparingLong(entry -> entry.hits).thenComparing(leastRecentlyUsed);
+            case FIFO:
+                return Comparator.comparingLong(entry -> entry.createdAt);
+            default:
+                return leastRecentlyUsed;
+        }
+    }
+
+    private void remove(String key) {
+        Entry entry = entries.remove(key);
+        if (entry != null) totalBytes -= entry.bytes;
+        File file = getFile(key);
+        if (file.exists() && !file.delete()) logger.debug("Cache file {} can't be deleted, it may be in use", file.getAbsolutePath());
+    }
+
+    private File getFile(String key) {
+        return new File(directory, key + extension);
+    }
+
+    // Restores the entries of the index once. The files which are not in the index,
+    // e.g. the ones left by an interrupted run, are deleted
+    private void load() {
+        if (loaded) return;
+        loaded = true;
+        File indexFile = new File(directory, INDEX_FILE);
+        if (indexFile.isFile()) {
+            try {
+                JsonNode root = mapper.readTree(indexFile);
+                if (root != null && root.path("version").asInt() == FORMAT_VERSION) {
+                    for (JsonNode node : root.path("entries")) {
+                        String key = node.path("key").asText(null);
+                        if (key == null || getFile(key).length() != node.path("bytes").asLong(-1)) continue;
+                        Entry entry = new Entry(
+                                node.path("bytes").asLong(),
+                                node.path("createdAt").asLong(),
+                                node.path("lastAccessedAt").asLong(),
+                                node.path("hits").asLong()
+                        );
+                        entries.put(key, entry);
+                        totalBytes += entry.bytes;
+                    }
+                }
+            } catch (IOException e) {
+                logger.warn("Cache index {} can't be read, the cache is cleared: {}", indexFile.getAbsolutePath(), e.getMessage());
+            }
+        }
+        File[] files = directory.listFiles((dir, name) -> name.endsWith(extension) || name.endsWith(TEMPORARY_EXTENSION));
+        if (files != null) {
+            for (File file : files) {
+                String name = file.getName();
+                if (name.equals(INDEX_FILE)) continue;
+                if (name.endsWith(extension) && entries.containsKey(name.substring(0, name.length() - extension.length()))) continue;
+                if (!file.delete()) logger.debug("Cache file {} can't be deleted, it may be in use", file.getAbsolutePath());
+            }
+        }
+    }
+
+    private void save() {
+        ObjectNode root = mapper.createObjectNode();
+        root.put("version", FORMAT_VERSION);
+        ArrayNode array = root.putArray("entries");
+        entries.forEach((key, entry) -> array.addObject()
+                .put("key", key)
+                .put("bytes", entry.bytes)
+                .put("createdAt", entry.createdAt)
+                .put("lastAccessedAt", entry.lastAccessedAt)
+                .put("hits", entry.hits));
+        try {
+            directory.mkdirs();
+            //write aside and move, a reader never sees a partially written index
+            File temporaryFile = new File(directory, INDEX_FILE + TEMPORARY_EXTENSION);
+            mapper.writeValue(temporaryFile, root);
+            Files.move(temporaryFile.toPath(), new File(directory, INDEX_FILE).toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            //the entries are valid for this run anyway
+            logger.warn("Cache index of {} can't be written: {}", directory.getAbsolutePath(), e.getMessage());
+        }
+    }
+
+    private static class Entry {
+        private final long bytes;
+        private final long createdAt;
+        private long lastAccessedAt;
+        private long hits;
+
+        private Entry(long bytes, long createdAt, long lastAccessedAt, long hits) {
+            this.bytes = bytes;
+            this.createdAt = createdAt;
+            this.lastAccessedAt = lastAccessedAt;
+            this.hits = hits;
+        }
+    }
+}
@@ -8,7 +8,9 @@ import com.zaxxer.hikari.HikariDataSource;
 import javax.sql.DataSource;
 import java.sql.Connection;
 import java.sql.DriverManager;
+import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -18,12 +20,16 @@ public class DatabaseManager {
     // Store DataSource objects for each database connection
     private final Map<String, HikariDataSource> dataSources = new HashMap<>();
     private final Map<String, String> sqliteConnections = new HashMap<>();
+    private final Map<String, ConnectionConfig> connectionConfigs = new HashMap<>();
+    // Fetch size for streamed results when neither the sequence nor the connection sets one
+    private static final int DEFAULT_STREAMING_FETCH_SIZE = 1000;
 
     // Constructor: accepts a list of ConnectionConfig objects
     public DatabaseManager(List<ConnectionConfig> configs, ApplicationConfig applicationConfig) throws DatabaseManagerException {
         TimeZone.setDefault(TimeZone.getTimeZone("UTC"));
         for (ConnectionConfig config : configs) {
             if (config.getJdbcType().isBlank()) continue;
+            connectionConfigs.put(config.getConnectionIdentifier(), config);
             if ("sqlite".equalsIgnoreCase(config.getJdbcType())) {
                 // For SQLite, store the JDBC URL directly without pooling
                 sqliteConnections.put(config.getConnectionIdentifier(), config.getJdbcURL().replaceAll("jdbc:sqlite:", "").trim());
@@ -66,6 +72,51 @@ public class DatabaseManager {
         return dataSource.getConnection();
     }
 
+    // Get the path of the database file of a SQLite connection, null for the server connections
+    public String getSQLiteDatabasePath(String connectionIdentifier) {
+        return sqliteConnections.get(connectionIdentifier);
+    }
+
+    // Get the amount of connections which can be used simultaneously for a specific database
+    public int getMaximumConnections(String connectionIdentifier, String databaseName) throws SQLException {
+        // SQLite files are not pooled, concurrent readers of the same file would only contend for its lock
+        if (sqliteConnections.containsKey(connectionIdentifier)) return 1;
+        String key = connectionIdentifier + "." + databaseName;
+        HikariDataSource dataSource = dataSources.get(key);
+        if (dataSource == null) {
+            throw new SQLException("No DataSource found for: " + key);
+        }
+        return dataSource.getMaximumPoolSize();
+    }
+
+    // Create a forward-only, read-only statement which fetches rows according to the sequence and connection settings
+    public Statement createStatement(Connection connection, String connectionIdentifier, Integer fetchSize) throws SQLException {
+        ConnectionConfig config = connectionConfigs.get(connectionIdentifier);
+        int effectiveFetchSize = fetchSize != null ? fetchSize : config == null ? 0 : config.getFetchSize();
+        // A fetch size of the sequence is a request for streaming by itself
+        boolean streaming = fetchSize != null || (config != null && config.shouldStreamResults());
+        Statement statement = connection.createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+        if (streaming && config != null) {
+            switch (config.getJdbcType().toLowerCase()) {
+                case "postgresql":
+                    // The driver uses a cursor only inside a transaction, otherwise the whole result is buffered
+                    connection.setAutoCommit(false);
+                    statement.setFetchSize(effectiveFetchSize > 0 ? effectiveFetchSize : DEFAULT_STREAMING_FETCH_SIZE);
+                    return statement;
+                case "mysql":
+                case "mariadb":
+                    // Without server cursors, Integer.MIN_VALUE is the driver's signal for row-by-row streaming
+                    if (Boolean.parseBoolean(config.getProperties().getProperty("useCursorFetch", "false")))
+                        statement.setFetchSize(effectiveFetchSize > 0 ? effectiveFetchSize : DEFAULT_STREAMING_FETCH_SIZE);
+                    else
+                        statement.setFetchSize(Integer.MIN_VALUE);
+                    return statement;
+            }
+        }
+        if (effectiveFetchSize > 0) statement.setFetchSize(effectiveFetchSize);
+        return statement;
+    }
+
     // Helper method to map SQL data types from ResultSetMetaData to SQLite types
     public Connection getLocalConnection(String databaseFilePath) throws SQLException {
         String dbUrl = "jdbc:sqlite:" + databaseFilePath.replaceAll("\\\\", "\\\\\\\\");
@@ -0,0 +1,280 @@
+package com.valdisdot.sqlexecutor.executor.pipeline;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// A forward-only view over the row batches which the reader thread fetches from the source result set
+class PipelinedResultSet implements InvocationHandler {
+    private final RowBatchReader reader;
+    private final ResultSetMetaDataSnapshot metaData;
+    private final BlockingQueue<List<Object[]>> batches;
+    private volatile boolean closed;
+    // the state below is touched by the writing thread only
+    private List<Object[]> batch = new ArrayList<>(0);
+    private int position;
+    private Object[] row;
+    private int rowNumber;
+    private boolean finished;
+    private boolean lastValueNull;
+
+    private PipelinedResultSet(RowBatchReader reader, int capacity) {
+        this.reader = reader;
+        this.metaData = reader.getMetaData();
+        this.batches = new ArrayBlockingQueue<>(capacity);
+    }
+
+    static ResultSet open(RowSource source, ExecutorService readers, int batchSize, int capacity, RowFileWriter recorder) {
+        return tee(source, readers, batchSize, capacity, 1, recorder).get(0);
+    }
+
+    // every returned result set reads all rows of the source, which is read once
+    static List<ResultSet> tee(RowSource source, ExecutorService readers, int batchSize, int capacity, int consumers, RowFileWriter recorder) {
+        RowBatchReader reader = new RowBatchReader(source, batchSize, recorder);
+        List<ResultSet> resultSets = new ArrayList<>(consumers);
+        for (int i = 0; i < consumers; i++) {
+            PipelinedResultSet pipelinedResultSet = new PipelinedResultSet(reader, capacity);
+            reader.addConsumer(pipelinedResultSet);
+            resultSets.add((ResultSet) Proxy.newProxyInstance(
+                    ResultSet.class.getClassLoader(),
+                    new Class<?>[]{ResultSet.class},
+                    pipelinedResultSet
+            ));
+        }
+        reader.start(readers);
+        return resultSets;
+    }
+
+    // runs on the reader thread, blocks while the queue is full, which pauses fetching until the writer catches up
+    boolean offer(List<Object[]> rows) {
+        try {
+            while (!closed) {
+                if (batches.offer(rows, 100, TimeUnit.MILLISECONDS)) return true;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return false;
+    }
+
+    private boolean next() throws SQLException {
+        if (closed) throw new SQLException("Result set is closed");
+        if (finished) return false;
+        if (position == batch.size()) {
+            try {
+                batch = batches.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SQLException("Fetching of the result has been interrupted", e);
+            }
+            position = 0;
+            if (closed) throw new SQLException("Result set is closed");
+            if (batch == RowBatchReader.END) {
+                finished = true;
+                row = null;
+                if (reader.getFailure() != null) throw new SQLException("Error during fetching the result", reader.getFailure());
+                return false;
+            }
+        }
+        row = batch.get(position++);
+        rowNumber++;
+        return true;
+    }
+
+    // the source result set belongs to the caller, the last consumer to close waits until the reader has stopped.
+    // A consumer may be closed from another thread, e.g. when a sibling consumer fails, so only the shared state is touched
+    private void close() {
+        synchronized (this) {
+            if (closed) return;
+            closed = true;
+        }
+        batches.clear();
+        //wakes up the writing thread if it waits for a batch
+        batches.offer(RowBatchReader.END);
+        reader.consumerClosed();
+    }
+
+    private int findColumn(String columnLabel) throws SQLException {
+        for (int i = 1; i <= metaData.getColumnCount(); i++) {
+            if (metaData.getColumnLabel(i).equalsIgnoreCase(columnLabel)) return i;
+        }
+        throw new SQLException("No such column: " + columnLabel);
+    }
+
+    private Object getValue(int columnIndex) throws SQLException {
+        if (closed) throw new SQLException("Result set is closed");
+        if (row == null) throw new SQLException("No current row");
+        if (columnIndex < 1 || columnIndex > row.length)
+            throw new SQLException("Column index out of range: " + columnIndex);
+        Object value = row[columnIndex - 1];
+        lastValueNull = value == null;
+        return value;
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        switch (method.getName()) {
+            case "next":
+                return next();
+            case "close":
+                close();
+                return null;
+            case "isClosed":
+                return closed;
+            case "getMetaData":
+                return metaData;
+            case "wasNull":
+                return lastValueNull;
+            case "findColumn":
+                return findColumn((String) args[0]);
+            case "getRow":
+                return finished ? 0 : rowNumber;
+            case "isBeforeFirst":
+                return rowNumber == 0 && !finished;
+            case "isAfterLast":
+                return finished && rowNumber > 0;
+            case "getType":
+                return ResultSet.TYPE_FORWARD_ONLY;
+            case "getConcurrency":
+                return ResultSet.CONCUR_READ_ONLY;
+            case "getHoldability":
+                return ResultSet.CLOSE_CURSORS_AT_COMMIT;
+            case "getFetchDirection":
+                return ResultSet.FETCH_FORWARD;
+            case "getFetchSize":
+                return reader.getBatchSize();
+            case "setFetchSize":
+            case "setFetchDirection":
+            case "clearWarnings":
+            case "getWarnings":
+            case "getStatement":
+                return null;
+            case "isWrapperFor":
+                return ((Class<?>) args[0]).isInstance(proxy);
+            case "unwrap":
+                if (((Class<?>) args[0]).isInstance(proxy)) return proxy;
+                throw new SQLException("Not a wrapper for: " + ((Class<?>) args[0]).getName());
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            case "equals":
+                return proxy == args[0];
+            case "toString":
+                return "PipelinedResultSet@" + Integer.toHexString(System.identityHashCode(proxy));
+        }
+        if (method.getName().startsWith("get") && args != null && args.length > 0) {
+            int columnIndex = args[0] instanceof String ? findColumn((String) args[0]) : (Integer) args[0];
+            return convert(method, getValue(columnIndex), args);
+        }
+        throw new SQLFeatureNotSupportedException("Not supported by the pipelined result set: " + method.getName());
+    }
+
+    private Object convert(Method method, Object value, Object[] args) throws SQLException {
+        Class<?> type = method.getReturnType();
+        if ("getObject".equals(method.getName())) {
+            if (args.length > 1 && !(args[1] instanceof Map)) type = (Class<?>) args[1];
+            else type = Object.class;
+        }
+        if (value instanceof RenderedValue) {
+            if (type == String.class) return ((RenderedValue) value).text;
+            value = ((RenderedValue) value).value;
+        }
+        if (type.isPrimitive()) return convertPrimitive(type, value);
+        if (value == null || type.isInstance(value)) {
+            if (value instanceof BigDecimal && "getBigDecimal".equals(method.getName()) && args.length > 1)
+                return ((BigDecimal) value).setScale((Integer) args[1], RoundingMode.HALF_UP);
+            return value;
+        }
+        if (type == String.class) return value instanceof byte[] ? new String((byte[]) value, StandardCharsets.UTF_8) : value.toString();
+        if (type == BigDecimal.class) {
+            BigDecimal decimal = toBigDecimal(value);
+            return "getBigDecimal".equals(method.getName()) && args.length > 1 ? decimal.setScale((Integer) args[1], RoundingMode.HALF_UP) : decimal;
+        }
+        if (type == byte[].class && value instanceof String) return ((String) value).getBytes(StandardCharsets.UTF_8);
+        if (type == Timestamp.class || type == Date.class || type == Time.class) return toTemporal(type, value);
+        throw new SQLException("Cannot convert " + value.getClass().getName() + " to " + type.getName());
+    }
+
+    private Object convertPrimitive(Class<?> type, Object value) throws SQLException {
+        if (type == boolean.class) {
+            if (value == null) return false;
+            if (value instanceof Boolean) return value;
+            if (value instanceof Number) return ((Number) value).intValue() != 0;
+            String text = value.toString().trim();
+            return "true".equalsIgnoreCase(text) || "1".equals(text);
+        }
+        Number number = value == null ? 0 : value instanceof Number ? (Number) value : toBigDecimal(value);
+        if (type == int.class) return number.intValue();
+        if (type == long.class) return number.longValue();
+        if (type == double.class) return number.doubleValue();
+        if (type == float.class) return number.floatValue();
+        if (type == short.class) return number.shortValue();
+        return number.byteValue();
+    }
+
+    private BigDecimal toBigDecimal(Object value) throws SQLException {
+        if (value instanceof BigDecimal) return (BigDecimal) value;
+        if (value instanceof Double || value instanceof Float) return BigDecimal.valueOf(((Number) value).doubleValue());
+        if (value instanceof Number) return new BigDecimal(value.toString());
+        if (value instanceof Boolean) return (Boolean) value ? BigDecimal.ONE : BigDecimal.ZERO;
+        try {
+            return new BigDecimal(value.toString().trim());
+        } catch (NumberFormatException e) {
+            throw new SQLException("Cannot convert to a number: " + value, e);
+        }
+    }
+
+    private Object toTemporal(Class<?> type, Object value) throws SQLException {
+        long millis;
+        if (value instanceof java.util.Date) {
+            millis = ((java.util.Date) value).getTime();
+        } else if (value instanceof Number) {
+            millis = ((Number) value).longValue();
+        } else {
+            String text = value.toString().trim();
+            try {
+                if (type == Date.class && text.length() == 10) return Date.valueOf(text);
+                if (type == Time.class && text.length() == 8) return Time.valueOf(text);
+                millis = Timestamp.valueOf(text.length() == 10 ? text + " 00:00:00" : text.replace('T', ' ')).getTime();
+            } catch (IllegalArgumentException e) {
+                throw new SQLException("Cannot convert to a date: " + value, e);
+            }
+        }
+        if (type == Date.class) return new Date(millis);
+        if (type == Time.class) return new Time(millis);
+        return new Timestamp(millis);
+    }
+
+    static class RenderedValue {
+        private final Object value;
+        private final String text;
+
+        RenderedValue(Object value, String text) {
+            this.value = value;
+            this.text = text;
+        }
+
+        Object getValue() {
+            return value;
+        }
+
+        String getText() {
+            return text;
+        }
+    }
+}
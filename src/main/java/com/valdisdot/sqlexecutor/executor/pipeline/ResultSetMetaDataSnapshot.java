@@ -0,0 +1,190 @@
+package com.valdisdot.sqlexecutor.executor.pipeline;
+
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+
+// A detached copy of the result metadata, it stays valid after the source result set is closed
+public class ResultSetMetaDataSnapshot implements ResultSetMetaData {
+    private final String[] columnNames;
+    private final String[] columnLabels;
+    private final int[] columnTypes;
+    private final String[] columnTypeNames;
+    private final String[] columnClassNames;
+    private final int[] precisions;
+    private final int[] scales;
+    private final int[] nullables;
+    private final boolean[] signed;
+    private final String tableName;
+
+    public ResultSetMetaDataSnapshot(ResultSetMetaData metaData) throws SQLException {
+        int columnCount = metaData.getColumnCount();
+        columnNames = new String[columnCount];
+        columnLabels = new String[columnCount];
+        columnTypes = new int[columnCount];
+        columnTypeNames = new String[columnCount];
+        columnClassNames = new String[columnCount];
+        precisions = new int[columnCount];
+        scales = new int[columnCount];
+        nullables = new int[columnCount];
+        signed = new boolean[columnCount];
+        for (int i = 0; i < columnCount; i++) {
+            columnNames[i] = metaData.getColumnName(i + 1);
+            columnLabels[i] = metaData.getColumnLabel(i + 1);
+            columnTypes[i] = metaData.getColumnType(i + 1);
+            columnTypeNames[i] = metaData.getColumnTypeName(i + 1);
+            columnClassNames[i] = metaData.getColumnClassName(i + 1);
+            precisions[i] = metaData.getPrecision(i + 1);
+            scales[i] = metaData.getScale(i + 1);
+            nullables[i] = metaData.isNullable(i + 1);
+            signed[i] = metaData.isSigned(i + 1);
+        }
+        tableName = columnCount > 0 ? metaData.getTableName(1) : "";
+    }
+
+    // a snapshot restored from a recorded result, the arrays are of the same length
+    ResultSetMetaDataSnapshot(String[] columnNames, String[] columnLabels, int[] columnTypes, String[] columnTypeNames, String[] columnClassNames,
+                              int[] precisions, int[] scales, int[] nullables, boolean[] signed, String tableName) {
+        this.columnNames = columnNames;
+        this.columnLabels = columnLabels;
+        this.columnTypes = columnTypes;
+        this.columnTypeNames = columnTypeNames;
+        this.columnClassNames = columnClassNames;
+        this.precisions = precisions;
+        this.scales = scales;
+        this.nullables = nullables;
+        this.signed = signed;
+        this.tableName = tableName;
+    }
+
+    private int index(int column) throws SQLException {
+        if (column < 1 || column > columnNames.length)
+            throw new SQLException("Column index out of range: " + column);
+        return column - 1;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return columnNames.length;
+    }
+
+    @Override
+    public boolean isAutoIncrement(int column) throws SQLException {
+        index(column);
+        return false;
+    }
+
+    @Override
+    public boolean isCaseSensitive(int column) throws SQLException {
+        index(column);
+        return true;
+    }
+
+    @Override
+    public boolean isSearchable(int column) throws SQLException {
+        index(column);
+        return false;
+    }
+
+    @Override
+    public boolean isCurrency(int column) throws SQLException {
+        index(column);
+        return false;
+    }
+
+    @Override
+    public int isNullable(int column) throws SQLException {
+        return nullables[index(column)];
+    }
+
+    @Override
+    public boolean isSigned(int column) throws SQLException {
+        return signed[index(column)];
+    }
+
+    @Override
+    public int getColumnDisplaySize(int column) throws SQLException {
+        return precisions[index(column)];
+    }
+
+    @Override
+    public String getColumnLabel(int column) throws SQLException {
+        return columnLabels[index(column)];
+    }
+
+    @Override
+    public String getColumnName(int column) throws SQLException {
+        return columnNames[index(column)];
+    }
+
+    @Override
+    public String getSchemaName(int column) throws SQLException {
+        index(column);
+        return "";
+    }
+
+    @Override
+    public int getPrecision(int column) throws SQLException {
+        return precisions[index(column)];
+    }
+
+    @Override
+    public int getScale(int column) throws SQLException {
+        return scales[index(column)];
+    }
+
+    @Override
+    public String getTableName(int column) throws SQLException {
+        index(column);
+        return tableName;
+    }
+
+    @Override
+    public String getCatalogName(int column) throws SQLException {
+        index(column);
+        return "";
+    }
+
+    @Override
+    public int getColumnType(int column) throws SQLException {
+        return columnTypes[index(column)];
+    }
+
+    @Override
+    public String getColumnTypeName(int column) throws SQLException {
+        return columnTypeNames[index(column)];
+    }
+
+    @Override
+    public boolean isReadOnly(int column) throws SQLException {
+        index(column);
+        return true;
+    }
+
+    @Override
+    public boolean isWritable(int column) throws SQLException {
+        index(column);
+        return false;
+    }
+
+    @Override
+    public boolean isDefinitelyWritable(int column) throws SQLException {
+        index(column);
+        return false;
+    }
+
+    @Override
+    public String getColumnClassName(int column) throws SQLException {
+        return columnClassNames[index(column)];
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        if (isWrapperFor(iface)) return iface.cast(this);
+        throw new SQLException("Not a wrapper for: " + iface.getName());
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) {
+        return iface.isInstance(this);
+    }
+}
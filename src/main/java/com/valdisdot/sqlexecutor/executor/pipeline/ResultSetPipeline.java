@@ -0,0 +1,55 @@
+package com.valdisdot.sqlexecutor.executor.pipeline;
+
+import java.io.File;
+import java.io.IOException;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Decouples fetching of a result from its writing: a reader thread fills a bounded queue of row batches,
+// the writer drains it through an ordinary forward-only result set
+public class ResultSetPipeline {
+    private final int batchSize;
+    private final int capacity;
+    private final ExecutorService readers;
+
+    public ResultSetPipeline(int batchSize, int capacity) {
+        this.batchSize = Math.max(1, batchSize);
+        this.capacity = Math.max(1, capacity);
+        AtomicInteger threadCounter = new AtomicInteger();
+        this.readers = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "result-reader-" + threadCounter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    // Start fetching of the source, the returned result set must be closed before the source
+    public ResultSet open(ResultSet source) throws SQLException {
+        return open(source, null);
+    }
+
+    // Start fetching of the source and record its rows on the way, the recording is complete after the result set
+    // has been closed, if all rows have been fetched
+    public ResultSet open(ResultSet source, RowFileWriter recorder) throws SQLException {
+        return PipelinedResultSet.open(new ResultSetRowSource(source), readers, batchSize, capacity, recorder);
+    }
+
+    // Start reading of the rows recorded into the file, they are served as the fetched ones were
+    public ResultSet replay(File recordedFile) throws SQLException {
+        try {
+            return PipelinedResultSet.open(new RowFileReader(recordedFile), readers, batchSize, capacity, null);
+        } catch (IOException e) {
+            throw new SQLException("Error during reading the recorded result " + recordedFile.getName(), e);
+        }
+    }
+
+    // Start fetching of the source for several consumers at once, every returned result set reads all rows.
+    // The slowest consumer paces the fetching, all of them must be closed before the source
+    public List<ResultSet> tee(ResultSet source, int consumers) throws SQLException {
+        return PipelinedResultSet.tee(new ResultSetRowSource(source), readers, batchSize, capacity, consumers, null);
+    }
+}
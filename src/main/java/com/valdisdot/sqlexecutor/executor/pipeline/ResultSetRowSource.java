@@ -0,0 +1,78 @@
+package com.valdisdot.sqlexecutor.executor.pipeline;
+
+import java.math.BigInteger;
+import java.sql.Blob;
+import java.sql.Clob;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLXML;
+
+// The rows of a source result set, which belongs to the caller and is not closed here
+class ResultSetRowSource implements RowSource {
+    private final ResultSet source;
+    private final ResultSetMetaDataSnapshot metaData;
+
+    ResultSetRowSource(ResultSet source) throws SQLException {
+        this.source = source;
+        this.metaData = new ResultSetMetaDataSnapshot(source.getMetaData());
+    }
+
+    @Override
+    public ResultSetMetaDataSnapshot getMetaData() {
+        return metaData;
+    }
+
+    @Override
+    public Object[] nextRow() throws SQLException {
+        if (!source.next()) return null;
+        Object[] values = new Object[metaData.getColumnCount()];
+        for (int i = 0; i < values.length; i++) values[i] = fetch(i + 1);
+        return values;
+    }
+
+    // Every value is read once by its object. Only the objects the driver may render differently, e.g. doubles, decimals
+    // and timestamps, are read as their text too, and the text is kept only if it differs
+    private Object fetch(int columnIndex) throws SQLException {
+        Object value = source.getObject(columnIndex);
+        if (value == null || isRenderedAsObject(value)) return value;
+        if (value instanceof Blob || value instanceof Clob || value instanceof SQLXML) return materialize(value);
+        String text = source.getString(columnIndex);
+        return text == null || text.equals(value.toString()) ? value : new PipelinedResultSet.RenderedValue(value, text);
+    }
+
+    private boolean isRenderedAsObject(Object value) {
+        return value instanceof String || value instanceof Integer || value instanceof Long
+                || value instanceof Short || value instanceof Byte || value instanceof BigInteger;
+    }
+
+    // a large object is valid only while the cursor is on its row, its content is read and the object is released
+    private Object materialize(Object value) throws SQLException {
+        if (value instanceof Blob) {
+            Blob blob = (Blob) value;
+            try {
+                return blob.getBytes(1, (int) blob.length());
+            } finally {
+                blob.free();
+            }
+        }
+        if (value instanceof Clob) {
+            Clob clob = (Clob) value;
+            try {
+                return clob.getSubString(1, (int) clob.length());
+            } finally {
+                clob.free();
+            }
+        }
+        SQLXML xml = (SQLXML) value;
+        try {
+            return xml.getString();
+        } finally {
+            xml.free();
+        }
+    }
+
+    @Override
+    public void close() {
+        //the source result set is closed by its owner, after the last consumer
+    }
+}
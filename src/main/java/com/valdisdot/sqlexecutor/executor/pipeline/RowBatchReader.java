@@ -0,0 +1,109 @@
+package com.valdisdot.sqlexecutor.executor.pipeline;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Reads the rows of the source on a reader thread and publishes the same row batches to every consumer,
+// the source is read once however many consumers there are
+class RowBatchReader {
+    // marks the end of the result, the failure of the reader (if any) is published before it
+    static final List<Object[]> END = new ArrayList<>(0);
+
+    private final RowSource source;
+    private final ResultSetMetaDataSnapshot metaData;
+    private final int batchSize;
+    // keeps a copy of the rows, null if they are not recorded
+    private final RowFileWriter recorder;
+    private final List<PipelinedResultSet> consumers = new ArrayList<>();
+    private final AtomicInteger openConsumers = new AtomicInteger();
+    private Future<?> task;
+    private volatile Throwable failure;
+
+    RowBatchReader(RowSource source, int batchSize, RowFileWriter recorder) {
+        this.source = source;
+        this.metaData = source.getMetaData();
+        this.batchSize = batchSize;
+        this.recorder = recorder;
+    }
+
+    ResultSetMetaDataSnapshot getMetaData() {
+        return metaData;
+    }
+
+    int getBatchSize() {
+        return batchSize;
+    }
+
+    Throwable getFailure() {
+        return failure;
+    }
+
+    // consumers are added before the reader is started
+    void addConsumer(PipelinedResultSet consumer) {
+        consumers.add(consumer);
+        openConsumers.incrementAndGet();
+    }
+
+    void start(ExecutorService readers) {
+        task = readers.submit(this::read);
+    }
+
+    // the source result set belongs to the caller, it may be closed only after the last consumer has been closed
+    void consumerClosed() {
+        if (openConsumers.decrementAndGet() > 0) return;
+        try {
+            task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException ignored) {
+            //the reader publishes its failures, nothing is left here
+        }
+    }
+
+    // runs on the reader thread
+    private void read() {
+        //the recording is complete only if all rows have been read
+        boolean complete = false;
+        if (recorder != null) recorder.start(metaData);
+        try {
+            List<Object[]> rows = new ArrayList<>(batchSize);
+            while (openConsumers.get() > 0) {
+                Object[] values = source.nextRow();
+                if (values == null) {
+                    complete = true;
+                    break;
+                }
+                rows.add(values);
+                if (rows.size() == batchSize) {
+                    if (recorder != null) recorder.write(rows);
+                    if (!publish(rows)) return;
+                    rows = new ArrayList<>(batchSize);
+                }
+            }
+            if (!rows.isEmpty()) {
+                if (recorder != null) recorder.write(rows);
+                if (!publish(rows)) return;
+            }
+        } catch (Throwable e) {
+            failure = e;
+            complete = false;
+        } finally {
+            source.close();
+            if (recorder != null) recorder.finish(complete);
+        }
+        publish(END);
+    }
+
+    // the batches are immutable, so the consumers share them; a consumer which has been closed is skipped
+    private boolean publish(List<Object[]> rows) {
+        boolean published = false;
+        for (PipelinedResultSet consumer : consumers) {
+            if (consumer.offer(rows)) published = true;
+        }
+        return published;
+    }
+}
@@ -0,0 +1,186 @@
+package com.valdisdot.sqlexecutor.executor.pipeline;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.zip.InflaterInputStream;
+
+// Replays the rows recorded by a RowFileWriter, see there for the format
+class RowFileReader implements RowSource {
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final DataInputStream in;
+    private final ResultSetMetaDataSnapshot metaData;
+    // the rows left in the current batch
+    private long batchRows;
+    private boolean finished;
+
+    RowFileReader(File file) throws IOException {
+        InputStream fileIn = new FileInputStream(file);
+        try {
+            byte[] header = new byte[RowFileWriter.MAGIC.length + 1];
+            if (fileIn.readNBytes(header, 0, header.length) != header.length
+                    || !Arrays.equals(Arrays.copyOf(header, RowFileWriter.MAGIC.length), RowFileWriter.MAGIC)
+                    || header[RowFileWriter.MAGIC.length] != RowFileWriter.FORMAT_VERSION)
+                throw new IOException("Not a recorded result of the version " + RowFileWriter.FORMAT_VERSION + ": " + file.getName());
+            this.in = new DataInputStream(new BufferedInputStream(new InflaterInputStream(fileIn), BUFFER_SIZE));
+            this.metaData = readMetaData();
+        } catch (IOException | RuntimeException e) {
+            fileIn.close();
+            throw e;
+        }
+    }
+
+    private ResultSetMetaDataSnapshot readMetaData() throws IOException {
+        int columnCount = (int) readVarLong();
+        String[] columnNames = new String[columnCount];
+        String[] columnLabels = new String[columnCount];
+        int[] columnTypes = new int[columnCount];
+        String[] columnTypeNames = new String[columnCount];
+        String[] columnClassNames = new String[columnCount];
+        int[] precisions = new int[columnCount];
+        int[] scales = new int[columnCount];
+        int[] nullables = new int[columnCount];
+        boolean[] signed = new boolean[columnCount];
+        for (int i = 0; i < columnCount; i++) {
+            columnNames[i] = readText();
+            columnLabels[i] = readText();
+            columnTypes[i] = (int) readVarLong();
+            columnTypeNames[i] = readText();
+            columnClassNames[i] = readText();
+            precisions[i] = (int) readVarLong();
+            scales[i] = (int) readVarLong();
+            nullables[i] = (int) readVarLong();
+            signed[i] = in.readBoolean();
+        }
+        return new ResultSetMetaDataSnapshot(columnNames, columnLabels, columnTypes, columnTypeNames, columnClassNames, precisions, scales, nullables, signed, readText());
+    }
+
+    @Override
+    public ResultSetMetaDataSnapshot getMetaData() {
+        return metaData;
+    }
+
+    @Override
+    public Object[] nextRow() throws IOException {
+        if (finished) return null;
+        if (batchRows == 0) {
+            batchRows = readVarLong();
+            if (batchRows == 0) {
+                finished = true;
+                return null;
+            }
+        }
+        batchRows--;
+        Object[] values = new Object[metaData.getColumnCount()];
+        for (int i = 0; i < values.length; i++) values[i] = readValue(in.readUnsignedByte());
+        return values;
+    }
+
+    @Override
+    public void close() {
+        try {
+            in.close();
+        } catch (IOException ignored) {
+            //the file has been read
+        }
+    }
+
+    private Object readValue(int tag) throws IOException {
+        switch (tag) {
+            case RowFileWriter.NULL:
+                return null;
+            case RowFileWriter.RENDERED:
+                return new PipelinedResultSet.RenderedValue(readValue(in.readUnsignedByte()), readText());
+            case RowFileWriter.STRING:
+                return readText();
+            case RowFileWriter.INT:
+                return (int) readVarLong();
+            case RowFileWriter.LONG:
+                return readVarLong();
+            case RowFileWriter.DOUBLE:
+                return in.readDouble();
+            case RowFileWriter.FLOAT:
+                return in.readFloat();
+            case RowFileWriter.DECIMAL:
+                int scale = (int) readVarLong();
+                return new BigDecimal(new BigInteger(readBytes()), scale);
+            case RowFileWriter.TRUE:
+                return Boolean.TRUE;
+            case RowFileWriter.FALSE:
+                return Boolean.FALSE;
+            case RowFileWriter.BYTES:
+                return readBytes();
+            case RowFileWriter.DATE:
+                return new java.sql.Date(readVarLong());
+            case RowFileWriter.TIME:
+                return new Time(readVarLong());
+            case RowFileWriter.TIMESTAMP:
+                Timestamp timestamp = new Timestamp(readVarLong());
+                timestamp.setNanos((int) readVarLong());
+                return timestamp;
+            case RowFileWriter.SHORT:
+                return (short) readVarLong();
+            case RowFileWriter.BYTE:
+                return (byte) readVarLong();
+            case RowFileWriter.BIG_INTEGER:
+                return new BigInteger(readBytes());
+            case RowFileWriter.LOCAL_DATE:
+                return LocalDate.ofEpochDay(readVarLong());
+            case RowFileWriter.LOCAL_TIME:
+                return LocalTime.ofNanoOfDay(readVarLong());
+            case RowFileWriter.LOCAL_DATE_TIME:
+                long seconds = readVarLong();
+                return LocalDateTime.ofEpochSecond(seconds, (int) readVarLong(), ZoneOffset.UTC);
+            case RowFileWriter.OFFSET_DATE_TIME:
+                long epochSeconds = readVarLong();
+                int nanos = (int) readVarLong();
+                ZoneOffset offset = ZoneOffset.ofTotalSeconds((int) readVarLong());
+                return OffsetDateTime.of(LocalDateTime.ofEpochSecond(epochSeconds, nanos, offset), offset);
+            default:
+                throw new IOException("Unknown value type " + tag + " of a recorded result");
+        }
+    }
+
+    private String readText() throws IOException {
+        long length = readVarLong();
+        if (length < 0) return null;
+        return new String(readBytes((int) length), StandardCharsets.UTF_8);
+    }
+
+    private byte[] readBytes() throws IOException {
+        return readBytes((int) readVarLong());
+    }
+
+    private byte[] readBytes(int length) throws IOException {
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return bytes;
+    }
+
+    private long readVarLong() throws IOException {
+        long zigzag = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.read();
+            if (b < 0) throw new EOFException("Recorded result is truncated");
+            zigzag |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return (zigzag >>> 1) ^ -(zigzag & 1);
+        }
+        throw new IOException("Malformed variable-length integer of a recorded result");
+    }
+}
@@ -0,0 +1,230 @@
+package com.valdisdot.sqlexecutor.executor.pipeline;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+// Records the rows of a pipelined result into a compact file, which replays them later with the same values.
+// The file is the format version and the deflated stream of the metadata and the row batches: every value is a type tag
+// and its content, integers are variable-length. The recording is complete only if all rows of the source have been read,
+// a failed recording never breaks the result it records
+public class RowFileWriter {
+    static final byte[] MAGIC = {'S', 'Q', 'X', 'R'};
+    static final int FORMAT_VERSION = 1;
+    // the value type tags
+    static final int NULL = 0;
+    static final int STRING = 1;
+    static final int INT = 2;
+    static final int LONG = 3;
+    static final int DOUBLE = 4;
+    static final int FLOAT = 5;
+    static final int DECIMAL = 6;
+    static final int TRUE = 7;
+    static final int FALSE = 8;
+    static final int BYTES = 9;
+    static final int DATE = 10;
+    static final int TIME = 11;
+    static final int TIMESTAMP = 12;
+    static final int SHORT = 13;
+    static final int BYTE = 14;
+    static final int BIG_INTEGER = 15;
+    static final int LOCAL_DATE = 16;
+    static final int LOCAL_TIME = 17;
+    static final int LOCAL_DATE_TIME = 18;
+    static final int OFFSET_DATE_TIME = 19;
+    // a value and its text, which the driver renders differently
+    static final int RENDERED = 20;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final File file;
+    private final Logger logger;
+    private DataOutputStream out;
+    private boolean failed;
+    private volatile boolean complete;
+
+    public RowFileWriter(File file) {
+        this.file = file;
+        this.logger = LoggerFactory.getLogger(this.getClass());
+    }
+
+    // the recording can be replayed once the result set has been closed
+    public boolean isComplete() {
+        return complete;
+    }
+
+    // the methods below run on the reader thread
+    void start(ResultSetMetaDataSnapshot metaData) {
+        try {
+            FileOutputStream fileOut = new FileOutputStream(file);
+            fileOut.write(MAGIC);
+            fileOut.write(FORMAT_VERSION);
+            out = new DataOutputStream(new BufferedOutputStream(new DeflaterOutputStream(fileOut, new Deflater(Deflater.BEST_SPEED), BUFFER_SIZE), BUFFER_SIZE));
+            int columnCount = metaData.getColumnCount();
+            writeVarLong(columnCount);
+            for (int i = 1; i <= columnCount; i++) {
+                writeText(metaData.getColumnName(i));
+                writeText(metaData.getColumnLabel(i));
+                writeVarLong(metaData.getColumnType(i));
+                writeText(metaData.getColumnTypeName(i));
+                writeText(metaData.getColumnClassName(i));
+                writeVarLong(metaData.getPrecision(i));
+                writeVarLong(metaData.getScale(i));
+                writeVarLong(metaData.isNullable(i));
+                out.writeBoolean(metaData.isSigned(i));
+            }
+            writeText(columnCount > 0 ? metaData.getTableName(1) : "");
+        } catch (IOException | SQLException e) {
+            fail(e);
+        }
+    }
+
+    void write(List<Object[]> rows) {
+        if (failed) return;
+        try {
+            writeVarLong(rows.size());
+            for (Object[] row : rows) {
+                for (Object value : row) writeValue(value);
+            }
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    void finish(boolean allRowsRead) {
+        if (failed) return;
+        try {
+            //an empty batch ends the rows
+            writeVarLong(0);
+            out.close();
+            complete = allRowsRead;
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    private void fail(Exception e) {
+        failed = true;
+        logger.warn("Result is not recorded into {}: {}", file.getName(), e.getMessage());
+        if (out == null) return;
+        try {
+            out.close();
+        } catch (IOException ignored) {
+            //the recording is abandoned anyway
+        }
+    }
+
+    private void writeValue(Object value) throws IOException {
+        if (value == null) {
+            out.write(NULL);
+        } else if (value instanceof PipelinedResultSet.RenderedValue) {
+            out.write(RENDERED);
+            writeValue(((PipelinedResultSet.RenderedValue) value).getValue());
+            writeText(((PipelinedResultSet.RenderedValue) value).getText());
+        } else if (value instanceof String) {
+            out.write(STRING);
+            writeText((String) value);
+        } else if (value instanceof Integer) {
+            out.write(INT);
+            writeVarLong((Integer) value);
+        } else if (value instanceof Long) {
+            out.write(LONG);
+            writeVarLong((Long) value);
+        } else if (value instanceof Double) {
+            out.write(DOUBLE);
+            out.writeDouble((Double) value);
+        } else if (value instanceof Float) {
+            out.write(FLOAT);
+            out.writeFloat((Float) value);
+        } else if (value instanceof BigDecimal) {
+            out.write(DECIMAL);
+            writeVarLong(((BigDecimal) value).scale());
+            writeBytes(((BigDecimal) value).unscaledValue().toByteArray());
+        } else if (value instanceof Boolean) {
+            out.write((Boolean) value ? TRUE : FALSE);
+        } else if (value instanceof byte[]) {
+            out.write(BYTES);
+            writeBytes((byte[]) value);
+        } else if (value instanceof java.sql.Date) {
+            out.write(DATE);
+            writeVarLong(((java.sql.Date) value).getTime());
+        } else if (value instanceof Time) {
+            out.write(TIME);
+            writeVarLong(((Time) value).getTime());
+        } else if (value instanceof Timestamp) {
+            //the milliseconds keep the wall-clock time of this time zone, the nanoseconds keep the precision
+            out.write(TIMESTAMP);
+            writeVarLong(((Timestamp) value).getTime());
+            writeVarLong(((Timestamp) value).getNanos());
+        } else if (value instanceof Short) {
+            out.write(SHORT);
+            writeVarLong((Short) value);
+        } else if (value instanceof Byte) {
+            out.write(BYTE);
+            writeVarLong((Byte) value);
+        } else if (value instanceof BigInteger) {
+            out.write(BIG_INTEGER);
+            writeBytes(((BigInteger) value).toByteArray());
+        } else if (value instanceof LocalDate) {
+            out.write(LOCAL_DATE);
+            writeVarLong(((LocalDate) value).toEpochDay());
+        } else if (value instanceof LocalTime) {
+            out.write(LOCAL_TIME);
+            writeVarLong(((LocalTime) value).toNanoOfDay());
+        } else if (value instanceof LocalDateTime) {
+            out.write(LOCAL_DATE_TIME);
+            writeVarLong(((LocalDateTime) value).toEpochSecond(ZoneOffset.UTC));
+            writeVarLong(((LocalDateTime) value).getNano());
+        } else if (value instanceof OffsetDateTime) {
+            out.write(OFFSET_DATE_TIME);
+            writeVarLong(((OffsetDateTime) value).toEpochSecond());
+            writeVarLong(((OffsetDateTime) value).getNano());
+            writeVarLong(((OffsetDateTime) value).getOffset().getTotalSeconds());
+        } else {
+            //other driver objects are kept as their text
+            out.write(STRING);
+            writeText(value.toString());
+        }
+    }
+
+    private void writeText(String text) throws IOException {
+        if (text == null) {
+            writeVarLong(-1);
+            return;
+        }
+        writeBytes(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void writeBytes(byte[] bytes) throws IOException {
+        writeVarLong(bytes.length);
+        out.write(bytes);
+    }
+
+    // zigzag encoded, so small negative values are short too
+    private void writeVarLong(long value) throws IOException {
+        long zigzag = (value << 1) ^ (value >> 63);
+        while ((zigzag & ~0x7FL) != 0) {
+            out.write((int) (zigzag & 0x7F) | 0x80);
+            zigzag >>>= 7;
+        }
+        out.write((int) zigzag);
+    }
+}
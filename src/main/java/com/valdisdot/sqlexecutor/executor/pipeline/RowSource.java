@@ -0,0 +1,12 @@
+package com.valdisdot.sqlexecutor.executor.pipeline;
+
+// The rows the reader thread publishes, e.g. the ones of a source result set or of a recorded result file
+interface RowSource {
+    ResultSetMetaDataSnapshot getMetaData();
+
+    // the values of the next row, null after the last row
+    Object[] nextRow() throws Exception;
+
+    // called on the reader thread once reading has stopped, whatever the reason
+    void close();
+}
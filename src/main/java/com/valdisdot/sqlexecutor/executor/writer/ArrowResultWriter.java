@@ -0,0 +1,250 @@
+package com.valdisdot.sqlexecutor.executor.writer;
+
+import com.valdisdot.sqlexecutor.executor.batch.ColumnBatch;
+import com.valdisdot.sqlexecutor.executor.batch.ColumnBatchReader;
+import com.valdisdot.sqlexecutor.executor.batch.ColumnVector;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+// Writes every result table in the Arrow IPC format, the output is a directory of such files.
+// Every column batch becomes a record batch, its buffers are copied as they are, so readers may map them without decoding.
+// The file format (.arrow) adds a footer with the positions of the record batches for random access,
+// the stream format (.arrows) is the sequence of messages only
+public class ArrowResultWriter extends DirectoryResultWriter {
+    private static final byte[] MAGIC = "ARROW1".getBytes(StandardCharsets.US_ASCII);
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int ALIGNMENT = 8;
+    // the values of the Arrow format enums and unions
+    private static final int METADATA_V5 = 4;
+    private static final int HEADER_SCHEMA = 1;
+    private static final int HEADER_RECORD_BATCH = 3;
+    private static final int TYPE_INT = 2;
+    private static final int TYPE_FLOATING_POINT = 3;
+    private static final int TYPE_BINARY = 4;
+    private static final int TYPE_UTF8 = 5;
+    private static final int TYPE_BOOL = 6;
+    private static final int TYPE_DECIMAL = 7;
+    private static final int TYPE_DATE = 8;
+    private static final int TYPE_TIMESTAMP = 10;
+    private static final int PRECISION_DOUBLE = 2;
+    private static final int DATE_UNIT_DAY = 0;
+    private static final int TIME_UNIT_MILLISECOND = 1;
+
+    private final boolean fileFormat;
+    private final int batchSize;
+
+    /**
+     * @param fileFormat if {@code true}, the IPC file format is written, the IPC stream format otherwise
+     * @param batchSize  the amount of rows per record batch
+     */
+    public ArrowResultWriter(File outputFolder, Supplier<String> fileSuffixSupplier, boolean fileFormat, int batchSize) {
+        super(outputFolder, fileSuffixSupplier, fileFormat ? ".arrow" : ".arrows");
+        this.fileFormat = fileFormat;
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    @Override
+    public void write(String resultIdentifier, ResultSet resultSet, File output) throws IOException, SQLException {
+        ColumnBatchReader reader = new ColumnBatchReader(resultSet, batchSize);
+        List<long[]> blocks = new ArrayList<>();
+        try (CountingOutputStream out = new CountingOutputStream(new BufferedOutputStream(Channels.newOutputStream(FileChannel.open(
+                getTableFile(output, resultIdentifier),
+                StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE
+        )), BUFFER_SIZE))) {
+            if (fileFormat) {
+                out.write(MAGIC);
+                writePadding(out, MAGIC.length);
+            }
+            FlatBufferBuilder schema = new FlatBufferBuilder();
+            writeMessage(out, schema.finish(createMessage(schema, HEADER_SCHEMA, createSchema(schema, reader.getBatch()), 0)));
+            while (reader.next()) blocks.add(writeRecordBatch(out, reader.getBatch()));
+            //the end of the stream
+            writeInt(out, -1);
+            writeInt(out, 0);
+            if (fileFormat) {
+                byte[] footer = createFooter(reader.getBatch(), blocks);
+                out.write(footer);
+                writeInt(out, footer.length);
+                out.write(MAGIC);
+            }
+        }
+    }
+
+    // returns the block of the record batch: its position, the length of its metadata and the length of its body
+    private long[] writeRecordBatch(CountingOutputStream out, ColumnBatch batch) throws IOException {
+        List<ByteBuffer> buffers = new ArrayList<>();
+        for (int i = 0; i < batch.getColumnCount(); i++) {
+            ColumnVector column = batch.getColumn(i);
+            buffers.add(column.getValidityBuffer());
+            buffers.add(column.getValueBuffer());
+            if (column.getType().isVariableLength()) buffers.add(column.getDataBuffer());
+        }
+        long bodyLength = 0;
+        for (ByteBuffer buffer : buffers) bodyLength += padded(buffer.remaining());
+
+        FlatBufferBuilder builder = new FlatBufferBuilder();
+        builder.startStructVector(16, batch.getColumnCount(), 8);
+        for (int i = batch.getColumnCount() - 1; i >= 0; i--)
+            builder.addLongPair(batch.getColumn(i).getSize(), batch.getColumn(i).getNullCount());
+        int nodes = builder.endStructVector(batch.getColumnCount());
+        long[] bufferOffsets = new long[buffers.size()];
+        for (int i = 1; i < buffers.size(); i++) bufferOffsets[i] = bufferOffsets[i - 1] + padded(buffers.get(i - 1).remaining());
+        builder.startStructVector(16, buffers.size(), 8);
+        for (int i = buffers.size() - 1; i >= 0; i--) builder.addLongPair(bufferOffsets[i], buffers.get(i).remaining());
+        int bufferVector = builder.endStructVector(buffers.size());
+        builder.startTable(5);
+        builder.addLong(0, batch.getRowCount());
+        builder.addOffset(1, nodes);
+        builder.addOffset(2, bufferVector);
+        int recordBatch = builder.endTable();
+
+        long position = out.getPosition();
+        int metaDataLength = writeMessage(out, builder.finish(createMessage(builder, HEADER_RECORD_BATCH, recordBatch, bodyLength)));
+        WritableByteChannel channel = Channels.newChannel(out);
+        for (ByteBuffer buffer : buffers) {
+            int length = buffer.remaining();
+            while (buffer.hasRemaining()) channel.write(buffer);
+            writePadding(out, length);
+        }
+        return new long[]{position, metaDataLength, bodyLength};
+    }
+
+    private int createMessage(FlatBufferBuilder builder, int headerType, int header, long bodyLength) {
+        builder.startTable(5);
+        builder.addShort(0, METADATA_V5);
+        builder.addByte(1, headerType);
+        builder.addOffset(2, header);
+        builder.addLong(3, bodyLength);
+        return builder.endTable();
+    }
+
+    private int createSchema(FlatBufferBuilder builder, ColumnBatch batch) {
+        int[] fields = new int[batch.getColumnCount()];
+        for (int i = 0; i < fields.length; i++) {
+            ColumnVector column = batch.getColumn(i);
+            int name = builder.createString(column.getName());
+            int type = createType(builder, column);
+            //readers require the children, even an empty list of them
+            int children = builder.createOffsetVector(new int[0]);
+            builder.startTable(7);
+            builder.addOffset(0, name);
+            builder.addBoolean(1, true);
+            builder.addByte(2, getTypeId(column));
+            builder.addOffset(3, type);
+            builder.addOffset(5, children);
+            fields[i] = builder.endTable();
+        }
+        int fieldVector = builder.createOffsetVector(fields);
+        builder.startTable(4);
+        builder.addOffset(1, fieldVector);
+        return builder.endTable();
+    }
+
+    private int getTypeId(ColumnVector column) {
+        switch (column.getType()) {
+            case BOOLEAN:
+                return TYPE_BOOL;
+            case INT64:
+                return TYPE_INT;
+            case FLOAT64:
+                return TYPE_FLOATING_POINT;
+            case DECIMAL:
+                return TYPE_DECIMAL;
+            case DATE:
+                return TYPE_DATE;
+            case TIMESTAMP:
+                return TYPE_TIMESTAMP;
+            case BINARY:
+                return TYPE_BINARY;
+            default:
+                return TYPE_UTF8;
+        }
+    }
+
+    // timestamps have no time zone, they keep the wall-clock time
+    private int createType(FlatBufferBuilder builder, ColumnVector column) {
+        switch (column.getType()) {
+            case INT64:
+                builder.startTable(2);
+                builder.addInt(0, 64);
+                builder.addBoolean(1, true);
+                break;
+            case FLOAT64:
+                builder.startTable(1);
+                builder.addShort(0, PRECISION_DOUBLE);
+                break;
+            case DECIMAL:
+                builder.startTable(3);
+                builder.addInt(0, column.getPrecision());
+                builder.addInt(1, column.getScale());
+                builder.addInt(2, 128);
+                break;
+            case DATE:
+                builder.startTable(1);
+                builder.addShort(0, DATE_UNIT_DAY);
+                break;
+            case TIMESTAMP:
+                builder.startTable(2);
+                builder.addShort(0, TIME_UNIT_MILLISECOND);
+                break;
+            default:
+                //booleans, binaries and strings have no parameters
+                builder.startTable(0);
+        }
+        return builder.endTable();
+    }
+
+    private byte[] createFooter(ColumnBatch batch, List<long[]> blocks) {
+        FlatBufferBuilder builder = new FlatBufferBuilder();
+        int schema = createSchema(builder, batch);
+        builder.startStructVector(24, 0, 8);
+        int dictionaries = builder.endStructVector(0);
+        builder.startStructVector(24, blocks.size(), 8);
+        for (int i = blocks.size() - 1; i >= 0; i--) builder.addBlock(blocks.get(i)[0], (int) blocks.get(i)[1], blocks.get(i)[2]);
+        int recordBatches = builder.endStructVector(blocks.size());
+        builder.startTable(5);
+        builder.addShort(0, METADATA_V5);
+        builder.addOffset(1, schema);
+        builder.addOffset(2, dictionaries);
+        builder.addOffset(3, recordBatches);
+        return builder.finish(builder.endTable());
+    }
+
+    // the encapsulated message: a continuation marker, the length of the padded metadata and the metadata itself
+    private int writeMessage(OutputStream out, byte[] metadata) throws IOException {
+        int length = (int) padded(metadata.length);
+        writeInt(out, -1);
+        writeInt(out, length);
+        out.write(metadata);
+        writePadding(out, metadata.length);
+        return 8 + length;
+    }
+
+    private void writeInt(OutputStream out, int value) throws IOException {
+        for (int i = 0; i < 4; i++) out.write(value >>> 8 * i);
+    }
+
+    private void writePadding(OutputStream out, long length) throws IOException {
+        for (long i = length; i < padded(length); i++) out.write(0);
+    }
+
+    private long padded(long length) {
+        return (length + ALIGNMENT - 1) / ALIGNMENT * ALIGNMENT;
+    }
+}
@@ -0,0 +1,141 @@
+package com.valdisdot.sqlexecutor.executor.writer;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+// Streams every result table to a delimited text file row by row, nothing but the write buffer is kept in memory.
+// The output is a directory of table files, or a single zip bundle of them
+public class CSVResultWriter extends DirectoryResultWriter {
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final String LINE_SEPARATOR = "\r\n";
+
+    public enum Compression {
+        NONE, GZIP, ZIP
+    }
+
+    private final char delimiter;
+    private final Charset charset;
+    private final boolean quoteAll;
+    private final Compression compression;
+    private final Map<File, ZipOutputStream> bundles = new ConcurrentHashMap<>();
+
+    public CSVResultWriter(File outputFolder, Supplier<String> fileSuffixSupplier, char delimiter, Charset charset, boolean quoteAll, Compression compression) {
+        //the tables of a zip bundle are compressed by the bundle itself
+        super(
+                outputFolder,
+                fileSuffixSupplier,
+                compression == Compression.ZIP ? ".zip" : "",
+                (delimiter == '\t' ? ".tsv" : ".csv") + (compression == Compression.GZIP ? ".gz" : "")
+        );
+        this.delimiter = delimiter;
+        this.charset = charset;
+        this.quoteAll = quoteAll;
+        this.compression = compression;
+    }
+
+    @Override
+    protected void openOutput(File output) throws IOException {
+        if (compression != Compression.ZIP) {
+            super.openOutput(output);
+            return;
+        }
+        bundles.put(output, new ZipOutputStream(new BufferedOutputStream(openChannel(output.toPath()), BUFFER_SIZE)));
+    }
+
+    @Override
+    public void write(String resultIdentifier, ResultSet resultSet, File output) throws IOException, SQLException, ResultWriterException {
+        if (compression == Compression.ZIP) {
+            ZipOutputStream bundle = bundles.get(output);
+            if (bundle == null) throw new ResultWriterException("Result file has not been initialized: " + output.getName());
+            bundle.putNextEntry(new ZipEntry(getTableFileName(output, resultIdentifier)));
+            //the bundle stays open for the next tables, the writer is flushed only
+            Writer writer = new BufferedWriter(new OutputStreamWriter(bundle, charset), BUFFER_SIZE);
+            writeTable(resultSet, writer);
+            writer.flush();
+            bundle.closeEntry();
+        } else {
+            OutputStream stream = openChannel(getTableFile(output, resultIdentifier));
+            if (compression == Compression.GZIP) stream = new GZIPOutputStream(stream, BUFFER_SIZE);
+            try (Writer writer = new BufferedWriter(new OutputStreamWriter(stream, charset), BUFFER_SIZE)) {
+                writeTable(resultSet, writer);
+            }
+        }
+    }
+
+    @Override
+    protected void closeOutput(File output) throws IOException {
+        ZipOutputStream bundle = bundles.remove(output);
+        if (bundle != null) bundle.close();
+    }
+
+    private void writeTable(ResultSet resultSet, Writer writer) throws IOException, SQLException {
+        ResultSetMetaData metaData = resultSet.getMetaData();
+        int columnCount = metaData.getColumnCount();
+        for (int i = 1; i <= columnCount; i++) {
+            if (i > 1) writer.write(delimiter);
+            writeValue(metaData.getColumnName(i), writer);
+        }
+        writer.write(LINE_SEPARATOR);
+        while (resultSet.next()) {
+            for (int i = 1; i <= columnCount; i++) {
+                if (i > 1) writer.write(delimiter);
+                //null is an empty unquoted field
+                String value = resultSet.getString(i);
+                if (value != null) writeValue(value, writer);
+            }
+            writer.write(LINE_SEPARATOR);
+        }
+    }
+
+    private void writeValue(String value, Writer writer) throws IOException {
+        if (!quoteAll && !needsQuoting(value)) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        int start = 0;
+        for (int i = value.indexOf('"'); i >= 0; i = value.indexOf('"', start)) {
+            writer.write(value, start, i + 1 - start);
+            writer.write('"');
+            start = i + 1;
+        }
+        writer.write(value, start, value.length() - start);
+        writer.write('"');
+    }
+
+    private boolean needsQuoting(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == delimiter || c == '"' || c == '\r' || c == '\n') return true;
+        }
+        return false;
+    }
+
+    private OutputStream openChannel(Path file) throws IOException {
+        return Channels.newOutputStream(FileChannel.open(
+                file,
+                StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE
+        ));
+    }
+}
@@ -0,0 +1,183 @@
+package com.valdisdot.sqlexecutor.executor.writer;
+
+import com.valdisdot.sqlexecutor.executor.pipeline.ResultSetPipeline;
+
+import java.io.File;
+import java.io.IOException;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Puts every result into several outputs at once, e.g. a workbook and a directory of csv files.
+// The result set is fetched once, the pipeline tees its row batches to every writer, which writes on a thread of its own
+public class CompositeResultWriter extends ResultWriter {
+    // guards the writers of the same identity hash, see the lock order below
+    private static final Object TIE_LOCK = new Object();
+
+    private final List<ResultWriter> writers;
+    // the writers are locked in one order by all composites, so the ones which share a writer don't deadlock
+    private final List<ResultWriter> lockOrder;
+    private final boolean hasTies;
+    private final ResultSetPipeline pipeline;
+    private final ExecutorService branches;
+    // the outputs of the writers by the output of the first one
+    private final Map<File, List<File>> outputs = new ConcurrentHashMap<>();
+
+    public CompositeResultWriter(List<ResultWriter> writers, ResultSetPipeline pipeline) {
+        super(writers.get(0).outputFolder, writers.get(0).fileSuffixSupplier, writers.get(0).fileExtension);
+        this.writers = List.copyOf(writers);
+        this.lockOrder = new ArrayList<>(writers);
+        this.lockOrder.sort(Comparator.comparingInt(System::identityHashCode));
+        boolean hasTies = false;
+        for (int i = 1; i < lockOrder.size(); i++) {
+            if (System.identityHashCode(lockOrder.get(i - 1)) == System.identityHashCode(lockOrder.get(i))) hasTies = true;
+        }
+        this.hasTies = hasTies;
+        this.pipeline = pipeline;
+        AtomicInteger threadCounter = new AtomicInteger();
+        this.branches = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "result-branch-" + threadCounter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    // every writer gets the same suffix, so the outputs of a result are named alike
+    @Override
+    public File initializeResultFile(String resultFileName, String fileSuffix) throws ResultWriterException {
+        List<File> initialized = new ArrayList<>(writers.size());
+        try {
+            for (ResultWriter writer : writers) initialized.add(writer.initializeResultFile(resultFileName, fileSuffix));
+        } catch (ResultWriterException e) {
+            for (int i = 0; i < initialized.size(); i++) writers.get(i).discardResultFile(initialized.get(i));
+            throw e;
+        }
+        outputs.put(initialized.get(0), initialized);
+        return initialized.get(0);
+    }
+
+    @Override
+    public void write(String resultIdentifier, ResultSet resultSet, File output) throws IOException, SQLException, ResultWriterException {
+        List<File> files = getOutputs(output);
+        if (hasTies) {
+            synchronized (TIE_LOCK) {
+                writeLocked(0, resultIdentifier, resultSet, files);
+            }
+        } else {
+            writeLocked(0, resultIdentifier, resultSet, files);
+        }
+    }
+
+    // the writers are not thread-safe, all of them are held until every copy of the result has been written
+    private void writeLocked(int index, String resultIdentifier, ResultSet resultSet, List<File> files) throws IOException, SQLException, ResultWriterException {
+        if (index < lockOrder.size()) {
+            synchronized (lockOrder.get(index)) {
+                writeLocked(index + 1, resultIdentifier, resultSet, files);
+            }
+            return;
+        }
+        List<ResultSet> copies = pipeline.tee(resultSet, writers.size());
+        List<Future<?>> futures = new ArrayList<>(writers.size() - 1);
+        try {
+            for (int i = 1; i < writers.size(); i++) {
+                int branch = i;
+                futures.add(branches.submit(() -> writeCopy(branch, resultIdentifier, copies, files)));
+            }
+            //the first writer works on the calling thread
+            writeCopy(0, resultIdentifier, copies, files);
+            for (Future<?> future : futures) future.get();
+        } catch (ExecutionException e) {
+            //a failed writer has closed its copy, the others are stopped too
+            closeAll(copies);
+            awaitAll(futures);
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) throw (IOException) cause;
+            if (cause instanceof SQLException) throw (SQLException) cause;
+            if (cause instanceof ResultWriterException) throw (ResultWriterException) cause;
+            throw new ResultWriterException("Unexpected error during result writing", cause);
+        } catch (InterruptedException e) {
+            closeAll(copies);
+            awaitAll(futures);
+            Thread.currentThread().interrupt();
+            throw new SQLException("Result writing has been interrupted", e);
+        } catch (IOException | SQLException | ResultWriterException | RuntimeException e) {
+            closeAll(copies);
+            awaitAll(futures);
+            throw e;
+        }
+    }
+
+    private Void writeCopy(int branch, String resultIdentifier, List<ResultSet> copies, List<File> files) throws IOException, SQLException, ResultWriterException {
+        try (ResultSet copy = copies.get(branch)) {
+            writers.get(branch).write(resultIdentifier, copy, files.get(branch));
+        }
+        return null;
+    }
+
+    private void closeAll(List<ResultSet> copies) {
+        for (ResultSet copy : copies) {
+            try {
+                copy.close();
+            } catch (SQLException ignored) {
+                //closing of a pipelined copy doesn't fail
+            }
+        }
+    }
+
+    // the source result set may be closed only after all writers have let their copies go
+    private void awaitAll(List<Future<?>> futures) {
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (ExecutionException ignored) {
+                //the first failure has been reported already
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    @Override
+    public void finalizeResultFile(File output) throws ResultWriterException {
+        List<File> files = getOutputs(output);
+        ResultWriterException failure = null;
+        for (int i = 0; i < writers.size(); i++) {
+            try {
+                writers.get(i).finalizeResultFile(files.get(i));
+            } catch (ResultWriterException e) {
+                if (failure == null) failure = e;
+            }
+        }
+        if (failure != null) throw failure;
+        outputs.remove(output);
+    }
+
+    @Override
+    public void discardResultFile(File output) {
+        List<File> files = outputs.remove(output);
+        if (files == null) return;
+        for (int i = 0; i < writers.size(); i++) writers.get(i).discardResultFile(files.get(i));
+    }
+
+    @Override
+    public void orderResults(File output, List<String> resultIdentifiers) throws ResultWriterException {
+        List<File> files = getOutputs(output);
+        for (int i = 0; i < writers.size(); i++) writers.get(i).orderResults(files.get(i), resultIdentifiers);
+    }
+
+    private List<File> getOutputs(File output) throws ResultWriterException {
+        List<File> files = outputs.get(output);
+        if (files == null) throw new ResultWriterException("Result file has not been initialized: " + output.getName());
+        return files;
+    }
+}
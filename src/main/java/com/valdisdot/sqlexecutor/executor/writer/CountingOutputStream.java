@@ -0,0 +1,30 @@
+package com.valdisdot.sqlexecutor.executor.writer;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+// Keeps the position in the file for the offsets which the columnar formats put into their footers
+class CountingOutputStream extends FilterOutputStream {
+    private long position;
+
+    CountingOutputStream(OutputStream out) {
+        super(out);
+    }
+
+    long getPosition() {
+        return position;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        out.write(b);
+        position++;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        out.write(b, off, len);
+        position += len;
+    }
+}
@@ -0,0 +1,95 @@
+package com.valdisdot.sqlexecutor.executor.writer;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+// Writers which put every result table into a file of its own, the output is a directory (or a bundle) of such files
+public abstract class DirectoryResultWriter extends ResultWriter {
+    // outputs which have been initialized, but neither finalized nor discarded
+    private final Set<File> pendingOutputs = ConcurrentHashMap.newKeySet();
+    // the table file names which have been given in an output
+    private final Map<File, Set<String>> tableFileNames = new ConcurrentHashMap<>();
+    private final String tableFileExtension;
+
+    public DirectoryResultWriter(File outputFolder, Supplier<String> fileSuffixSupplier, String tableFileExtension) {
+        this(outputFolder, fileSuffixSupplier, "", tableFileExtension);
+    }
+
+    //writers which may bundle the table files into a single file (e.g. an archive) give the output its extension
+    protected DirectoryResultWriter(File outputFolder, Supplier<String> fileSuffixSupplier, String fileExtension, String tableFileExtension) {
+        super(outputFolder, fileSuffixSupplier, fileExtension);
+        this.tableFileExtension = tableFileExtension;
+    }
+
+    @Override
+    public File initializeResultFile(String resultFileName, String fileSuffix) throws ResultWriterException {
+        File output = new File(outputFolder, resultFileName + fileSuffix + fileExtension);
+        try {
+            //override the tables of the previous result
+            if (output.exists()) delete(output.toPath());
+            tableFileNames.remove(output);
+            openOutput(output);
+            pendingOutputs.add(output);
+            return output;
+        } catch (IOException e) {
+            throw new ResultWriterException("Error during result file initialization", e);
+        }
+    }
+
+    @Override
+    public void finalizeResultFile(File output) throws ResultWriterException {
+        if (!pendingOutputs.remove(output)) return;
+        tableFileNames.remove(output);
+        try {
+            closeOutput(output);
+        } catch (IOException e) {
+            throw new ResultWriterException("Error during result file writing", e);
+        }
+    }
+
+    @Override
+    public void discardResultFile(File output) {
+        if (!pendingOutputs.remove(output)) return;
+        tableFileNames.remove(output);
+        try {
+            closeOutput(output);
+        } catch (IOException ignored) {
+            //the incomplete output is deleted anyway
+        }
+        try {
+            delete(output.toPath());
+        } catch (IOException ignored) {
+            //nothing to do with a partial result which can't be deleted
+        }
+    }
+
+    //creates the output before its first table, the directory of the table files by default
+    protected void openOutput(File output) throws IOException {
+        Files.createDirectories(output.toPath());
+    }
+
+    //completes the output after its last table (or releases it when the result is discarded)
+    protected void closeOutput(File output) throws IOException {
+    }
+
+    //identifiers which become the same file name (e.g. a/b and a:b, or A and a on a case-insensitive file system)
+    //get a number, the later table is a_b_2.csv
+    protected String getTableFileName(File output, String resultIdentifier) {
+        Set<String> names = tableFileNames.computeIfAbsent(output, key -> ConcurrentHashMap.newKeySet());
+        String fileName = toFileName(resultIdentifier);
+        String name = fileName;
+        for (int n = 2; !names.add(name.toLowerCase(Locale.ROOT)); n++) name = fileName + "_" + n;
+        return name + tableFileExtension;
+    }
+
+    protected Path getTableFile(File output, String resultIdentifier) {
+        return output.toPath().resolve(getTableFileName(output, resultIdentifier));
+    }
+}
@@ -0,0 +1,173 @@
+package com.valdisdot.sqlexecutor.executor.writer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+// A minimal FlatBuffers builder, enough for the Arrow IPC messages and the file footer.
+// As the original one, it fills the buffer from the end, so the objects are built before the ones which refer to them;
+// an object is identified by its offset, the distance from the end of the buffer
+class FlatBufferBuilder {
+    private byte[] buffer = new byte[1024];
+    // the data occupies the buffer from the space index to the end
+    private int space = buffer.length;
+    private int maxAlignment = 1;
+    // the field offsets of the table being built, 0 for the absent fields
+    private int[] fields;
+    private int tableStart;
+
+    int offset() {
+        return buffer.length - space;
+    }
+
+    int createString(String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        prep(4, bytes.length + 1);
+        space -= 1;
+        buffer[space] = 0;
+        space -= bytes.length;
+        System.arraycopy(bytes, 0, buffer, space, bytes.length);
+        putInt(bytes.length);
+        return offset();
+    }
+
+    int createOffsetVector(int[] offsets) {
+        prep(4, offsets.length * 4);
+        for (int i = offsets.length - 1; i >= 0; i--) putOffset(offsets[i]);
+        putInt(offsets.length);
+        return offset();
+    }
+
+    // the structs are added in the reverse order by the struct methods, between these two calls
+    void startStructVector(int structSize, int count, int alignment) {
+        prep(4, structSize * count);
+        prep(alignment, structSize * count);
+    }
+
+    int endStructVector(int count) {
+        putInt(count);
+        return offset();
+    }
+
+    // a struct of two longs, e.g. the FieldNode and the Buffer of Arrow, written from the last field
+    void addLongPair(long first, long second) {
+        prep(8, 16);
+        putLong(second);
+        putLong(first);
+    }
+
+    // the Block struct of the Arrow footer: a long, an int padded to 8 bytes and a long
+    void addBlock(long offset, int metaDataLength, long bodyLength) {
+        prep(8, 24);
+        putLong(bodyLength);
+        putInt(0);
+        putInt(metaDataLength);
+        putLong(offset);
+    }
+
+    void startTable(int fieldCount) {
+        fields = new int[fieldCount];
+        tableStart = offset();
+    }
+
+    void addByte(int field, int value) {
+        prep(1, 0);
+        space -= 1;
+        buffer[space] = (byte) value;
+        fields[field] = offset();
+    }
+
+    void addBoolean(int field, boolean value) {
+        addByte(field, value ? 1 : 0);
+    }
+
+    void addShort(int field, int value) {
+        prep(2, 0);
+        space -= 2;
+        buffer[space] = (byte) value;
+        buffer[space + 1] = (byte) (value >>> 8);
+        fields[field] = offset();
+    }
+
+    void addInt(int field, int value) {
+        prep(4, 0);
+        putInt(value);
+        fields[field] = offset();
+    }
+
+    void addLong(int field, long value) {
+        prep(8, 0);
+        putLong(value);
+        fields[field] = offset();
+    }
+
+    void addOffset(int field, int target) {
+        prep(4, 0);
+        putOffset(target);
+        fields[field] = offset();
+    }
+
+    int endTable() {
+        prep(4, 0);
+        putInt(0);
+        int table = offset();
+        //the vtable: its size, the size of the table and the positions of the fields in the table
+        for (int i = fields.length - 1; i >= 0; i--) putShort(fields[i] == 0 ? 0 : table - fields[i]);
+        putShort(table - tableStart);
+        putShort((fields.length + 2) * 2);
+        int vtable = offset();
+        //the table refers to its vtable by a signed distance
+        int position = buffer.length - table;
+        int distance = vtable - table;
+        for (int i = 0; i < 4; i++) buffer[position + i] = (byte) (distance >>> 8 * i);
+        fields = null;
+        return table;
+    }
+
+    byte[] finish(int root) {
+        prep(maxAlignment, 4);
+        putOffset(root);
+        return Arrays.copyOfRange(buffer, space, buffer.length);
+    }
+
+    // pads the buffer, so that the next object of the given alignment is aligned after additional bytes
+    private void prep(int alignment, int additionalBytes) {
+        maxAlignment = Math.max(maxAlignment, alignment);
+        int padding = -(offset() + additionalBytes) & alignment - 1;
+        ensureSpace(padding + additionalBytes + alignment);
+        space -= padding;
+        Arrays.fill(buffer, space, space + padding, (byte) 0);
+    }
+
+    private void putOffset(int target) {
+        ensureSpace(4);
+        putInt(offset() + 4 - target);
+    }
+
+    private void putShort(int value) {
+        ensureSpace(2);
+        space -= 2;
+        buffer[space] = (byte) value;
+        buffer[space + 1] = (byte) (value >>> 8);
+    }
+
+    private void putInt(int value) {
+        ensureSpace(4);
+        space -= 4;
+        for (int i = 0; i < 4; i++) buffer[space + i] = (byte) (value >>> 8 * i);
+    }
+
+    private void putLong(long value) {
+        ensureSpace(8);
+        space -= 8;
+        for (int i = 0; i < 8; i++) buffer[space + i] = (byte) (value >>> 8 * i);
+    }
+
+    private void ensureSpace(int length) {
+        if (space >= length) return;
+        int used = buffer.length - space;
+        byte[] grown = new byte[Math.max(buffer.length * 2, used + length + 1024)];
+        System.arraycopy(buffer, space, grown, grown.length - used, used);
+        buffer = grown;
+        space = grown.length - used;
+    }
+}
@@ -0,0 +1,289 @@
+package com.valdisdot.sqlexecutor.executor.writer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+// Buffers the values of a single column of the current row group, both plain-encoded and dictionary-encoded.
+// The dictionary is dropped as soon as it outgrows its limit, the plain encoding is kept for such columns
+class ParquetColumnChunk {
+    static final int TYPE_BOOLEAN = 0;
+    static final int TYPE_INT32 = 1;
+    static final int TYPE_INT64 = 2;
+    static final int TYPE_DOUBLE = 5;
+    static final int TYPE_BYTE_ARRAY = 6;
+
+    private final String name;
+    private final int type;
+    private final int convertedType;
+    private final int precision;
+    private final int scale;
+    private final int maxDictionarySize;
+    private final Buffer plain = new Buffer();
+    private int[] definitionLevels = new int[1024];
+    private int valueCount;
+    // booleans are bit-packed, the pending bits wait here for a whole byte
+    private int pendingBits;
+    private int pendingBitCount;
+    private Map<Object, Integer> dictionary;
+    private Buffer dictionaryPlain;
+    private int[] indices;
+    private int indexCount;
+
+    // convertedType is negative if the column has no converted type, precision and scale are used by decimals only
+    ParquetColumnChunk(String name, int type, int convertedType, int precision, int scale, int maxDictionarySize) {
+        this.name = name;
+        this.type = type;
+        this.convertedType = convertedType;
+        this.precision = precision;
+        this.scale = scale;
+        this.maxDictionarySize = type == TYPE_BOOLEAN ? 0 : maxDictionarySize;
+        reset();
+    }
+
+    String getName() {
+        return name;
+    }
+
+    int getType() {
+        return type;
+    }
+
+    int getConvertedType() {
+        return convertedType;
+    }
+
+    int getPrecision() {
+        return precision;
+    }
+
+    int getScale() {
+        return scale;
+    }
+
+    int getValueCount() {
+        return valueCount;
+    }
+
+    long getEstimatedSize() {
+        long size = plain.size() + valueCount * 4L;
+        if (dictionary != null) size += dictionaryPlain.size() + indexCount * 4L + dictionary.size() * 48L;
+        return size;
+    }
+
+    void addNull() {
+        addDefinitionLevel(0);
+    }
+
+    void addBoolean(boolean value) {
+        addDefinitionLevel(1);
+        if (value) pendingBits |= 1 << pendingBitCount;
+        if (++pendingBitCount == 8) {
+            plain.write(pendingBits);
+            pendingBits = 0;
+            pendingBitCount = 0;
+        }
+    }
+
+    void addLong(long value) {
+        addDefinitionLevel(1);
+        int position = plain.size();
+        plain.writeLongLE(value);
+        addToDictionary(value, position);
+    }
+
+    void addInt(int value) {
+        addDefinitionLevel(1);
+        int position = plain.size();
+        plain.writeIntLE(value);
+        addToDictionary(value, position);
+    }
+
+    void addDouble(double value) {
+        addDefinitionLevel(1);
+        int position = plain.size();
+        plain.writeLongLE(Double.doubleToLongBits(value));
+        addToDictionary(value, position);
+    }
+
+    void addBinary(byte[] value) {
+        addDefinitionLevel(1);
+        int position = plain.size();
+        plain.writeIntLE(value.length);
+        plain.write(value, 0, value.length);
+        addToDictionary(ByteBuffer.wrap(value), position);
+    }
+
+    boolean isDictionaryEncoded() {
+        //a dictionary pays off only if it is smaller than the plain values
+        return dictionary != null && !dictionary.isEmpty()
+                && dictionaryPlain.size() + indexCount * (long) bitWidth(dictionary.size() - 1) / 8 < plain.size();
+    }
+
+    int getDictionarySize() {
+        return dictionary.size();
+    }
+
+    // the PLAIN values of the dictionary page
+    Buffer getDictionaryPage() {
+        return dictionaryPlain;
+    }
+
+    // definition levels (prefixed with their length) and the values of the data page
+    Buffer getDataPage() {
+        Buffer page = new Buffer();
+        Buffer levels = new Buffer();
+        encodeHybrid(definitionLevels, valueCount, 1, levels);
+        page.writeIntLE(levels.size());
+        levels.writeTo(page);
+        if (isDictionaryEncoded()) {
+            int bitWidth = bitWidth(dictionary.size() - 1);
+            page.write(bitWidth);
+            encodeHybrid(indices, indexCount, bitWidth, page);
+        } else {
+            plain.writeTo(page);
+            if (pendingBitCount > 0) page.write(pendingBits);
+        }
+        return page;
+    }
+
+    void reset() {
+        plain.reset();
+        valueCount = 0;
+        pendingBits = 0;
+        pendingBitCount = 0;
+        if (maxDictionarySize > 0) {
+            dictionary = new HashMap<>();
+            dictionaryPlain = new Buffer();
+            indices = new int[1024];
+            indexCount = 0;
+        }
+    }
+
+    private void addDefinitionLevel(int level) {
+        if (valueCount == definitionLevels.length) definitionLevels = Arrays.copyOf(definitionLevels, valueCount * 2);
+        definitionLevels[valueCount++] = level;
+    }
+
+    private void addToDictionary(Object key, int plainPosition) {
+        if (dictionary == null) return;
+        Integer index = dictionary.get(key);
+        if (index == null) {
+            if (dictionaryPlain.size() + plain.size() - plainPosition > maxDictionarySize) {
+                //too many distinct values, the chunk falls back to the plain encoding
+                dictionary = null;
+                dictionaryPlain = null;
+                indices = null;
+                return;
+            }
+            index = dictionary.size();
+            dictionary.put(key, index);
+            dictionaryPlain.write(plain.bytes, plainPosition, plain.size() - plainPosition);
+        }
+        if (indexCount == indices.length) indices = Arrays.copyOf(indices, indexCount * 2);
+        indices[indexCount++] = index;
+    }
+
+    private static int bitWidth(int maxValue) {
+        return Math.max(1, 32 - Integer.numberOfLeadingZeros(maxValue));
+    }
+
+    // the RLE/bit-packing hybrid: runs of 8 and more equal values are run-length encoded, the rest is bit-packed by 8
+    static void encodeHybrid(int[] values, int count, int bitWidth, Buffer out) {
+        int byteWidth = (bitWidth + 7) / 8;
+        int i = 0;
+        while (i < count) {
+            int run = runLength(values, i, count);
+            if (run >= 8) {
+                out.writeVarint(run << 1);
+                for (int b = 0; b < byteWidth; b++) out.write(values[i] >>> 8 * b & 0xFF);
+                i += run;
+                continue;
+            }
+            int start = i;
+            int groups = 0;
+            do {
+                i += 8;
+                groups++;
+            } while (i < count && runLength(values, i, count) < 8);
+            out.writeVarint(groups << 1 | 1);
+            //the last group is padded with zeros, readers stop at the value count
+            long bits = 0;
+            int bitCount = 0;
+            for (int j = start; j < start + groups * 8; j++) {
+                bits |= (long) (j < count ? values[j] : 0) << bitCount;
+                bitCount += bitWidth;
+                while (bitCount >= 8) {
+                    out.write((int) (bits & 0xFF));
+                    bits >>>= 8;
+                    bitCount -= 8;
+                }
+            }
+            i = Math.min(i, count);
+        }
+    }
+
+    private static int runLength(int[] values, int start, int count) {
+        int end = start + 1;
+        while (end < count && values[end] == values[start]) end++;
+        return end - start;
+    }
+
+    // a growable byte array with the little-endian writes of the Parquet encodings
+    static final class Buffer {
+        private byte[] bytes = new byte[4096];
+        private int size;
+
+        int size() {
+            return size;
+        }
+
+        void reset() {
+            size = 0;
+        }
+
+        void write(int b) {
+            ensureCapacity(1);
+            bytes[size++] = (byte) b;
+        }
+
+        void write(byte[] source, int offset, int length) {
+            ensureCapacity(length);
+            System.arraycopy(source, offset, bytes, size, length);
+            size += length;
+        }
+
+        void writeIntLE(int value) {
+            ensureCapacity(4);
+            for (int i = 0; i < 4; i++) bytes[size++] = (byte) (value >>> 8 * i);
+        }
+
+        void writeLongLE(long value) {
+            ensureCapacity(8);
+            for (int i = 0; i < 8; i++) bytes[size++] = (byte) (value >>> 8 * i);
+        }
+
+        void writeVarint(int value) {
+            while ((value & ~0x7F) != 0) {
+                write(value & 0x7F | 0x80);
+                value >>>= 7;
+            }
+            write(value);
+        }
+
+        void writeTo(Buffer target) {
+            target.write(bytes, 0, size);
+        }
+
+        void writeTo(OutputStream target) throws IOException {
+            target.write(bytes, 0, size);
+        }
+
+        private void ensureCapacity(int length) {
+            if (size + length > bytes.length) bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + length));
+        }
+    }
+}
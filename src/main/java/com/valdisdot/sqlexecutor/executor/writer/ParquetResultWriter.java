@@ -0,0 +1,307 @@
+package com.valdisdot.sqlexecutor.executor.writer;
+
+import com.valdisdot.sqlexecutor.executor.batch.ColumnBatch;
+import com.valdisdot.sqlexecutor.executor.batch.ColumnBatchReader;
+import com.valdisdot.sqlexecutor.executor.batch.ColumnVector;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+
+// Writes every result table to a columnar Parquet file, the output is a directory of such files.
+// Rows are buffered per column until the row group reaches its size, then every column chunk is written at once,
+// dictionary-encoded while it has few distinct values, with the pages compressed by gzip
+public class ParquetResultWriter extends DirectoryResultWriter {
+    private static final byte[] MAGIC = "PAR1".getBytes(StandardCharsets.US_ASCII);
+    private static final int BUFFER_SIZE = 64 * 1024;
+    // the values of the Parquet format enums
+    private static final int REPETITION_OPTIONAL = 1;
+    private static final int CONVERTED_UTF8 = 0;
+    private static final int CONVERTED_DECIMAL = 5;
+    private static final int CONVERTED_DATE = 6;
+    private static final int CONVERTED_TIMESTAMP_MILLIS = 9;
+    private static final int ENCODING_PLAIN = 0;
+    private static final int ENCODING_PLAIN_DICTIONARY = 2;
+    private static final int ENCODING_RLE = 3;
+    private static final int PAGE_DATA = 0;
+    private static final int PAGE_DICTIONARY = 2;
+    private static final int CODEC_UNCOMPRESSED = 0;
+    private static final int CODEC_GZIP = 2;
+
+    private final long rowGroupSize;
+    private final int maxDictionarySize;
+    private final boolean compressed;
+    private final int batchSize;
+
+    /**
+     * @param rowGroupSize      the amount of bytes of the buffered values which closes a row group,
+     *                          it bounds the memory used while writing a table
+     * @param maxDictionarySize the amount of bytes of distinct values per column chunk which are dictionary-encoded,
+     *                          {@code 0} to write plain values only
+     * @param compressed        if {@code true}, the pages are compressed by gzip
+     * @param batchSize         the amount of rows decoded from the result set at once
+     */
+    public ParquetResultWriter(File outputFolder, Supplier<String> fileSuffixSupplier, long rowGroupSize, int maxDictionarySize, boolean compressed, int batchSize) {
+        super(outputFolder, fileSuffixSupplier, ".parquet");
+        this.rowGroupSize = Math.max(1, rowGroupSize);
+        this.maxDictionarySize = Math.max(0, maxDictionarySize);
+        this.compressed = compressed;
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    @Override
+    public void write(String resultIdentifier, ResultSet resultSet, File output) throws IOException, SQLException {
+        ColumnBatchReader reader = new ColumnBatchReader(resultSet, batchSize);
+        ParquetColumnChunk[] columns = createColumns(reader.getBatch());
+        List<RowGroup> rowGroups = new ArrayList<>();
+        long rows = 0;
+        try (CountingOutputStream out = new CountingOutputStream(new BufferedOutputStream(Channels.newOutputStream(FileChannel.open(
+                getTableFile(output, resultIdentifier),
+                StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE
+        )), BUFFER_SIZE))) {
+            out.write(MAGIC);
+            int bufferedRows = 0;
+            while (reader.next()) {
+                ColumnBatch batch = reader.getBatch();
+                for (int i = 0; i < columns.length; i++) addValues(columns[i], batch.getColumn(i));
+                rows += batch.getRowCount();
+                bufferedRows += batch.getRowCount();
+                if (getEstimatedSize(columns) >= rowGroupSize) {
+                    rowGroups.add(writeRowGroup(columns, bufferedRows, out));
+                    bufferedRows = 0;
+                }
+            }
+            if (bufferedRows > 0) rowGroups.add(writeRowGroup(columns, bufferedRows, out));
+            byte[] footer = createFooter(columns, rowGroups, rows);
+            out.write(footer);
+            for (int i = 0; i < 4; i++) out.write(footer.length >>> 8 * i);
+            out.write(MAGIC);
+        }
+    }
+
+    // the Parquet types of the column vectors, dates and timestamps are kept as the converted types of integers
+    private ParquetColumnChunk[] createColumns(ColumnBatch batch) {
+        ParquetColumnChunk[] columns = new ParquetColumnChunk[batch.getColumnCount()];
+        Set<String> names = new HashSet<>();
+        for (int i = 0; i < columns.length; i++) {
+            ColumnVector vector = batch.getColumn(i);
+            //Parquet readers require unique column names
+            String name = vector.getName();
+            for (int n = 2; !names.add(name); n++) name = vector.getName() + "_" + n;
+            switch (vector.getType()) {
+                case BOOLEAN:
+                    columns[i] = new ParquetColumnChunk(name, ParquetColumnChunk.TYPE_BOOLEAN, -1, 0, 0, 0);
+                    break;
+                case INT64:
+                    columns[i] = new ParquetColumnChunk(name, ParquetColumnChunk.TYPE_INT64, -1, 0, 0, maxDictionarySize);
+                    break;
+                case FLOAT64:
+                    columns[i] = new ParquetColumnChunk(name, ParquetColumnChunk.TYPE_DOUBLE, -1, 0, 0, maxDictionarySize);
+                    break;
+                case DECIMAL:
+                    columns[i] = new ParquetColumnChunk(name, ParquetColumnChunk.TYPE_BYTE_ARRAY, CONVERTED_DECIMAL, vector.getPrecision(), vector.getScale(), maxDictionarySize);
+                    break;
+                case DATE:
+                    columns[i] = new ParquetColumnChunk(name, ParquetColumnChunk.TYPE_INT32, CONVERTED_DATE, 0, 0, maxDictionarySize);
+                    break;
+                case TIMESTAMP:
+                    columns[i] = new ParquetColumnChunk(name, ParquetColumnChunk.TYPE_INT64, CONVERTED_TIMESTAMP_MILLIS, 0, 0, maxDictionarySize);
+                    break;
+                case BINARY:
+                    columns[i] = new ParquetColumnChunk(name, ParquetColumnChunk.TYPE_BYTE_ARRAY, -1, 0, 0, maxDictionarySize);
+                    break;
+                default:
+                    columns[i] = new ParquetColumnChunk(name, ParquetColumnChunk.TYPE_BYTE_ARRAY, CONVERTED_UTF8, 0, 0, maxDictionarySize);
+            }
+        }
+        return columns;
+    }
+
+    private void addValues(ParquetColumnChunk column, ColumnVector vector) {
+        for (int row = 0; row < vector.getSize(); row++) {
+            if (vector.isNull(row)) {
+                column.addNull();
+                continue;
+            }
+            switch (vector.getType()) {
+                case BOOLEAN:
+                    column.addBoolean(vector.getBoolean(row));
+                    break;
+                case INT64:
+                case TIMESTAMP:
+                    column.addLong(vector.getLong(row));
+                    break;
+                case FLOAT64:
+                    column.addDouble(vector.getDouble(row));
+                    break;
+                case DATE:
+                    column.addInt(vector.getInt(row));
+                    break;
+                case DECIMAL:
+                    //the minimal big-endian two's complement
+                    column.addBinary(vector.getBigDecimal(row).unscaledValue().toByteArray());
+                    break;
+                default:
+                    column.addBinary(vector.getBytes(row));
+            }
+        }
+    }
+
+    private long getEstimatedSize(ParquetColumnChunk[] columns) {
+        long size = 0;
+        for (ParquetColumnChunk column : columns) size += column.getEstimatedSize();
+        return size;
+    }
+
+    private RowGroup writeRowGroup(ParquetColumnChunk[] columns, int rows, CountingOutputStream out) throws IOException {
+        RowGroup rowGroup = new RowGroup(rows);
+        for (ParquetColumnChunk column : columns) {
+            ColumnChunk chunk = new ColumnChunk(column.getValueCount());
+            long start = out.getPosition();
+            if (column.isDictionaryEncoded()) {
+                chunk.dictionaryPageOffset = out.getPosition();
+                ParquetColumnChunk.Buffer dictionaryPage = column.getDictionaryPage();
+                byte[] body = compress(dictionaryPage);
+                writePageHeader(out, new ThriftCompactWriter()
+                        .i32Field(1, PAGE_DICTIONARY)
+                        .i32Field(2, dictionaryPage.size())
+                        .i32Field(3, body.length)
+                        .structField(7)
+                        .i32Field(1, column.getDictionarySize())
+                        .i32Field(2, ENCODING_PLAIN_DICTIONARY)
+                        .endStruct()
+                        .endStruct());
+                out.write(body);
+                chunk.uncompressedSize += dictionaryPage.size() - body.length;
+                chunk.encoding = ENCODING_PLAIN_DICTIONARY;
+            }
+            chunk.dataPageOffset = out.getPosition();
+            ParquetColumnChunk.Buffer dataPage = column.getDataPage();
+            byte[] body = compress(dataPage);
+            writePageHeader(out, new ThriftCompactWriter()
+                    .i32Field(1, PAGE_DATA)
+                    .i32Field(2, dataPage.size())
+                    .i32Field(3, body.length)
+                    .structField(5)
+                    .i32Field(1, column.getValueCount())
+                    .i32Field(2, chunk.encoding)
+                    .i32Field(3, ENCODING_RLE)
+                    .i32Field(4, ENCODING_RLE)
+                    .endStruct()
+                    .endStruct());
+            out.write(body);
+            chunk.uncompressedSize += dataPage.size() - body.length;
+            chunk.compressedSize = out.getPosition() - start;
+            chunk.uncompressedSize += chunk.compressedSize;
+            rowGroup.size += chunk.uncompressedSize;
+            rowGroup.columns.add(chunk);
+            column.reset();
+        }
+        return rowGroup;
+    }
+
+    private void writePageHeader(OutputStream out, ThriftCompactWriter header) throws IOException {
+        out.write(header.toByteArray());
+    }
+
+    private byte[] compress(ParquetColumnChunk.Buffer page) throws IOException {
+        ByteArrayOutputStream body = new ByteArrayOutputStream(compressed ? page.size() / 2 + 64 : page.size());
+        if (compressed) {
+            try (GZIPOutputStream gzip = new GZIPOutputStream(body)) {
+                page.writeTo(gzip);
+            }
+        } else {
+            page.writeTo(body);
+        }
+        return body.toByteArray();
+    }
+
+    private byte[] createFooter(ParquetColumnChunk[] columns, List<RowGroup> rowGroups, long rows) {
+        ThriftCompactWriter footer = new ThriftCompactWriter()
+                .i32Field(1, 1)
+                .listField(2, ThriftCompactWriter.TYPE_STRUCT, columns.length + 1)
+                .beginStruct()
+                .stringField(4, "schema")
+                .i32Field(5, columns.length)
+                .endStruct();
+        for (ParquetColumnChunk column : columns) {
+            footer.beginStruct()
+                    .i32Field(1, column.getType())
+                    .i32Field(3, REPETITION_OPTIONAL)
+                    .stringField(4, column.getName());
+            if (column.getConvertedType() >= 0) footer.i32Field(6, column.getConvertedType());
+            if (column.getConvertedType() == CONVERTED_DECIMAL) footer.i32Field(7, column.getScale()).i32Field(8, column.getPrecision());
+            footer.endStruct();
+        }
+        footer.i64Field(3, rows)
+                .listField(4, ThriftCompactWriter.TYPE_STRUCT, rowGroups.size());
+        for (RowGroup rowGroup : rowGroups) {
+            footer.beginStruct()
+                    .listField(1, ThriftCompactWriter.TYPE_STRUCT, columns.length);
+            for (int i = 0; i < columns.length; i++) {
+                ColumnChunk chunk = rowGroup.columns.get(i);
+                footer.beginStruct()
+                        .i64Field(2, chunk.dictionaryPageOffset >= 0 ? chunk.dictionaryPageOffset : chunk.dataPageOffset)
+                        .structField(3)
+                        .i32Field(1, columns[i].getType())
+                        .listField(2, ThriftCompactWriter.TYPE_I32, 2)
+                        .i32(chunk.encoding)
+                        .i32(ENCODING_RLE)
+                        .listField(3, ThriftCompactWriter.TYPE_BINARY, 1)
+                        .string(columns[i].getName())
+                        .i32Field(4, compressed ? CODEC_GZIP : CODEC_UNCOMPRESSED)
+                        .i64Field(5, chunk.valueCount)
+                        .i64Field(6, chunk.uncompressedSize)
+                        .i64Field(7, chunk.compressedSize)
+                        .i64Field(9, chunk.dataPageOffset);
+                if (chunk.dictionaryPageOffset >= 0) footer.i64Field(11, chunk.dictionaryPageOffset);
+                footer.endStruct().endStruct();
+            }
+            footer.i64Field(2, rowGroup.size)
+                    .i64Field(3, rowGroup.rows)
+                    .endStruct();
+        }
+        return footer.stringField(6, "SQLExecutor")
+                .endStruct()
+                .toByteArray();
+    }
+
+    private static class RowGroup {
+        private final List<ColumnChunk> columns = new ArrayList<>();
+        private final long rows;
+        private long size;
+
+        private RowGroup(long rows) {
+            this.rows = rows;
+        }
+    }
+
+    private static class ColumnChunk {
+        private final long valueCount;
+        private int encoding = ENCODING_PLAIN;
+        private long dictionaryPageOffset = -1;
+        private long dataPageOffset;
+        private long compressedSize;
+        private long uncompressedSize;
+
+        private ColumnChunk(long valueCount) {
+            this.valueCount = valueCount;
+        }
+    }
+}
@@ -2,9 +2,14 @@ package com.valdisdot.sqlexecutor.executor.writer;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.Comparator;
+import java.util.List;
 import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 public abstract class ResultWriter {
     protected final File outputFolder;
@@ -19,8 +24,13 @@ public abstract class ResultWriter {
     }
 
     public File initializeResultFile(String resultFileName) throws ResultWriterException {
+        return initializeResultFile(resultFileName, fileSuffixSupplier.get());
+    }
+
+    //writers which put a result into several outputs give them the same suffix
+    public File initializeResultFile(String resultFileName, String fileSuffix) throws ResultWriterException {
         try {
-            File dbFile = new File(outputFolder, resultFileName + fileSuffixSupplier.get() + fileExtension);
+            File dbFile = new File(outputFolder, resultFileName + fileSuffix + fileExtension);
             //override the file
             if (dbFile.exists()) {
                 dbFile.delete();
@@ -36,13 +46,46 @@ public abstract class ResultWriter {
         File resultFile = initializeResultFile(resultFileName);
         try {
             write(resultIdentifier, resultSet, resultFile);
+            finalizeResultFile(resultFile);
             return resultFile;
         } catch (IOException e) {
             throw new ResultWriterException("Error during result file writing", e);
         } catch (SQLException e) {
             throw new ResultWriterException("Error during collecting the result data", e);
+        } finally {
+            discardResultFile(resultFile);
         }
     }
 
+    //writers which collect the results in memory flush them into the output once, after the last result is written
+    public void finalizeResultFile(File output) throws ResultWriterException {
+    }
+
+    //releases resources of an output which has not been finalized, must be a no-op for a finalized one
+    public void discardResultFile(File output) {
+    }
+
+    //writers which keep an order of results (e.g. sheets) restore the declared one after concurrent writing
+    public void orderResults(File output, List<String> resultIdentifiers) throws ResultWriterException {
+    }
+
     public abstract void write(String resultIdentifier, ResultSet resultSet, File output) throws IOException, SQLException, ResultWriterException;
+
+    // result identifiers become file names, the characters forbidden on common file systems are replaced
+    protected String toFileName(String resultIdentifier) {
+        String fileName = resultIdentifier.replaceAll("[\\\\/:*?\"<>|\\p{Cntrl}]", "_").trim();
+        return fileName.isEmpty() || fileName.matches("\\.+") ? "result" : fileName;
+    }
+
+    protected void delete(Path path) throws IOException {
+        if (!Files.isDirectory(path)) {
+            Files.deleteIfExists(path);
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(path)) {
+            for (Path nested : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+                Files.deleteIfExists(nested);
+            }
+        }
+    }
 }
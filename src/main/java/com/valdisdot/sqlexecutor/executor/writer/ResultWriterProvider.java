@@ -0,0 +1,15 @@
+package com.valdisdot.sqlexecutor.executor.writer;
+
+import com.valdisdot.sqlexecutor.configuration.ApplicationConfig;
+import com.valdisdot.sqlexecutor.executor.database.DatabaseManager;
+
+// Creates the result writer of an output format, the providers are discovered with the ServiceLoader.
+// Custom writers are registered in META-INF/services of a jar on the class path or in the plugin directory,
+// a custom provider replaces the built-in one of the same output format
+public interface ResultWriterProvider {
+    // the name which selects the writer in "## output:" and "defaultOutput", e.g. "xlsx"
+    String getOutputFormat();
+
+    // called once, the writer serves all results of the format; the settings of custom writers are in the writer configuration
+    ResultWriter createResultWriter(ApplicationConfig applicationConfig, DatabaseManager databaseManager);
+}
@@ -1,25 +1,163 @@
 package com.valdisdot.sqlexecutor.executor.writer;
 
 import com.valdisdot.sqlexecutor.executor.database.DatabaseManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.io.File;
 import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
 import java.sql.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.OffsetDateTime;
+import java.time.OffsetTime;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.temporal.ChronoField;
 import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
 
 public class SQLiteResultWriter extends ResultWriter {
+    // the name of the attached output in the statements of the native staging
+    private static final String STAGING_SCHEMA = "staging";
+    // the default limit of SQLite
+    private static final int MAX_ATTACHED_DATABASES = 10;
+    // the significant decimal digits a real keeps
+    private static final int MAX_REAL_PRECISION = 15;
+    private static final BigDecimal MIN_LONG = BigDecimal.valueOf(Long.MIN_VALUE);
+    private static final BigDecimal MAX_LONG = BigDecimal.valueOf(Long.MAX_VALUE);
+    // the fraction of a second is written only if it is not zero
+    private static final DateTimeFormatter TIME_FORMAT = new DateTimeFormatterBuilder()
+            .appendPattern("HH:mm:ss")
+            .appendFraction(ChronoField.NANO_OF_SECOND, 0, 9, true)
+            .toFormatter();
+    private static final DateTimeFormatter TIMESTAMP_FORMAT = new DateTimeFormatterBuilder()
+            .appendPattern("yyyy-MM-dd ")
+            .append(TIME_FORMAT)
+            .toFormatter();
+    private static final DateTimeFormatter OFFSET_TIMESTAMP_FORMAT = new DateTimeFormatterBuilder()
+            .append(TIMESTAMP_FORMAT)
+            .appendOffset("+HH:MM", "Z")
+            .toFormatter();
+    private static final DateTimeFormatter OFFSET_TIME_FORMAT = new DateTimeFormatterBuilder()
+            .append(TIME_FORMAT)
+            .appendOffset("+HH:MM", "Z")
+            .toFormatter();
+
     private final DatabaseManager databaseManager;
+    private final int batchSize;
+    private final Map<String, String> pragmas;
+    private final boolean inMemory;
+    private final long memoryLimit;
+    // the in-memory databases by their files, a database lives while its connection is open and is moved to its file when it grows
+    private final Map<File, MemoryDatabase> memoryDatabases = new ConcurrentHashMap<>();
+    private final AtomicInteger memoryDatabaseCounter = new AtomicInteger();
+    private final Logger logger;
 
     public SQLiteResultWriter(File outputFolder, DatabaseManager databaseManager) {
-        super(outputFolder, () -> "", ".db");
+        this(outputFolder, databaseManager, 10000, Map.of());
+    }
+
+    public SQLiteResultWriter(File outputFolder, DatabaseManager databaseManager, int batchSize, Map<String, String> pragmas) {
+        this(outputFolder, databaseManager, batchSize, pragmas, false, 0);
+    }
+
+    //a staging database, which is kept in memory until it grows above the limit (in bytes), if inMemory is set
+    public SQLiteResultWriter(File outputFolder, DatabaseManager databaseManager, int batchSize, Map<String, String> pragmas, boolean inMemory, long memoryLimit) {
+        this(outputFolder, () -> "", databaseManager, batchSize, pragmas, inMemory, memoryLimit);
+    }
+
+    //a database of results, the staging databases have no suffix
+    public SQLiteResultWriter(File outputFolder, Supplier<String> fileSuffixSupplier, DatabaseManager databaseManager, int batchSize, Map<String, String> pragmas) {
+        this(outputFolder, fileSuffixSupplier, databaseManager, batchSize, pragmas, false, 0);
+    }
+
+    private SQLiteResultWriter(File outputFolder, Supplier<String> fileSuffixSupplier, DatabaseManager databaseManager, int batchSize, Map<String, String> pragmas, boolean inMemory, long memoryLimit) {
+        super(outputFolder, fileSuffixSupplier, ".db");
         this.databaseManager = databaseManager;
+        this.batchSize = Math.max(1, batchSize);
+        this.pragmas = pragmas;
+        this.inMemory = inMemory;
+        this.memoryLimit = memoryLimit;
+        this.logger = LoggerFactory.getLogger(this.getClass());
+    }
+
+    @Override
+    public File initializeResultFile(String resultFileName, String fileSuffix) throws ResultWriterException {
+        File databaseFile = super.initializeResultFile(resultFileName, fileSuffix);
+        if (!inMemory) return databaseFile;
+        //a database of the same name, which has not been released
+        discardResultFile(databaseFile);
+        //a named shared-cache database is visible to all connections of the process, e.g. the ones which attach it
+        String uri = "file:staging-" + memoryDatabaseCounter.incrementAndGet() + "?mode=memory&cache=shared";
+        try {
+            memoryDatabases.put(databaseFile, new MemoryDatabase(uri, databaseManager.getLocalConnection(uri)));
+        } catch (SQLException e) {
+            throw new ResultWriterException("Error during in-memory database initialization", e);
+        }
+        return databaseFile;
+    }
+
+    // releases the in-memory database, a database which has been moved to its file stays there
+    @Override
+    public void discardResultFile(File output) {
+        MemoryDatabase memoryDatabase = memoryDatabases.remove(output);
+        if (memoryDatabase == null) return;
+        try {
+            memoryDatabase.connection.close();
+        } catch (SQLException ignored) {
+            //the database is dropped with its last connection anyway
+        }
+    }
+
+    // Get a connection to the local database with the other databases attached, their tables are visible by their names.
+    // SQLite resolves an unqualified name in the main database first, then in the attached ones in the order of attaching
+    public Connection getConnection(File databaseFile, List<File> attachedFiles) throws SQLException {
+        if (attachedFiles.size() > MAX_ATTACHED_DATABASES)
+            throw new SQLException("No more than " + MAX_ATTACHED_DATABASES + " databases can be attached, got " + attachedFiles.size());
+        Connection connection = getConnection(databaseFile);
+        try (Statement statement = connection.createStatement()) {
+            for (int i = 0; i < attachedFiles.size(); i++) {
+                statement.execute("ATTACH DATABASE '" + getDatabasePath(attachedFiles.get(i)).replace("'", "''") + "' AS " + getAttachedSchema(i) + ";");
+            }
+        } catch (SQLException e) {
+            connection.close();
+            throw e;
+        }
+        return connection;
+    }
+
+    private String getAttachedSchema(int index) {
+        return "part" + (index + 1);
+    }
+
+    // Get a connection to the local database with the staging pragmas applied, the pragmas are per connection
+    public Connection getConnection(File databaseFile) throws SQLException {
+        Connection connection = databaseManager.getLocalConnection(getDatabasePath(databaseFile));
+        try (Statement statement = connection.createStatement()) {
+            for (Map.Entry<String, String> pragma : pragmas.entrySet()) {
+                statement.execute("PRAGMA " + pragma.getKey() + " = " + pragma.getValue() + ";");
+            }
+        } catch (SQLException e) {
+            connection.close();
+            throw e;
+        }
+        return connection;
     }
 
     @Override
     public void write(String resultIdentifier, ResultSet resultSet, File output) throws SQLException {
         try (
-                Connection connection = databaseManager.getLocalConnection(output.getAbsolutePath());
+                Connection connection = getConnection(output);
                 Statement statement = connection.createStatement()
         ) {
             // Get ResultSet metadata for column names and types
@@ -30,7 +168,7 @@ public class SQLiteResultWriter extends ResultWriter {
             StringBuilder createTableQuery = new StringBuilder("CREATE TABLE \"" + resultIdentifier + "\" (");
             for (int i = 1; i <= columnCount; i++) {
                 createTableQuery.append("\"").append(metaData.getColumnName(i)).append("\" ");
-                createTableQuery.append(getSQLiteDataType(metaData.getColumnType(i)));
+                createTableQuery.append(getSQLiteDataType(metaData, i));
                 if (i < columnCount) {
                     createTableQuery.append(", ");
                 }
@@ -47,30 +185,159 @@ public class SQLiteResultWriter extends ResultWriter {
                 }
             }
             insertQuery.append(");");
+            // Flush the rows in chunks to bound the driver memory, but commit them once, in a single transaction
+            long startTime = System.nanoTime();
+            long rows = 0;
             connection.setAutoCommit(false);
-            //replace with in-memory chunks maybe and remove batches
             try (PreparedStatement preparedStatement = connection.prepareStatement(insertQuery.toString())) {
                 while (resultSet.next()) {
                     for (int i = 1; i <= columnCount; i++) {
-                        preparedStatement.setObject(i, resultSet.getObject(i));
+                        bind(preparedStatement, i, resultSet.getObject(i));
                     }
                     preparedStatement.addBatch();
+                    if (++rows % batchSize == 0) preparedStatement.executeBatch();
                 }
-                preparedStatement.executeBatch();
+                if (rows % batchSize != 0) preparedStatement.executeBatch();
+                connection.commit();
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
                 connection.setAutoCommit(true);
             }
+            long elapsedMillis = Math.max(1, (System.nanoTime() - startTime) / 1_000_000);
+            logger.info("Staged {} rows into '{}' in {} ms ({} rows/s)", rows, resultIdentifier, elapsedMillis, rows * 1000 / elapsedMillis);
+        }
+        spillIfNeeded(output);
+    }
+
+    // Stage the result of a query on a SQLite source without fetching it: the output is attached to a connection
+    // to the source and the table is created by the source query itself, the rows never leave the SQLite engine.
+    // The source stays the main database, so the names of the query resolve against it, not against the staged tables
+    public void writeAttached(String resultIdentifier, String sourceDatabasePath, String query, File output) throws SQLException {
+        try (
+                Connection connection = databaseManager.getLocalConnection(sourceDatabasePath);
+                Statement statement = connection.createStatement()
+        ) {
+            attachOutput(statement, output);
+            try {
+                long startTime = System.nanoTime();
+                statement.execute("CREATE TABLE " + STAGING_SCHEMA + ".\"" + resultIdentifier + "\" AS " + trimStatement(query) + ";");
+                long rows;
+                try (ResultSet count = statement.executeQuery("SELECT count(*) FROM " + STAGING_SCHEMA + ".\"" + resultIdentifier + "\";")) {
+                    rows = count.next() ? count.getLong(1) : 0;
+                }
+                long elapsedMillis = Math.max(1, (System.nanoTime() - startTime) / 1_000_000);
+                logger.info("Staged {} rows into '{}' natively in {} ms ({} rows/s)", rows, resultIdentifier, elapsedMillis, rows * 1000 / elapsedMillis);
+            } finally {
+                statement.execute("DETACH DATABASE " + STAGING_SCHEMA + ";");
+            }
+        }
+        spillIfNeeded(output);
+    }
+
+    // Stage the table of another SQLite database, e.g. a cached result, which is the only table there.
+    // The table is declared with the same column types, the rows are copied by the SQLite engine
+    public void writeCopy(String resultIdentifier, File sourceDatabaseFile, File output) throws SQLException {
+        try (
+                Connection connection = databaseManager.getLocalConnection(sourceDatabaseFile.getAbsolutePath());
+                Statement statement = connection.createStatement()
+        ) {
+            String sourceTable;
+            try (ResultSet rs = statement.executeQuery("SELECT name FROM sqlite_master WHERE type = 'table';")) {
+                if (!rs.next()) throw new SQLException("No table to stage in " + sourceDatabaseFile.getAbsolutePath());
+                sourceTable = rs.getString(1);
+            }
+            StringBuilder createTableQuery = new StringBuilder("CREATE TABLE " + STAGING_SCHEMA + ".\"" + resultIdentifier + "\" (");
+            try (ResultSet rs = statement.executeQuery("SELECT name, type FROM pragma_table_info('" + sourceTable.replace("'", "''") + "');")) {
+                boolean first = true;
+                while (rs.next()) {
+                    if (!first) createTableQuery.append(", ");
+                    createTableQuery.append("\"").append(rs.getString(1).replace("\"", "\"\"")).append("\" ").append(rs.getString(2));
+                    first = false;
+                }
+            }
+            createTableQuery.append(");");
+            attachOutput(statement, output);
+            try {
+                long startTime = System.nanoTime();
+                statement.execute(createTableQuery.toString());
+                long rows = statement.executeUpdate("INSERT INTO " + STAGING_SCHEMA + ".\"" + resultIdentifier + "\" SELECT * FROM main.\"" + sourceTable.replace("\"", "\"\"") + "\";");
+                long elapsedMillis = Math.max(1, (System.nanoTime() - startTime) / 1_000_000);
+                logger.info("Staged {} rows into '{}' from '{}' in {} ms ({} rows/s)", rows, resultIdentifier, sourceDatabaseFile.getName(), elapsedMillis, rows * 1000 / elapsedMillis);
+            } catch (SQLException e) {
+                //a partial table would fail the staging of the result in another way
+                statement.execute("DROP TABLE IF EXISTS " + STAGING_SCHEMA + ".\"" + resultIdentifier + "\";");
+                throw e;
+            } finally {
+                statement.execute("DETACH DATABASE " + STAGING_SCHEMA + ";");
+            }
         }
+        spillIfNeeded(output);
+    }
+
+    // the output is attached to a connection to another database, the staging pragmas are applied to it
+    private void attachOutput(Statement statement, File output) throws SQLException {
+        statement.execute("ATTACH DATABASE '" + getDatabasePath(output).replace("'", "''") + "' AS " + STAGING_SCHEMA + ";");
+        try {
+            for (Map.Entry<String, String> pragma : pragmas.entrySet()) {
+                statement.execute("PRAGMA " + STAGING_SCHEMA + "." + pragma.getKey() + " = " + pragma.getValue() + ";");
+            }
+        } catch (SQLException e) {
+            statement.execute("DETACH DATABASE " + STAGING_SCHEMA + ";");
+            throw e;
+        }
+    }
+
+    private String getDatabasePath(File databaseFile) {
+        MemoryDatabase memoryDatabase = memoryDatabases.get(databaseFile);
+        return memoryDatabase == null ? databaseFile.getAbsolutePath() : memoryDatabase.uri;
+    }
+
+    // moves an in-memory database which has grown above the limit to its file, the next connections open the file
+    private void spillIfNeeded(File output) throws SQLException {
+        MemoryDatabase memoryDatabase = memoryDatabases.get(output);
+        if (memoryDatabase == null) return;
+        try (Statement statement = memoryDatabase.connection.createStatement()) {
+            long size;
+            try (ResultSet rs = statement.executeQuery("SELECT page_count * page_size FROM pragma_page_count(), pragma_page_size();")) {
+                size = rs.next() ? rs.getLong(1) : 0;
+            }
+            if (size <= memoryLimit) return;
+            //the target must be absent or empty
+            output.delete();
+            long startTime = System.nanoTime();
+            statement.execute("VACUUM INTO '" + output.getAbsolutePath().replace("'", "''") + "';");
+            logger.info("Moved the in-memory staging database of {} bytes into '{}' in {} ms", size, output.getAbsolutePath(), (System.nanoTime() - startTime) / 1_000_000);
+        }
+        discardResultFile(output);
+    }
+
+    // the query becomes a part of another statement, its terminating semicolons are dropped
+    private String trimStatement(String query) {
+        String statement = query.trim();
+        while (statement.endsWith(";")) statement = statement.substring(0, statement.length() - 1).trim();
+        return statement;
     }
 
     public void writeAllDatabaseTables(File databaseFile, File outputFile, ResultWriter resultWriter) throws ResultWriterException, SQLException {
+        writeAllDatabaseTables(databaseFile, List.of(), outputFile, resultWriter);
+    }
+
+    // the tables of the attached databases are written too
+    public void writeAllDatabaseTables(File databaseFile, List<File> attachedFiles, File outputFile, ResultWriter resultWriter) throws ResultWriterException, SQLException {
         try {
-            Connection connection = databaseManager.getLocalConnection(databaseFile.getAbsolutePath());
-            Statement statement = connection.createStatement();
-            ResultSet rs = statement.executeQuery("SELECT name FROM sqlite_master WHERE type = 'table';");
+            Connection connection = getConnection(databaseFile, attachedFiles);
+            Statement statement;
+            ResultSet rs;
             Set<String> tables = new LinkedHashSet<>();
-            while (rs.next()) tables.add(rs.getString(1));
-            rs.close();
-            statement.close();
+            for (int i = -1; i < attachedFiles.size(); i++) {
+                statement = connection.createStatement();
+                rs = statement.executeQuery("SELECT name FROM " + (i < 0 ? "main" : getAttachedSchema(i)) + ".sqlite_master WHERE type = 'table';");
+                while (rs.next()) tables.add(rs.getString(1));
+                rs.close();
+                statement.close();
+            }
             for (String table : tables) {
                 statement = connection.createStatement();
                 rs = statement.executeQuery("select * from \"" + table + "\";");
@@ -86,27 +353,100 @@ public class SQLiteResultWriter extends ResultWriter {
         }
     }
 
-    private String getSQLiteDataType(int sqlType) {
-        switch (sqlType) {
+    // The declared type of a column gives its SQLite affinity: integers and reals are stored as native numbers,
+    // decimals as numbers unless their precision is beyond a double, temporal values as ISO-8601 text.
+    // A NUMERIC column would turn the exact text of a wider decimal back into an approximate number and a TEXT column
+    // would turn the numbers into text, so the decimals of a wider or an unknown precision have no declared type,
+    // every value is stored as it is bound
+    private String getSQLiteDataType(ResultSetMetaData metaData, int column) throws SQLException {
+        switch (metaData.getColumnType(column)) {
+            case Types.BOOLEAN:
+            case Types.BIT:
+            case Types.TINYINT:
+            case Types.SMALLINT:
             case Types.INTEGER:
+            case Types.BIGINT:
                 return "INTEGER";
             case Types.FLOAT:
             case Types.REAL:
-                return "REAL";
             case Types.DOUBLE:
-                return "DOUBLE";
-            case Types.VARCHAR:
-            case Types.CHAR:
-            case Types.LONGVARCHAR:
-                return "TEXT";
-            case Types.DATE:
-            case Types.TIMESTAMP:
-                return "TEXT"; // Store dates as ISO-formatted strings
+                return "REAL";
+            case Types.NUMERIC:
+            case Types.DECIMAL:
+                //the precision and the scale are declared for the readers of the staged table
+                int precision = metaData.getPrecision(column);
+                if (precision <= 0 || precision > MAX_REAL_PRECISION) return "";
+                return "NUMERIC(" + precision + ", " + Math.max(0, metaData.getScale(column)) + ")";
+            case Types.BINARY:
+            case Types.VARBINARY:
+            case Types.LONGVARBINARY:
             case Types.BLOB:
                 return "BLOB";
             default:
-                return "TEXT"; // Default to TEXT for other types
+                //strings, dates, times, timestamps and the types SQLite has no counterpart for
+                return "TEXT";
+        }
+    }
+
+    // Binds a value by its class rather than by the declared type of its column, sources may be dynamically typed (e.g. SQLite).
+    // The values are bound as SQLite stores them, the driver is left no conversions of its own
+    private void bind(PreparedStatement preparedStatement, int parameterIndex, Object value) throws SQLException {
+        if (value == null) {
+            preparedStatement.setNull(parameterIndex, Types.NULL);
+        } else if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            preparedStatement.setLong(parameterIndex, ((Number) value).longValue());
+        } else if (value instanceof Double || value instanceof Float) {
+            preparedStatement.setDouble(parameterIndex, ((Number) value).doubleValue());
+        } else if (value instanceof BigDecimal) {
+            bindDecimal(preparedStatement, parameterIndex, (BigDecimal) value);
+        } else if (value instanceof BigInteger) {
+            bindDecimal(preparedStatement, parameterIndex, new BigDecimal((BigInteger) value));
+        } else if (value instanceof Boolean) {
+            preparedStatement.setLong(parameterIndex, (Boolean) value ? 1 : 0);
+        } else if (value instanceof byte[]) {
+            preparedStatement.setBytes(parameterIndex, (byte[]) value);
+        } else if (value instanceof String) {
+            preparedStatement.setString(parameterIndex, (String) value);
+        } else {
+            preparedStatement.setString(parameterIndex, formatTemporal(value));
+        }
+    }
+
+    // a decimal is stored as an integer or a real only if it keeps its value, otherwise as its exact text (its column has no declared type then)
+    private void bindDecimal(PreparedStatement preparedStatement, int parameterIndex, BigDecimal value) throws SQLException {
+        BigDecimal decimal = value.stripTrailingZeros();
+        if (decimal.scale() <= 0 && decimal.compareTo(MIN_LONG) >= 0 && decimal.compareTo(MAX_LONG) <= 0) {
+            preparedStatement.setLong(parameterIndex, decimal.longValueExact());
+        } else if (decimal.precision() <= MAX_REAL_PRECISION) {
+            preparedStatement.setDouble(parameterIndex, decimal.doubleValue());
+        } else {
+            preparedStatement.setString(parameterIndex, value.toPlainString());
         }
     }
-}
 
+    // the formats SQLite date and time functions accept, the other values are stored as their text
+    private String formatTemporal(Object value) {
+        if (value instanceof java.sql.Date) return ((java.sql.Date) value).toLocalDate().toString();
+        if (value instanceof Time) return TIME_FORMAT.format(((Time) value).toLocalTime());
+        if (value instanceof Timestamp) return TIMESTAMP_FORMAT.format(((Timestamp) value).toLocalDateTime());
+        if (value instanceof LocalDate) return value.toString();
+        if (value instanceof LocalTime) return TIME_FORMAT.format((LocalTime) value);
+        if (value instanceof LocalDateTime) return TIMESTAMP_FORMAT.format((LocalDateTime) value);
+        if (value instanceof OffsetDateTime) return OFFSET_TIMESTAMP_FORMAT.format((OffsetDateTime) value);
+        if (value instanceof ZonedDateTime) return OFFSET_TIMESTAMP_FORMAT.format((ZonedDateTime) value);
+        if (value instanceof OffsetTime) return OFFSET_TIME_FORMAT.format((OffsetTime) value);
+        if (value instanceof java.util.Date) return TIMESTAMP_FORMAT.format(new Timestamp(((java.util.Date) value).getTime()).toLocalDateTime());
+        return value.toString();
+    }
+
+    private static class MemoryDatabase {
+        private final String uri;
+        // keeps the database alive
+        private final Connection connection;
+
+        private MemoryDatabase(String uri, Connection connection) {
+            this.uri = uri;
+            this.connection = connection;
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.valdisdot.sqlexecutor.executor.writer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Creates the indexes a post-sequence query needs on the staged tables, which are created without any.
+// SQLite reports them itself: the query plan shows an automatic index wherever it would build a temporary one for a lookup,
+// e.g. "SEARCH c USING AUTOMATIC COVERING INDEX (id=?)"; such an index is created on the staged table instead
+public class StagingIndexer {
+    private static final Pattern AUTOMATIC_INDEX = Pattern.compile("^SEARCH (.+?) USING AUTOMATIC (?:PARTIAL )?(?:COVERING )?INDEX \\((.+)\\)$");
+    private static final Pattern CONSTRAINT = Pattern.compile("^(.+?)(?:=|>=|<=|>|<)\\?$");
+    // a new index may change the plan and uncover the next lookup, the plan is inspected again, but not endlessly
+    private static final int MAX_PASSES = 8;
+
+    private final Logger logger;
+
+    public StagingIndexer() {
+        this.logger = LoggerFactory.getLogger(this.getClass());
+    }
+
+    // The connection is the one the query runs on, with the staging databases attached.
+    // A query which can't be planned is left as it is, its execution reports the error
+    public void createIndexes(Connection connection, String query) {
+        try {
+            Map<String, String> schemasByTable = getSchemasByTable(connection);
+            Set<String> created = new LinkedHashSet<>();
+            long startTime = System.nanoTime();
+            for (int pass = 0; pass < MAX_PASSES; pass++) {
+                boolean changed = false;
+                for (String[] hint : getAutomaticIndexes(connection, query)) {
+                    String table = resolveTable(hint[0], query, schemasByTable);
+                    if (table == null) continue;
+                    List<String> columns = parseColumns(hint[1]);
+                    if (columns.isEmpty()) continue;
+                    String indexName = "staging_" + table + "_" + String.join("_", columns);
+                    if (!created.add(indexName.toLowerCase(Locale.ROOT))) continue;
+                    createIndex(connection, schemasByTable.get(table.toLowerCase(Locale.ROOT)), table, indexName, columns);
+                    changed = true;
+                }
+                if (!changed) break;
+            }
+            if (!created.isEmpty())
+                logger.info("Created {} staging indexes in {} ms: {}", created.size(), (System.nanoTime() - startTime) / 1_000_000, created);
+        } catch (SQLException e) {
+            logger.debug("Staging tables are not indexed: {}", e.getMessage());
+        }
+    }
+
+    // the staged tables of all attached databases by their lower-cased names
+    private Map<String, String> getSchemasByTable(Connection connection) throws SQLException {
+        List<String> schemas = new ArrayList<>();
+        try (Statement statement = connection.createStatement(); ResultSet rs = statement.executeQuery("PRAGMA database_list;")) {
+            while (rs.next()) {
+                if (!"temp".equalsIgnoreCase(rs.getString("name"))) schemas.add(rs.getString("name"));
+            }
+        }
+        Map<String, String> schemasByTable = new HashMap<>();
+        for (String schema : schemas) {
+            try (
+                    Statement statement = connection.createStatement();
+                    ResultSet rs = statement.executeQuery("SELECT name FROM \"" + schema + "\".sqlite_master WHERE type = 'table';")
+            ) {
+                //an unqualified name resolves in the first database which has the table
+                while (rs.next()) schemasByTable.putIfAbsent(rs.getString(1).toLowerCase(Locale.ROOT), schema);
+            }
+        }
+        return schemasByTable;
+    }
+
+    // the pairs of the table (or its alias) and the constraints of its automatic index
+    private List<String[]> getAutomaticIndexes(Connection connection, String query) throws SQLException {
+        List<String[]> hints = new ArrayList<>();
+        try (Statement statement = connection.createStatement(); ResultSet rs = statement.executeQuery("EXPLAIN QUERY PLAN " + query)) {
+            while (rs.next()) {
+                Matcher matcher = AUTOMATIC_INDEX.matcher(rs.getString("detail").trim());
+                if (matcher.matches()) hints.add(new String[]{matcher.group(1), matcher.group(2)});
+            }
+        }
+        return hints;
+    }
+
+    // the plan names a table by its alias, if it has one; the alias is looked up next to a staged table name in the query
+    private String resolveTable(String name, String query, Map<String, String> schemasByTable) {
+        if (schemasByTable.containsKey(name.toLowerCase(Locale.ROOT))) return name;
+        for (String table : schemasByTable.keySet()) {
+            Pattern alias = Pattern.compile(
+                    "(?:\"" + Pattern.quote(table) + "\"|\\b" + Pattern.quote(table) + "\\b)\\s+(?:AS\\s+)?\"?" + Pattern.quote(name) + "\"?(?![\\w\"])",
+                    Pattern.CASE_INSENSITIVE
+            );
+            if (alias.matcher(query).find()) return table;
+        }
+        return null;
+    }
+
+    private List<String> parseColumns(String constraints) {
+        List<String> columns = new ArrayList<>();
+        for (String constraint : constraints.split(" AND ")) {
+            Matcher matcher = CONSTRAINT.matcher(constraint.trim());
+            if (!matcher.matches()) return List.of();
+            if (!columns.contains(matcher.group(1))) columns.add(matcher.group(1));
+        }
+        return columns;
+    }
+
+    // an index of an attached database is named with its schema, the table is named without it
+    private void createIndex(Connection connection, String schema, String table, String indexName, List<String> columns) throws SQLException {
+        StringBuilder createIndexQuery = new StringBuilder("CREATE INDEX IF NOT EXISTS \"" + schema + "\".\"" + indexName.replace("\"", "") + "\" ON \"" + table + "\" (");
+        for (int i = 0; i < columns.size(); i++) {
+            if (i > 0) createIndexQuery.append(", ");
+            createIndexQuery.append("\"").append(columns.get(i).replace("\"", "\"\"")).append("\"");
+        }
+        createIndexQuery.append(");");
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(createIndexQuery.toString());
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.valdisdot.sqlexecutor.executor.writer;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+// A minimal writer of the Thrift compact protocol, enough for the Parquet page headers and the file footer
+class ThriftCompactWriter {
+    static final byte TYPE_I32 = 5;
+    static final byte TYPE_I64 = 6;
+    static final byte TYPE_BINARY = 8;
+    static final byte TYPE_LIST = 9;
+    static final byte TYPE_STRUCT = 12;
+
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    // field ids are written as deltas from the previous field of the same struct
+    private final Deque<Integer> lastFieldIds = new ArrayDeque<>();
+    private int lastFieldId;
+
+    ThriftCompactWriter i32Field(int id, int value) {
+        fieldHeader(id, TYPE_I32);
+        varint(zigzag(value));
+        return this;
+    }
+
+    ThriftCompactWriter i64Field(int id, long value) {
+        fieldHeader(id, TYPE_I64);
+        varint(zigzag(value));
+        return this;
+    }
+
+    ThriftCompactWriter stringField(int id, String value) {
+        fieldHeader(id, TYPE_BINARY);
+        string(value);
+        return this;
+    }
+
+    ThriftCompactWriter structField(int id) {
+        fieldHeader(id, TYPE_STRUCT);
+        return beginStruct();
+    }
+
+    ThriftCompactWriter listField(int id, byte elementType, int size) {
+        fieldHeader(id, TYPE_LIST);
+        if (size < 15) {
+            out.write(size << 4 | elementType);
+        } else {
+            out.write(0xF0 | elementType);
+            varint(size);
+        }
+        return this;
+    }
+
+    // elements of a list of structs start with this call and end with endStruct()
+    ThriftCompactWriter beginStruct() {
+        lastFieldIds.push(lastFieldId);
+        lastFieldId = 0;
+        return this;
+    }
+
+    ThriftCompactWriter endStruct() {
+        out.write(0);
+        lastFieldId = lastFieldIds.isEmpty() ? 0 : lastFieldIds.pop();
+        return this;
+    }
+
+    ThriftCompactWriter i32(int value) {
+        varint(zigzag(value));
+        return this;
+    }
+
+    ThriftCompactWriter string(String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        varint(bytes.length);
+        out.write(bytes, 0, bytes.length);
+        return this;
+    }
+
+    byte[] toByteArray() {
+        return out.toByteArray();
+    }
+
+    private void fieldHeader(int id, byte type) {
+        int delta = id - lastFieldId;
+        if (delta > 0 && delta <= 15) {
+            out.write(delta << 4 | type);
+        } else {
+            out.write(type);
+            varint(zigzag(id));
+        }
+        lastFieldId = id;
+    }
+
+    private void varint(long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) (value & 0x7F | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static long zigzag(long value) {
+        return value << 1 ^ value >> 63;
+    }
+}
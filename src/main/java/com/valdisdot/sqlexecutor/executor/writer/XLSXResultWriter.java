@@ -1,70 +1,314 @@
 package com.valdisdot.sqlexecutor.executor.writer;
 
 import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
 import org.apache.poi.ss.usermodel.Row;
 import org.apache.poi.ss.usermodel.Sheet;
 import org.apache.poi.ss.usermodel.Workbook;
 import org.apache.poi.ss.util.CellRangeAddress;
+import org.apache.poi.ss.util.NumberToTextConverter;
+import org.apache.poi.xssf.streaming.SXSSFSheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
 import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
 import java.sql.*;
-import java.util.HashMap;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Supplier;
 
 public class XLSXResultWriter extends ResultWriter {
-    private Map<File, XSSFWorkbook> holder;
+    // Excel keeps 15 significant digits, longer numbers are written as text to stay exact
+    private static final int MAX_NUMERIC_PRECISION = 15;
+    private static final long MAX_EXACT_INTEGER = 999_999_999_999_999L;
+    private static final String DATE_FORMAT = "yyyy-mm-dd";
+    private static final String TIMESTAMP_FORMAT = "yyyy-mm-dd hh:mm:ss";
+    // column widths are set in 1/256 of a character, Excel allows up to 255 characters
+    private static final int MAX_COLUMN_WIDTH = 255;
+    private static final int COLUMN_WIDTH_PADDING = 2;
+    private static final int MAX_SHEET_NAME_LENGTH = 31;
+    // the last row of a sheet is 1048576, the first one is the header
+    public static final int MAX_ROWS_PER_SHEET = 1_048_575;
+
+    private Map<File, Workbook> holder;
+    private Map<Workbook, CellStyle[]> dateStyles;
+    private Map<Workbook, Map<String, List<String>>> continuationSheets;
+    private final boolean streaming;
+    private final int streamingRowWindow;
+    private final int autoSizeSampleRows;
+    private final int maxRowsPerSheet;
 
     public XLSXResultWriter(File outputFolder, Supplier<String> fileSuffixSupplier) {
+        this(outputFolder, fileSuffixSupplier, false, SXSSFWorkbook.DEFAULT_WINDOW_SIZE);
+    }
+
+    public XLSXResultWriter(File outputFolder, Supplier<String> fileSuffixSupplier, boolean streaming, int streamingRowWindow) {
+        this(outputFolder, fileSuffixSupplier, streaming, streamingRowWindow, -1, MAX_ROWS_PER_SHEET);
+    }
+
+    /**
+     * @param streaming          if {@code true}, only {@code streamingRowWindow} rows per sheet are kept in memory,
+     *                           older rows are spilled into compressed temporary files
+     * @param streamingRowWindow the amount of rows kept in memory in the streaming mode
+     * @param autoSizeSampleRows the amount of leading rows per sheet the column widths are estimated from,
+     *                           negative to measure every cell with the font metrics, {@code 0} to keep default widths
+     * @param maxRowsPerSheet    the amount of data rows per sheet, the rest of a result goes on to continuation sheets
+     */
+    public XLSXResultWriter(File outputFolder, Supplier<String> fileSuffixSupplier, boolean streaming, int streamingRowWindow, int autoSizeSampleRows, int maxRowsPerSheet) {
         super(outputFolder, fileSuffixSupplier, ".xlsx");
-        holder = new HashMap<>();
+        holder = new ConcurrentHashMap<>();
+        dateStyles = new ConcurrentHashMap<>();
+        continuationSheets = new ConcurrentHashMap<>();
+        this.streaming = streaming;
+        this.streamingRowWindow = streamingRowWindow;
+        this.autoSizeSampleRows = autoSizeSampleRows;
+        this.maxRowsPerSheet = Math.max(1, Math.min(MAX_ROWS_PER_SHEET, maxRowsPerSheet));
     }
 
     @Override
-    public File initializeResultFile(String resultFileName) throws ResultWriterException {
-        File initialized = super.initializeResultFile(resultFileName);
-        holder.put(initialized, new XSSFWorkbook());
+    public File initializeResultFile(String resultFileName, String fileSuffix) throws ResultWriterException {
+        File initialized = super.initializeResultFile(resultFileName, fileSuffix);
+        holder.put(initialized, createWorkbook());
         return initialized;
     }
 
+    private Workbook createWorkbook() {
+        if (!streaming) return new XSSFWorkbook();
+        SXSSFWorkbook workbook = new SXSSFWorkbook(streamingRowWindow);
+        workbook.setCompressTempFiles(true);
+        return workbook;
+    }
+
+    @Override
+    public void orderResults(File output, List<String> resultIdentifiers) throws ResultWriterException {
+        Workbook workbook = holder.get(output);
+        if (workbook == null) throw new ResultWriterException("Unknown file: " + output);
+        Map<String, List<String>> continuations = continuationSheets.getOrDefault(workbook, Map.of());
+        int position = 0;
+        for (String resultIdentifier : resultIdentifiers) {
+            if (workbook.getSheetIndex(resultIdentifier) < 0) continue;
+            workbook.setSheetOrder(resultIdentifier, position++);
+            for (String continuation : continuations.getOrDefault(resultIdentifier, List.of()))
+                workbook.setSheetOrder(continuation, position++);
+        }
+        if (position > 0) workbook.setActiveSheet(0);
+    }
+
+    @Override
+    public void finalizeResultFile(File output) throws ResultWriterException {
+        Workbook workbook = holder.remove(output);
+        if (workbook == null) throw new ResultWriterException("Unknown file: " + output);
+        try (OutputStream fileOut = new FileOutputStream(output)) {
+            workbook.write(fileOut);
+        } catch (IOException e) {
+            throw new ResultWriterException("Error during collecting the result data into the final result file: " + output.getAbsolutePath(), e);
+        } finally {
+            release(workbook);
+        }
+    }
+
+    @Override
+    public void discardResultFile(File output) {
+        Workbook workbook = holder.remove(output);
+        if (workbook != null) {
+            release(workbook);
+            output.delete();
+        }
+    }
+
+    private void release(Workbook workbook) {
+        dateStyles.remove(workbook);
+        continuationSheets.remove(workbook);
+        //removes the temporary files of the streaming mode too
+        try {
+            workbook.close();
+        } catch (IOException ignored) {
+        }
+    }
+
     @Override
     public void write(String resultIdentifier, ResultSet resultSet, File output) throws SQLException, ResultWriterException {
         Workbook workbook = holder.get(output);
         //unknown xlsx files or xlsx files which are not from the writing chain will be not supported
         if (workbook == null) throw new ResultWriterException("Unknown file: " + output);
-        Sheet sheet = workbook.createSheet(resultIdentifier);
         ResultSetMetaData metaData = resultSet.getMetaData();
         int columnCount = metaData.getColumnCount();
+        String[] columnNames = new String[columnCount];
+        for (int i = 1; i <= columnCount; i++) columnNames[i - 1] = metaData.getColumnName(i);
+        // widest rendered value per column among the header and the sampled rows, in characters
+        int[] columnWidths = autoSizeSampleRows > 0 ? new int[columnCount] : null;
 
-        // Create header row with column names
-        Row headerRow = sheet.createRow(0);
-        for (int i = 1; i <= columnCount; i++) {
-            Cell cell = headerRow.createCell(i - 1);
-            cell.setCellValue(metaData.getColumnName(i));
-        }
+        // Text columns are read as strings, the others by their objects, so numbers, dates and booleans keep their types
+        boolean[] textColumns = new boolean[columnCount + 1];
+        for (int i = 1; i <= columnCount; i++) textColumns[i] = isTextColumn(metaData.getColumnType(i));
+        CellStyle[] styles = dateStyles.computeIfAbsent(workbook, this::createDateStyles);
 
+        Sheet sheet = createResultSheet(workbook, resultIdentifier, columnNames, columnWidths);
+        int sampledRows = columnWidths != null ? autoSizeSampleRows : 0;
         // Initialize row counter
         int rowCount = 0;
 
         // Write data rows
         while (resultSet.next()) {
+            if (rowCount == maxRowsPerSheet) {
+                //the sheet is full, the rest of the result goes on to a continuation sheet in the same pass
+                completeResultSheet(sheet, rowCount, columnCount, columnWidths);
+                sheet = createResultSheet(workbook, nextContinuationName(workbook, resultIdentifier), columnNames, null);
+                sampledRows = 0;
+                rowCount = 0;
+            }
             Row row = sheet.createRow(++rowCount);  // Start from the second row
             for (int i = 1; i <= columnCount; i++) {
-                Cell cell = row.createCell(i - 1);
-                cell.setCellValue(resultSet.getString(i));  // Write each column's data
+                if (textColumns[i]) {
+                    String value = resultSet.getString(i);
+                    if (value != null) row.createCell(i - 1).setCellValue(value);
+                } else {
+                    Object value = resultSet.getObject(i);
+                    if (value != null) writeValue(row.createCell(i - 1), value, resultSet, i, styles);
+                }
+            }
+            if (rowCount <= sampledRows) {
+                for (Cell cell : row) columnWidths[cell.getColumnIndex()] = Math.max(columnWidths[cell.getColumnIndex()], measure(cell, styles));
             }
         }
+        completeResultSheet(sheet, rowCount, columnCount, columnWidths);
+        //the workbook is written into the output once, by finalizeResultFile
+    }
 
+    private Sheet createResultSheet(Workbook workbook, String sheetName, String[] columnNames, int[] columnWidths) {
+        Sheet sheet = workbook.createSheet(sheetName);
+        //flushed rows are gone from the memory, the widths have to be measured on the fly
+        if (autoSizeSampleRows < 0 && sheet instanceof SXSSFSheet) ((SXSSFSheet) sheet).trackAllColumnsForAutoSizing();
+        // Create header row with column names
+        Row headerRow = sheet.createRow(0);
+        for (int i = 0; i < columnNames.length; i++) {
+            Cell cell = headerRow.createCell(i);
+            cell.setCellValue(columnNames[i]);
+            if (columnWidths != null) columnWidths[i] = measure(cell, null);
+        }
+        return sheet;
+    }
+
+    private void completeResultSheet(Sheet sheet, int rowCount, int columnCount, int[] columnWidths) {
         sheet.setAutoFilter(new CellRangeAddress(0, rowCount, 0, columnCount - 1));
-        for (int i = columnCount; i >= 0; --i) sheet.autoSizeColumn(i);
-        try (OutputStream fileOut = new FileOutputStream(output)) {
-            workbook.write(fileOut);
-        } catch (IOException e) {
-            throw new ResultWriterException("Error during collecting the result data into the final result file: " + output.getAbsolutePath(), e);
+        if (autoSizeSampleRows < 0) {
+            for (int i = columnCount; i >= 0; --i) sheet.autoSizeColumn(i);
+        } else if (columnWidths != null) {
+            //continuation sheets get the widths sampled on the first sheet
+            for (int i = 0; i < columnCount; i++)
+                sheet.setColumnWidth(i, Math.min(MAX_COLUMN_WIDTH, columnWidths[i] + COLUMN_WIDTH_PADDING) * 256);
+        }
+    }
+
+    // "result (2)", "result (3)", ... shortened to the 31 characters allowed for a sheet name
+    private String nextContinuationName(Workbook workbook, String resultIdentifier) {
+        List<String> sheetNames = continuationSheets
+                .computeIfAbsent(workbook, key -> new ConcurrentHashMap<>())
+                .computeIfAbsent(resultIdentifier, key -> new ArrayList<>());
+        for (int number = sheetNames.size() + 2; ; number++) {
+            String suffix = " (" + number + ")";
+            String name = resultIdentifier.length() + suffix.length() > MAX_SHEET_NAME_LENGTH
+                    ? resultIdentifier.substring(0, MAX_SHEET_NAME_LENGTH - suffix.length()) + suffix
+                    : resultIdentifier + suffix;
+            if (workbook.getSheetIndex(name) < 0) {
+                sheetNames.add(name);
+                return name;
+            }
+        }
+    }
+
+    // Estimates the rendered width in characters, without the font metrics
+    private int measure(Cell cell, CellStyle[] styles) {
+        switch (cell.getCellType()) {
+            case STRING: {
+                int width = 0;
+                for (String line : cell.getStringCellValue().split("\n")) width = Math.max(width, line.length());
+                return width;
+            }
+            case NUMERIC:
+                if (styles != null && cell.getCellStyle().getIndex() == styles[0].getIndex()) return DATE_FORMAT.length();
+                if (styles != null && cell.getCellStyle().getIndex() == styles[1].getIndex()) return TIMESTAMP_FORMAT.length();
+                return NumberToTextConverter.toText(cell.getNumericCellValue()).length();
+            case BOOLEAN:
+                return 5;
+            default:
+                return 0;
         }
     }
+
+    private boolean isTextColumn(int sqlType) {
+        switch (sqlType) {
+            case Types.CHAR:
+            case Types.VARCHAR:
+            case Types.LONGVARCHAR:
+            case Types.NCHAR:
+            case Types.NVARCHAR:
+            case Types.LONGNVARCHAR:
+            case Types.CLOB:
+            case Types.NCLOB:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    // Dynamically typed sources (e.g. SQLite) may return any object for a declared type, so the object decides
+    private void writeValue(Cell cell, Object value, ResultSet resultSet, int columnIndex, CellStyle[] styles) throws SQLException {
+        if (value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            cell.setCellValue(((Number) value).intValue());
+        } else if (value instanceof Long) {
+            long number = (Long) value;
+            if (Math.abs(number) <= MAX_EXACT_INTEGER) cell.setCellValue(number);
+            else cell.setCellValue(Long.toString(number));
+        } else if (value instanceof Double || value instanceof Float) {
+            double number = ((Number) value).doubleValue();
+            if (Double.isFinite(number)) cell.setCellValue(number);
+            else cell.setCellValue(resultSet.getString(columnIndex));
+        } else if (value instanceof BigDecimal) {
+            BigDecimal number = (BigDecimal) value;
+            if (number.precision() <= MAX_NUMERIC_PRECISION) cell.setCellValue(number.doubleValue());
+            else cell.setCellValue(number.toPlainString());
+        } else if (value instanceof BigInteger) {
+            BigInteger number = (BigInteger) value;
+            if (number.abs().compareTo(BigInteger.valueOf(MAX_EXACT_INTEGER)) <= 0) cell.setCellValue(number.doubleValue());
+            else cell.setCellValue(number.toString());
+        } else if (value instanceof Boolean) {
+            cell.setCellValue((Boolean) value);
+        } else if (value instanceof Timestamp) {
+            cell.setCellValue(((Timestamp) value).toLocalDateTime());
+            cell.setCellStyle(styles[1]);
+        } else if (value instanceof Date) {
+            cell.setCellValue(((Date) value).toLocalDate());
+            cell.setCellStyle(styles[0]);
+        } else if (value instanceof LocalDateTime) {
+            cell.setCellValue((LocalDateTime) value);
+            cell.setCellStyle(styles[1]);
+        } else if (value instanceof LocalDate) {
+            cell.setCellValue((LocalDate) value);
+            cell.setCellStyle(styles[0]);
+        } else if (value instanceof String) {
+            cell.setCellValue((String) value);
+        } else {
+            //times, intervals, arrays, binaries and vendor types are written as the driver renders them
+            cell.setCellValue(resultSet.getString(columnIndex));
+        }
+    }
+
+    // One date and one timestamp style per workbook, a style per cell would exhaust the workbook limit
+    private CellStyle[] createDateStyles(Workbook workbook) {
+        CellStyle dateStyle = workbook.createCellStyle();
+        dateStyle.setDataFormat(workbook.getCreationHelper().createDataFormat().getFormat(DATE_FORMAT));
+        CellStyle timestampStyle = workbook.createCellStyle();
+        timestampStyle.setDataFormat(workbook.getCreationHelper().createDataFormat().getFormat(TIMESTAMP_FORMAT));
+        return new CellStyle[]{dateStyle, timestampStyle};
+    }
 }
@@ -0,0 +1,24 @@
+package com.valdisdot.sqlexecutor.executor.writer.provider;
+
+import com.valdisdot.sqlexecutor.configuration.ApplicationConfig;
+import com.valdisdot.sqlexecutor.executor.database.DatabaseManager;
+import com.valdisdot.sqlexecutor.executor.writer.ArrowResultWriter;
+import com.valdisdot.sqlexecutor.executor.writer.ResultWriter;
+import com.valdisdot.sqlexecutor.executor.writer.ResultWriterProvider;
+
+public class ArrowResultWriterProvider implements ResultWriterProvider {
+    @Override
+    public String getOutputFormat() {
+        return "arrow";
+    }
+
+    @Override
+    public ResultWriter createResultWriter(ApplicationConfig applicationConfig, DatabaseManager databaseManager) {
+        return new ArrowResultWriter(
+                applicationConfig.getOutputDirectory(),
+                applicationConfig.getUniqueSuffixSupplier(),
+                applicationConfig.shouldWriteArrowFileFormat(),
+                applicationConfig.getColumnarBatchSize()
+        );
+    }
+}
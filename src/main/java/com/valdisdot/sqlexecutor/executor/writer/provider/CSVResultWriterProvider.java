@@ -0,0 +1,30 @@
+package com.valdisdot.sqlexecutor.executor.writer.provider;
+
+import com.valdisdot.sqlexecutor.configuration.ApplicationConfig;
+import com.valdisdot.sqlexecutor.executor.database.DatabaseManager;
+import com.valdisdot.sqlexecutor.executor.writer.CSVResultWriter;
+import com.valdisdot.sqlexecutor.executor.writer.ResultWriter;
+import com.valdisdot.sqlexecutor.executor.writer.ResultWriterProvider;
+
+public class CSVResultWriterProvider implements ResultWriterProvider {
+    @Override
+    public String getOutputFormat() {
+        return "csv";
+    }
+
+    @Override
+    public ResultWriter createResultWriter(ApplicationConfig applicationConfig, DatabaseManager databaseManager) {
+        return new CSVResultWriter(
+                applicationConfig.getOutputDirectory(),
+                applicationConfig.getUniqueSuffixSupplier(),
+                getDelimiter(),
+                applicationConfig.getCSVCharset(),
+                applicationConfig.shouldQuoteAllCSVValues(),
+                CSVResultWriter.Compression.valueOf(applicationConfig.getCSVCompression().toUpperCase())
+        );
+    }
+
+    protected char getDelimiter() {
+        return ',';
+    }
+}
@@ -0,0 +1,26 @@
+package com.valdisdot.sqlexecutor.executor.writer.provider;
+
+import com.valdisdot.sqlexecutor.configuration.ApplicationConfig;
+import com.valdisdot.sqlexecutor.executor.database.DatabaseManager;
+import com.valdisdot.sqlexecutor.executor.writer.ParquetResultWriter;
+import com.valdisdot.sqlexecutor.executor.writer.ResultWriter;
+import com.valdisdot.sqlexecutor.executor.writer.ResultWriterProvider;
+
+public class ParquetResultWriterProvider implements ResultWriterProvider {
+    @Override
+    public String getOutputFormat() {
+        return "parquet";
+    }
+
+    @Override
+    public ResultWriter createResultWriter(ApplicationConfig applicationConfig, DatabaseManager databaseManager) {
+        return new ParquetResultWriter(
+                applicationConfig.getOutputDirectory(),
+                applicationConfig.getUniqueSuffixSupplier(),
+                applicationConfig.getParquetRowGroupSize(),
+                applicationConfig.getParquetDictionarySize(),
+                applicationConfig.shouldCompressParquet(),
+                applicationConfig.getColumnarBatchSize()
+        );
+    }
+}
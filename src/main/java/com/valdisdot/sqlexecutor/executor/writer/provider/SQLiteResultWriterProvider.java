@@ -0,0 +1,28 @@
+package com.valdisdot.sqlexecutor.executor.writer.provider;
+
+import com.valdisdot.sqlexecutor.configuration.ApplicationConfig;
+import com.valdisdot.sqlexecutor.executor.database.DatabaseManager;
+import com.valdisdot.sqlexecutor.executor.writer.ResultWriter;
+import com.valdisdot.sqlexecutor.executor.writer.ResultWriterProvider;
+import com.valdisdot.sqlexecutor.executor.writer.SQLiteResultWriter;
+
+import java.util.Map;
+
+public class SQLiteResultWriterProvider implements ResultWriterProvider {
+    @Override
+    public String getOutputFormat() {
+        return "sqlite";
+    }
+
+    @Override
+    public ResultWriter createResultWriter(ApplicationConfig applicationConfig, DatabaseManager databaseManager) {
+        //the output is kept by the user, it gets none of the pragmas which trade the durability of the disposable staging databases for speed
+        return new SQLiteResultWriter(
+                applicationConfig.getOutputDirectory(),
+                applicationConfig.getUniqueSuffixSupplier(),
+                databaseManager,
+                applicationConfig.getStagingBatchSize(),
+                Map.of()
+        );
+    }
+}
@@ -0,0 +1,13 @@
+package com.valdisdot.sqlexecutor.executor.writer.provider;
+
+public class TSVResultWriterProvider extends CSVResultWriterProvider {
+    @Override
+    public String getOutputFormat() {
+        return "tsv";
+    }
+
+    @Override
+    protected char getDelimiter() {
+        return '\t';
+    }
+}
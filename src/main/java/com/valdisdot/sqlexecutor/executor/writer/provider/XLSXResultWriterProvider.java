@@ -0,0 +1,26 @@
+package com.valdisdot.sqlexecutor.executor.writer.provider;
+
+import com.valdisdot.sqlexecutor.configuration.ApplicationConfig;
+import com.valdisdot.sqlexecutor.executor.database.DatabaseManager;
+import com.valdisdot.sqlexecutor.executor.writer.ResultWriter;
+import com.valdisdot.sqlexecutor.executor.writer.ResultWriterProvider;
+import com.valdisdot.sqlexecutor.executor.writer.XLSXResultWriter;
+
+public class XLSXResultWriterProvider implements ResultWriterProvider {
+    @Override
+    public String getOutputFormat() {
+        return "xlsx";
+    }
+
+    @Override
+    public ResultWriter createResultWriter(ApplicationConfig applicationConfig, DatabaseManager databaseManager) {
+        return new XLSXResultWriter(
+                applicationConfig.getOutputDirectory(),
+                applicationConfig.getUniqueSuffixSupplier(),
+                applicationConfig.shouldStreamXLSX(),
+                applicationConfig.getXLSXStreamingRowWindow(),
+                applicationConfig.getXLSXAutoSizeSampleRows(),
+                applicationConfig.getXLSXMaxRowsPerSheet()
+        );
+    }
+}
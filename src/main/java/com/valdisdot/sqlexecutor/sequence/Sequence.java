@@ -12,6 +12,9 @@ public class Sequence extends BaseSequence {
     /** Name of the database associated with the sequence. */
     private String databaseName;
 
+    /** Amount of rows fetched from the database per round trip, {@code null} for the connection default. */
+    private Integer fetchSize;
+
     /**
      * Sets the identifier for the database connection.
      *
@@ -50,11 +53,31 @@ public class Sequence extends BaseSequence {
         return databaseName;
     }
 
+    /**
+     * Sets the amount of rows fetched from the database per round trip.
+     *
+     * @param fetchSize the fetch size to set;
+     *                  if {@code null}, the fetch size of the connection will be used
+     */
+    public void setFetchSize(Integer fetchSize) {
+        this.fetchSize = fetchSize;
+    }
+
+    /**
+     * Retrieves the amount of rows fetched from the database per round trip.
+     *
+     * @return the fetch size, or {@code null} if not set
+     */
+    public Integer getFetchSize() {
+        return fetchSize;
+    }
+
     @Override
     public String toString() {
         return "Sequence{" +
                 "connectionIdentifier='" + connectionIdentifier + '\'' +
                 ", databaseName='" + databaseName + '\'' +
+                ", fetchSize=" + fetchSize +
                 ", resultTable='" + resultTable + '\'' +
                 ", body=" + body +
                 '}';
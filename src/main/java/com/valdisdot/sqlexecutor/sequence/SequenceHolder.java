@@ -18,6 +18,9 @@ public class SequenceHolder {
     /** A set of identifiers (tags) associated with the sequence. */
     private final Set<String> identifiers;
 
+    /** The output format of the result, e.g. "xlsx" or "csv", {@code null} for the default one. */
+    private String outputFormat;
+
     /** The snippet body, representing special variables or parts of the script. */
     private String snippetBody;
 
@@ -98,6 +101,24 @@ public class SequenceHolder {
         return identifiers;
     }
 
+    /**
+     * Retrieves the output format of the result.
+     *
+     * @return the output format, or {@code null} if the default one is used
+     */
+    public String getOutputFormat() {
+        return outputFormat;
+    }
+
+    /**
+     * Sets the output format of the result.
+     *
+     * @param outputFormat the output format, {@code null} for the default one
+     */
+    public void setOutputFormat(String outputFormat) {
+        this.outputFormat = outputFormat;
+    }
+
     /**
      * Checks if the sequence holder contains a snippet body.
      *
@@ -167,6 +188,7 @@ public class SequenceHolder {
                 "origin=" + origin +
                 ", name='" + name + '\'' +
                 ", identifiers=" + identifiers +
+                ", outputFormat='" + outputFormat + '\'' +
                 ", snippetBody='" + snippetBody + '\'' +
                 ", sequences=" + sequences +
                 ", postSequence=" + postSequence +
@@ -15,9 +15,11 @@ public class SequenceQueue {
     private LinkedList<String> databases = new LinkedList<>();
     private LinkedList<String> sequences = new LinkedList<>();
     private LinkedList<String> resultIdentifiers = new LinkedList<>();
+    private LinkedList<Integer> fetchSizes = new LinkedList<>();
     private String postSequenceBody;
     private String postSequenceResultIdentifier;
     private String sequenceName;
+    private String outputFormat;
 
     /**
      * Constructs a new {@code SequenceQueue} with the specified sequence name.
@@ -37,10 +39,24 @@ public class SequenceQueue {
      * @param resultIdentifier the result identifier associated with the sequence.
      */
     public void addSequence(String connection, String database, String sequence, String resultIdentifier) {
+        addSequence(connection, database, sequence, resultIdentifier, null);
+    }
+
+    /**
+     * Adds a sequence to the queue with its associated metadata and fetch size.
+     *
+     * @param connection       the connection identifier for the sequence.
+     * @param database         the database name for the sequence.
+     * @param sequence         the SQL body of the sequence.
+     * @param resultIdentifier the result identifier associated with the sequence.
+     * @param fetchSize        the fetch size for the sequence, {@code null} for the connection default.
+     */
+    public void addSequence(String connection, String database, String sequence, String resultIdentifier, Integer fetchSize) {
         connections.add(connection);
         databases.add(database);
         sequences.add(sequence);
         resultIdentifiers.add(resultIdentifier);
+        fetchSizes.add(fetchSize);
     }
 
     /**
@@ -54,6 +70,24 @@ public class SequenceQueue {
         this.postSequenceResultIdentifier = resultIdentifier;
     }
 
+    /**
+     * Gets the output format of the result.
+     *
+     * @return the output format, or {@code null} if the default one is used.
+     */
+    public String getOutputFormat() {
+        return outputFormat;
+    }
+
+    /**
+     * Sets the output format of the result.
+     *
+     * @param outputFormat the output format, {@code null} for the default one.
+     */
+    public void setOutputFormat(String outputFormat) {
+        this.outputFormat = outputFormat;
+    }
+
     /**
      * Gets the name of the sequence.
      *
@@ -72,7 +106,8 @@ public class SequenceQueue {
         return !connections.isEmpty() &&
                 connections.size() == databases.size() &&
                 connections.size() == sequences.size() &&
-                connections.size() == resultIdentifiers.size();
+                connections.size() == resultIdentifiers.size() &&
+                connections.size() == fetchSizes.size();
     }
 
     /**
@@ -111,6 +146,15 @@ public class SequenceQueue {
         return resultIdentifiers.poll();
     }
 
+    /**
+     * Retrieves and removes the next fetch size from the queue.
+     *
+     * @return the next fetch size, or {@code null} if the connection default should be used.
+     */
+    public Integer nextFetchSize() {
+        return fetchSizes.poll();
+    }
+
     /**
      * Checks if there is a post-sequence present.
      *
@@ -155,7 +199,9 @@ public class SequenceQueue {
                         .append("sequence: #").append(i + 1).append("\n")
                         .append("connection: ").append(connections.get(i)).append("\n")
                         .append("database: ").append(databases.get(i)).append("\n")
-                        .append("result identifier: ").append(resultIdentifiers.get(i)).append("\n")
+                        .append("result identifier: ").append(resultIdentifiers.get(i)).append("\n");
+                if (fetchSizes.get(i) != null) builder.append("fetch size: ").append(fetchSizes.get(i)).append("\n");
+                builder
                         .append("*/\n")
                         .append(sequences.get(i).trim())
                         .append("\n\n");
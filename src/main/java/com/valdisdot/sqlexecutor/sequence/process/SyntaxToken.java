@@ -42,6 +42,11 @@ public enum SyntaxToken {
      */
     IDENTIFIERS("identifiers"),
 
+    /**
+     * Token marking the optional output format variable within the header.
+     */
+    OUTPUT("output"),
+
     /**
      * Token marking the snippet section.
      */
@@ -67,6 +72,11 @@ public enum SyntaxToken {
      */
     RESULT_TABLE("result-table"),
 
+    /**
+     * Token marking the optional fetch size variable within a sequence.
+     */
+    FETCH_SIZE("fetch-size"),
+
     /**
      * Token marking the start of the post-sequence section.
      */
@@ -77,56 +87,12 @@ public enum SyntaxToken {
      */
     END("end"),
 
-    // Patterns for parsing sections
-    /**
-     * Pattern for capturing the header section.
-     * Matches everything between "## head" and "## end".
-     */
-    SEQUENCE_HEAD_TOKEN("(?i)" + TOKEN.token + "\\s*" + HEAD.token + "(.*?)" + TOKEN.token + "\\s*" + END.token),
-
+    // Patterns for parsing
     /**
-     * Pattern for capturing the snippet section.
-     * Matches everything between "## snippets" and "## end".
+     * Pattern for capturing a directive line, e.g. "## sequence" or "## connection: value".
+     * Captures the keyword and, if a separator is present, the value.
      */
-    SNIPPETS_TOKEN("(?is)" + TOKEN.token + "\\s*" + SNIPPETS.token + "\\s*(.*?)" + TOKEN.token + "\\s*" + END.token),
-
-    /**
-     * Pattern for capturing a regular sequence section.
-     * Matches everything between "## sequence" and "## end".
-     */
-    REGULAR_SEQUENCE_TOKEN("(?i)" + TOKEN.token + "\\s*" + REGULAR_SEQUENCE.token + "(.*?)" + TOKEN.token + "\\s*" + END.token),
-
-    /**
-     * Pattern for capturing the post-sequence section.
-     * Matches everything between "## post-sequence" and "## end".
-     */
-    POST_SEQUENCE_TOKEN("(?i)" + TOKEN.token + "\\s*" + POST_SEQUENCE.token + "(.*?)" + TOKEN.token + "\\s*" + END.token),
-
-    // Patterns for specific variables
-    /**
-     * Pattern for capturing the name variable within the header.
-     */
-    NAME_TOKEN("(?i)" + TOKEN.token + "\\s*" + NAME.token + SEPARATOR.token + "\\s*(.*?)(?:\\r?\\n|$)"),
-
-    /**
-     * Pattern for capturing the identifiers variable within the header.
-     */
-    IDENTIFIERS_TOKEN("(?i)" + TOKEN.token + "\\s*" + IDENTIFIERS.token + SEPARATOR.token + "\\s*(.*?)(?:\\r?\\n|$)"),
-
-    /**
-     * Pattern for capturing the connection variable within a sequence.
-     */
-    CONNECTION_TOKEN("(?i)" + TOKEN.token + "\\s*" + CONNECTION.token + SEPARATOR.token + "\\s*(.*?)(?:\\r?\\n|$)"),
-
-    /**
-     * Pattern for capturing the database variable within a sequence.
-     */
-    DATABASE_TOKEN("(?i)" + TOKEN.token + "\\s*" + DATABASE.token + SEPARATOR.token + "\\s*(.*?)(?:\\r?\\n|$)"),
-
-    /**
-     * Pattern for capturing the result table variable within a sequence or post-sequence.
-     */
-    RESULT_TABLE_TOKEN("(?i)" + TOKEN.token + "\\s*" + RESULT_TABLE.token + SEPARATOR.token + "\\s*(.*?)(?:\\r?\\n|$)"),
+    DIRECTIVE_TOKEN("^\\s*" + TOKEN.token + "\\s*([\\w-]+)\\s*(?:(" + SEPARATOR.token + ")\\s*(.*?))?\\s*$"),
 
     /**
      * Pattern for matching the prefix of a snippet variable. Default is "${".
@@ -142,13 +108,7 @@ public enum SyntaxToken {
     /**
      * Token indicating the presence of a snippet variable.
      */
-    SNIPPET_VARIABLE_ALL("(?s).*\\$\\{.*\\}.*"),
-
-    /**
-     * Token capturing lines that are not prefixed with a token identifier (e.g., ##).
-     * Matches all non-tokenized lines in a sequence script.
-     */
-    LINES_TOKEN("(?m)^(?!##).*?(?:\\r?\\n|$)");
+    SNIPPET_VARIABLE_ALL("(?s).*\\$\\{.*\\}.*");
 
     private final String token;
 
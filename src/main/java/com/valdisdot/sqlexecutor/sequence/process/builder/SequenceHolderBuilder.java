@@ -3,12 +3,15 @@ package com.valdisdot.sqlexecutor.sequence.process.builder;
 import com.valdisdot.sqlexecutor.sequence.PostSequence;
 import com.valdisdot.sqlexecutor.sequence.Sequence;
 import com.valdisdot.sqlexecutor.sequence.SequenceHolder;
+import com.valdisdot.sqlexecutor.sequence.process.SyntaxToken;
 
 import java.io.File;
 import java.util.Collection;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Set;
 
 /**
  * A builder class for constructing {@link SequenceHolder} instances and their parts, including sequences and post-sequences.
@@ -84,6 +87,28 @@ public class SequenceHolderBuilder {
         return this;
     }
 
+    /**
+     * Sets the output format of the result, a list of formats writes the result to each of them at once.
+     *
+     * @param outputFormat the output format, e.g. "xlsx" or "xlsx, csv", {@code null} for the default one
+     * @return the builder instance for method chaining
+     * @throws SequenceBuildingException if an output format of the list is not a single word
+     */
+    public SequenceHolderBuilder outputFormat(String outputFormat) throws SequenceBuildingException {
+        if (outputFormat == null) {
+            instance.setOutputFormat(null);
+            return this;
+        }
+        Set<String> outputFormats = new LinkedHashSet<>();
+        for (String format : outputFormat.split(SyntaxToken.LIST_SEPARATOR.token())) {
+            if (!format.trim().matches("[A-Za-z0-9_-]+"))
+                throw new SequenceBuildingException("Sequence holder output format is not a single word");
+            outputFormats.add(format.trim().toLowerCase());
+        }
+        instance.setOutputFormat(String.join(SyntaxToken.LIST_SEPARATOR.token(), outputFormats));
+        return this;
+    }
+
     /**
      * Sets the snippet body for the sequence holder.
      *
@@ -190,6 +215,20 @@ public class SequenceHolderBuilder {
             return this;
         }
 
+        /**
+         * Sets the fetch size for the sequence.
+         *
+         * @param fetchSize the fetch size to set, {@code null} for the connection default
+         * @return the builder instance for method chaining
+         * @throws SequenceBuildingException if the fetch size is negative
+         */
+        public SequenceBuilder fetchSize(Integer fetchSize) throws SequenceBuildingException {
+            if (fetchSize != null && fetchSize < 0)
+                throw new SequenceBuildingException("Sequence fetch size is negative");
+            instance.setFetchSize(fetchSize);
+            return this;
+        }
+
         /**
          * Adds a line to the sequence body.
          *
@@ -0,0 +1,339 @@
+package com.valdisdot.sqlexecutor.sequence.process.cache;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.valdisdot.sqlexecutor.sequence.Sequence;
+import com.valdisdot.sqlexecutor.sequence.SequenceHolder;
+import com.valdisdot.sqlexecutor.sequence.process.builder.SequenceBuildingException;
+import com.valdisdot.sqlexecutor.sequence.process.builder.SequenceHolderBuilder;
+import com.valdisdot.sqlexecutor.sequence.process.parser.SequenceParser;
+import com.valdisdot.sqlexecutor.sequence.process.parser.SequenceParserException;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Caches parsed {@link SequenceHolder}s, so reloading of an input directory parses only the changed files.
+ * <p>
+ * An entry is keyed by the absolute path of its file and is considered unchanged while the file keeps
+ * its size and modification time. Otherwise, the content hash (SHA-256) is compared, so a file which was only
+ * touched or checked out again is not parsed either. The cache may be persisted into a JSON file between runs.
+ * </p>
+ * <p>
+ * Files which can't be parsed are never cached, the parsing error is reported on every request.
+ * </p>
+ */
+public class SequenceHolderCache {
+    /**
+     * Version of the persisted format, a store of another version is ignored.
+     */
+    private static final int FORMAT_VERSION = 1;
+
+    /**
+     * A file modified this close to its verification may change again within the same timestamp,
+     * such entries are verified by the content hash until the interval is over.
+     */
+    private static final long RACY_INTERVAL_MILLIS = 2000;
+
+    private final SequenceParser sequenceParser;
+    private final File storeFile;
+    private final ObjectMapper mapper;
+    private final Map<String, Entry> entries;
+
+    /**
+     * Constructs an in-memory {@code SequenceHolderCache}.
+     *
+     * @param sequenceParser the parser for the files which are absent or changed
+     */
+    public SequenceHolderCache(SequenceParser sequenceParser) {
+        this(sequenceParser, null);
+    }
+
+    /**
+     * Constructs a {@code SequenceHolderCache} which can be persisted into the store file.
+     *
+     * @param sequenceParser the parser for the files which are absent or changed
+     * @param storeFile      the file to persist the cache into, {@code null} for an in-memory cache
+     */
+    public SequenceHolderCache(SequenceParser sequenceParser, File storeFile) {
+        this.sequenceParser = sequenceParser;
+        this.storeFile = storeFile;
+        this.mapper = new ObjectMapper();
+        this.entries = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Returns the {@link SequenceHolder} of the file, parsing the file only if it is not cached or has changed.
+     *
+     * @param file the file containing the sequence script
+     * @return a {@link SequenceHolder} of the current file content
+     * @throws SequenceParserException if the file can't be read or parsed
+     */
+    public SequenceHolder getSequenceHolder(File file) throws SequenceParserException {
+        String key = file.getAbsolutePath();
+        long size;
+        long lastModified;
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(file.toPath(), BasicFileAttributes.class);
+            size = attributes.size();
+            lastModified = attributes.lastModifiedTime().toMillis();
+        } catch (IOException e) {
+            entries.remove(key);
+            throw new SequenceParserException("Error during reading the file", file, e);
+        }
+        Entry entry = entries.get(key);
+        if (entry != null && entry.size == size && entry.lastModified == lastModified && !entry.isRacy()) {
+            SequenceHolder holder = entry.getSequenceHolder(file);
+            if (holder != null) return holder;
+        }
+
+        byte[] content;
+        try {
+            content = Files.readAllBytes(file.toPath());
+        } catch (IOException e) {
+            entries.remove(key);
+            throw new SequenceParserException("Error during reading the file", file, e);
+        }
+        String hash = hash(content);
+        if (entry != null && entry.hash.equals(hash)) {
+            SequenceHolder holder = entry.getSequenceHolder(file);
+            if (holder != null) {
+                entries.put(key, new Entry(size, lastModified, hash, holder, null));
+                return holder;
+            }
+        }
+
+        try {
+            SequenceHolder holder = sequenceParser.parseSequenceHolder(
+                    StandardCharsets.UTF_8.newDecoder().decode(ByteBuffer.wrap(content)).toString(),
+                    file
+            );
+            entries.put(key, new Entry(size, lastModified, hash, holder, null));
+            return holder;
+        } catch (IOException e) {
+            entries.remove(key);
+            throw new SequenceParserException("Error during reading the file", file, e);
+        } catch (SequenceParserException e) {
+            entries.remove(key);
+            throw e;
+        }
+    }
+
+    /**
+     * Removes the file from the cache, e.g. after the file has been rewritten.
+     *
+     * @param file the file to remove
+     */
+    public void invalidate(File file) {
+        entries.remove(file.getAbsolutePath());
+    }
+
+    /**
+     * Removes all files from the cache except the given ones, e.g. after the input directory has been reloaded.
+     *
+     * @param files the files to keep
+     */
+    public void retainAll(Collection<File> files) {
+        Set<String> keys = new HashSet<>(files.size());
+        for (File file : files) keys.add(file.getAbsolutePath());
+        entries.keySet().retainAll(keys);
+    }
+
+    /**
+     * Restores the cache from its store file, if the store file is set and exists.
+     *
+     * @throws SequenceHolderCacheException if the store file can't be read
+     */
+    public void load() throws SequenceHolderCacheException {
+        if (storeFile == null || !storeFile.isFile()) return;
+        JsonNode root;
+        try {
+            root = mapper.readTree(storeFile);
+        } catch (IOException e) {
+            throw new SequenceHolderCacheException("Error during reading the sequence holder cache, file: " + storeFile, e);
+        }
+        if (root == null || root.path("version").asInt() != FORMAT_VERSION) return;
+        for (JsonNode node : root.path("entries")) {
+            String path = node.path("path").asText(null);
+            JsonNode holder = node.get("holder");
+            if (path == null || holder == null || !node.hasNonNull("hash")) continue;
+            entries.putIfAbsent(path, new Entry(
+                    node.path("size").asLong(-1),
+                    node.path("lastModified").asLong(-1),
+                    node.get("hash").asText(),
+                    null,
+                    holder
+            ));
+        }
+    }
+
+    /**
+     * Persists the cache into its store file, if the store file is set.
+     *
+     * @throws SequenceHolderCacheException if the store file can't be written
+     */
+    public synchronized void save() throws SequenceHolderCacheException {
+        if (storeFile == null) return;
+        ObjectNode root = mapper.createObjectNode();
+        root.put("version", FORMAT_VERSION);
+        ArrayNode array = root.putArray("entries");
+        for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+            array.addObject()
+                    .put("path", entry.getKey())
+                    .put("size", entry.getValue().size)
+                    .put("lastModified", entry.getValue().lastModified)
+                    .put("hash", entry.getValue().hash)
+                    .set("holder", entry.getValue().toNode(mapper));
+        }
+        try {
+            File parent = storeFile.getAbsoluteFile().getParentFile();
+            if (parent != null) parent.mkdirs();
+            //write aside and move, a reader never sees a partially written store
+            File temporaryFile = new File(storeFile.getAbsolutePath() + ".tmp");
+            mapper.writeValue(temporaryFile, root);
+            Files.move(temporaryFile.toPath(), storeFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            throw new SequenceHolderCacheException("Error during writing the sequence holder cache, file: " + storeFile, e);
+        }
+    }
+
+    /**
+     * Calculates the SHA-256 hash of the content.
+     *
+     * @param content the file content
+     * @return the hex representation of the hash
+     */
+    private String hash(byte[] content) {
+        try {
+            StringBuilder builder = new StringBuilder(64);
+            for (byte b : MessageDigest.getInstance("SHA-256").digest(content)) builder.append(String.format("%02x", b));
+            return builder.toString();
+        } catch (NoSuchAlgorithmException e) {
+            //every Java platform is required to support SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * A cached file state with its parsed holder or, if restored from the store, with the holder snapshot.
+     */
+    private static class Entry {
+        private final long size;
+        private final long lastModified;
+        private final String hash;
+        private final long verifiedAt;
+        private volatile SequenceHolder holder;
+        private volatile JsonNode snapshot;
+
+        private Entry(long size, long lastModified, String hash, SequenceHolder holder, JsonNode snapshot) {
+            this.size = size;
+            this.lastModified = lastModified;
+            this.hash = hash;
+            this.holder = holder;
+            this.snapshot = snapshot;
+            this.verifiedAt = snapshot == null ? System.currentTimeMillis() : Long.MAX_VALUE;
+        }
+
+        private boolean isRacy() {
+            return lastModified + RACY_INTERVAL_MILLIS >= verifiedAt;
+        }
+
+        /**
+         * Returns the holder, building it from the snapshot on the first request.
+         *
+         * @param origin the file to set as the origin of a restored holder
+         * @return the holder, or {@code null} if the snapshot can't be restored
+         */
+        private SequenceHolder getSequenceHolder(File origin) {
+            if (holder == null && snapshot != null) {
+                try {
+                    holder = fromNode(snapshot, origin);
+                    snapshot = null;
+                } catch (SequenceBuildingException | RuntimeException e) {
+                    return null;
+                }
+            }
+            return holder;
+        }
+
+        private JsonNode toNode(ObjectMapper mapper) {
+            if (holder == null) return snapshot;
+            ObjectNode node = mapper.createObjectNode();
+            node.put("name", holder.getName());
+            ArrayNode identifiers = node.putArray("identifiers");
+            holder.getIdentifiers().forEach(identifiers::add);
+            if (holder.getOutputFormat() != null) node.put("outputFormat", holder.getOutputFormat());
+            if (holder.hasSnippetBody()) node.put("snippetBody", holder.getSnippetBody());
+            ArrayNode sequences = node.putArray("sequences");
+            for (Sequence sequence : holder.getSequences()) {
+                ObjectNode sequenceNode = sequences.addObject()
+                        .put("connection", sequence.getConnectionIdentifier())
+                        .put("database", sequence.getDatabaseName())
+                        .put("resultTable", sequence.getResultTable())
+                        .put("body", sequence.getBody());
+                if (sequence.getFetchSize() != null) sequenceNode.put("fetchSize", sequence.getFetchSize());
+            }
+            if (holder.hasPostSequence()) {
+                node.putObject("postSequence")
+                        .put("resultTable", holder.getPostSequence().getResultTable())
+                        .put("body", holder.getPostSequence().getBody());
+            }
+            return node;
+        }
+
+        private static SequenceHolder fromNode(JsonNode node, File origin) throws SequenceBuildingException {
+            SequenceHolderBuilder builder = SequenceHolderBuilder.builder()
+                    .origin(origin)
+                    .name(node.path("name").asText(null));
+            for (JsonNode identifier : node.path("identifiers")) builder.identifier(identifier.asText());
+            builder.outputFormat(node.path("outputFormat").asText(null));
+            if (node.hasNonNull("snippetBody")) builder.snippet(node.get("snippetBody").asText());
+            for (JsonNode sequence : node.path("sequences")) {
+                SequenceHolderBuilder.SequenceBuilder sequenceBuilder = builder.sequenceBuilder()
+                        .connectionIdentifier(sequence.path("connection").asText(null))
+                        .databaseName(sequence.path("database").asText(null))
+                        .resultTable(sequence.path("resultTable").asText(null))
+                        .fetchSize(sequence.hasNonNull("fetchSize") ? sequence.get("fetchSize").asInt() : null);
+                for (Iterator<String> lines = bodyLines(sequence.path("body").asText("")); lines.hasNext(); )
+                    sequenceBuilder.bodyLine(lines.next());
+                sequenceBuilder.applySequence();
+            }
+            JsonNode postSequence = node.get("postSequence");
+            if (postSequence != null) {
+                SequenceHolderBuilder.PostSequenceBuilder postSequenceBuilder = builder.postSequenceBuilder()
+                        .resultTable(postSequence.path("resultTable").asText(null));
+                for (Iterator<String> lines = bodyLines(postSequence.path("body").asText("")); lines.hasNext(); )
+                    postSequenceBuilder.bodyLine(lines.next());
+                postSequenceBuilder.applyPostSequence();
+            }
+            return builder.build();
+        }
+
+        /**
+         * Splits a body back into the lines it was built from, every line of a body ends with a line break.
+         *
+         * @param body the body of a sequence or post-sequence
+         * @return an iterator over the body lines
+         */
+        private static Iterator<String> bodyLines(String body) {
+            String trimmed = body.endsWith("\n") ? body.substring(0, body.length() - 1) : body;
+            return Arrays.asList(trimmed.split("\n", -1)).iterator();
+        }
+    }
+}
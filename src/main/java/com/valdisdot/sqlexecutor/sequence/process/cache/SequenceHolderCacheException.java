@@ -0,0 +1,20 @@
+package com.valdisdot.sqlexecutor.sequence.process.cache;
+
+/**
+ * Exception thrown when the {@link SequenceHolderCache} can't be persisted or restored.
+ *
+ * <p>This exception never hides a parsing error, those are reported as
+ * {@link com.valdisdot.sqlexecutor.sequence.process.parser.SequenceParserException}.</p>
+ */
+public class SequenceHolderCacheException extends Exception {
+
+    /**
+     * Constructs a new {@code SequenceHolderCacheException} with the specified detail message and cause.
+     *
+     * @param message the detail message explaining the reason for the exception.
+     * @param cause   the underlying cause of the exception.
+     */
+    public SequenceHolderCacheException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
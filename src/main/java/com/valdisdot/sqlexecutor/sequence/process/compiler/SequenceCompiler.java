@@ -34,12 +34,14 @@ public class SequenceCompiler {
     public SequenceQueue compileSequenceHolder(SequenceHolder sequenceHolder) throws SequenceCompilerException {
         Map<String, String> snippets = sequenceHolder.hasSnippetBody() ? compileSnippetBody(sequenceHolder.getSnippetBody()) : Map.of();
         SequenceQueue queue = new SequenceQueue(sequenceHolder.getName());
+        queue.setOutputFormat(sequenceHolder.getOutputFormat());
         for (Sequence sequence : sequenceHolder.getSequences()) {
             queue.addSequence(
                     sequence.getConnectionIdentifier(),
                     sequence.getDatabaseName(),
                     compileSequenceBody(sequence.getBody(), snippets),
-                    sequence.getResultTable()
+                    sequence.getResultTable(),
+                    sequence.getFetchSize()
             );
         }
         if (sequenceHolder.hasPostSequence()) {
@@ -0,0 +1,88 @@
+package com.valdisdot.sqlexecutor.sequence.process.loader;
+
+import com.valdisdot.sqlexecutor.sequence.SequenceHolder;
+import com.valdisdot.sqlexecutor.sequence.process.cache.SequenceHolderCache;
+import com.valdisdot.sqlexecutor.sequence.process.cache.SequenceHolderCacheException;
+import com.valdisdot.sqlexecutor.sequence.process.compiler.SequenceCompiler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+
+/**
+ * Loads the sequence scripts of an input directory for the user interfaces.
+ * <p>
+ * The files are parsed (through the {@link SequenceHolderCache}) and validated by compiling on a bounded pool.
+ * The files which fail are left to the fallback of the caller, which is called sequentially on the calling thread,
+ * so it may prompt the user and retry. The cache keeps the loaded files only and is saved for the next start.
+ * </p>
+ */
+public class SequenceHolderLoader {
+    private final Logger logger;
+    private final SequenceHolderCache sequenceHolderCache;
+    private final SequenceCompiler sequenceCompiler;
+    private final int loadingThreads;
+
+    /**
+     * Constructs a {@code SequenceHolderLoader}.
+     *
+     * @param sequenceHolderCache the cache of the parsed files
+     * @param sequenceCompiler    the compiler which validates the parsed files
+     * @param loadingThreads      the maximum number of files loaded at the same time
+     */
+    public SequenceHolderLoader(SequenceHolderCache sequenceHolderCache, SequenceCompiler sequenceCompiler, int loadingThreads) {
+        this.logger = LoggerFactory.getLogger(this.getClass());
+        this.sequenceHolderCache = sequenceHolderCache;
+        this.sequenceCompiler = sequenceCompiler;
+        this.loadingThreads = Math.max(1, loadingThreads);
+    }
+
+    /**
+     * Loads the files, the files which can't be parsed or compiled are passed to the fallback.
+     *
+     * @param files    the files containing the sequence scripts
+     * @param fallback the loader of a failed file, returns {@code null} to skip the file
+     * @return the holders in the order of the files, {@code null} for a skipped file
+     */
+    public List<SequenceHolder> load(List<File> files, Function<File, SequenceHolder> fallback) {
+        List<Future<SequenceHolder>> preloadedHolders = new ArrayList<>(files.size());
+        ExecutorService loaders = Executors.newFixedThreadPool(Math.max(1, Math.min(files.size(), loadingThreads)));
+        try {
+            for (File file : files) {
+                preloadedHolders.add(loaders.submit(() -> {
+                    SequenceHolder holder = sequenceHolderCache.getSequenceHolder(file);
+                    sequenceCompiler.compileSequenceHolder(holder);
+                    return holder;
+                }));
+            }
+        } finally {
+            loaders.shutdown();
+        }
+        List<SequenceHolder> result = new ArrayList<>(files.size());
+        for (int i = 0; i < files.size(); i++) {
+            try {
+                result.add(preloadedHolders.get(i).get());
+            } catch (ExecutionException e) {
+                result.add(fallback.apply(files.get(i)));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                result.add(fallback.apply(files.get(i)));
+            }
+        }
+        //forget the removed files and keep the parsed ones for the next start
+        sequenceHolderCache.retainAll(files);
+        try {
+            sequenceHolderCache.save();
+        } catch (SequenceHolderCacheException e) {
+            logger.warn("The sequence holder cache has not been saved", e);
+        }
+        return result;
+    }
+}
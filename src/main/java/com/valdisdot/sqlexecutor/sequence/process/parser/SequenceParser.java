@@ -10,15 +10,28 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 /**
  * Parses a sequence script file or raw text to construct a {@link SequenceHolder} object.
  * Handles parsing of sequences, post-sequences, snippets, and associated metadata.
+ * <p>
+ * The script is read in a single pass, line by line: directive lines (see {@link SyntaxToken#DIRECTIVE_TOKEN})
+ * open and close the sections and carry their variables, the other lines of a sequence or post-sequence
+ * section form its body.
+ * </p>
  */
 public class SequenceParser {
+    /**
+     * Precompiled pattern for directive lines, shared by all parser instances.
+     */
+    private static final Pattern DIRECTIVE_PATTERN = Pattern.compile(SyntaxToken.DIRECTIVE_TOKEN.token());
+
     /**
      * Parses a {@link SequenceHolder} from a given file.
      *
@@ -45,16 +58,16 @@ public class SequenceParser {
     public SequenceHolder parseSequenceHolder(String rawText, File file) throws SequenceParserException {
         SequenceHolderBuilder builder = SequenceHolderBuilder.builder();
         try {
-            List<String> currentSections;
             List<String> currentSubsections;
-            String currentSection;
+            Section currentSection;
             SequenceHolderBuilder.SequenceBuilder currentSequenceBuilder;
             SequenceHolderBuilder.PostSequenceBuilder currentPostSequenceBuilder;
 
             builder.origin(file);
+            Map<SyntaxToken, List<Section>> sections = readSections(rawText, file);
 
-            // Extract the head section
-            currentSections = extractSections(rawText, Pattern.compile(SyntaxToken.SEQUENCE_HEAD_TOKEN.token(), Pattern.DOTALL), 1);
+            // Process the head section
+            List<Section> currentSections = sections.get(SyntaxToken.HEAD);
             if (currentSections.size() > 1) {
                 throw new SequenceParserException("More than one head section is present", file);
             } else if (currentSections.isEmpty()) {
@@ -63,41 +76,47 @@ public class SequenceParser {
             currentSection = currentSections.get(0);
 
             // Extract name
-            currentSections = extractSections(currentSection, Pattern.compile(SyntaxToken.NAME_TOKEN.token()), 1);
-            if (currentSections.size() > 1) {
+            currentSubsections = currentSection.variables(SyntaxToken.NAME);
+            if (currentSubsections.size() > 1) {
                 throw new SequenceParserException("More than one name variable is present", file);
-            } else if (currentSections.isEmpty()) {
+            } else if (currentSubsections.isEmpty()) {
                 throw new SequenceParserException("No name variable is present", file);
             }
-            builder.name(currentSections.get(0));
+            builder.name(currentSubsections.get(0));
 
             // Extract identifiers
-            currentSections = extractSections(currentSection, Pattern.compile(SyntaxToken.IDENTIFIERS_TOKEN.token()), 1);
-            for (String identifiers : currentSections) {
+            for (String identifiers : currentSection.variables(SyntaxToken.IDENTIFIERS)) {
                 for (String identifier : identifiers.split(SyntaxToken.LIST_SEPARATOR.token())) {
                     builder.identifier(identifier.trim());
                 }
             }
 
+            // Extract optional output format
+            currentSubsections = currentSection.variables(SyntaxToken.OUTPUT);
+            if (currentSubsections.size() > 1) {
+                throw new SequenceParserException("More than one output variable is present", file);
+            } else if (!currentSubsections.isEmpty()) {
+                builder.outputFormat(currentSubsections.get(0));
+            }
+
             // Process snippets
-            currentSections = extractSections(rawText, Pattern.compile(SyntaxToken.SNIPPETS_TOKEN.token()), 1);
+            currentSections = sections.get(SyntaxToken.SNIPPETS);
             if (!currentSections.isEmpty()) {
                 if (currentSections.size() > 1) {
                     throw new SequenceParserException("More than one snippet section is present", file);
                 }
-                builder.snippet(currentSections.get(0));
+                builder.snippet(currentSections.get(0).content(rawText));
             }
 
-            // Extract regular sequences
-            currentSections = extractSections(rawText, Pattern.compile(SyntaxToken.REGULAR_SEQUENCE_TOKEN.token(), Pattern.DOTALL), 1);
-            for (String sequenceSection : currentSections) {
+            // Process regular sequences
+            for (Section sequenceSection : sections.get(SyntaxToken.REGULAR_SEQUENCE)) {
                 if (sequenceSection.isBlank()) {
                     throw new SequenceParserException("One of the sequence sections is empty", file);
                 }
                 currentSequenceBuilder = builder.sequenceBuilder();
 
                 // Extract connection identifier
-                currentSubsections = extractSections(sequenceSection, Pattern.compile(SyntaxToken.CONNECTION_TOKEN.token()), 1);
+                currentSubsections = sequenceSection.variables(SyntaxToken.CONNECTION);
                 if (currentSubsections.size() > 1) {
                     throw new SequenceParserException("More than one connection variable in a sequence section", file);
                 } else if (currentSubsections.isEmpty()) {
@@ -106,7 +125,7 @@ public class SequenceParser {
                 currentSequenceBuilder.connectionIdentifier(currentSubsections.get(0));
 
                 // Extract database name
-                currentSubsections = extractSections(sequenceSection, Pattern.compile(SyntaxToken.DATABASE_TOKEN.token()), 1);
+                currentSubsections = sequenceSection.variables(SyntaxToken.DATABASE);
                 if (currentSubsections.size() > 1) {
                     throw new SequenceParserException("More than one database variable in a sequence section", file);
                 } else if (currentSubsections.isEmpty()) {
@@ -115,7 +134,7 @@ public class SequenceParser {
                 currentSequenceBuilder.databaseName(currentSubsections.get(0));
 
                 // Extract result table
-                currentSubsections = extractSections(sequenceSection, Pattern.compile(SyntaxToken.RESULT_TABLE_TOKEN.token()), 1);
+                currentSubsections = sequenceSection.variables(SyntaxToken.RESULT_TABLE);
                 if (currentSubsections.size() > 1) {
                     throw new SequenceParserException("More than one result table variable in a sequence section", file);
                 } else if (currentSubsections.isEmpty()) {
@@ -123,16 +142,27 @@ public class SequenceParser {
                 }
                 currentSequenceBuilder.resultTable(currentSubsections.get(0));
 
-                // Extract body lines
-                currentSubsections = extractSections(sequenceSection, Pattern.compile(SyntaxToken.LINES_TOKEN.token(), Pattern.DOTALL), 0);
-                for (String line : currentSubsections) {
+                // Extract optional fetch size
+                currentSubsections = sequenceSection.variables(SyntaxToken.FETCH_SIZE);
+                if (currentSubsections.size() > 1) {
+                    throw new SequenceParserException("More than one fetch size variable in a sequence section", file);
+                } else if (!currentSubsections.isEmpty()) {
+                    try {
+                        currentSequenceBuilder.fetchSize(Integer.parseInt(currentSubsections.get(0)));
+                    } catch (NumberFormatException e) {
+                        throw new SequenceParserException("Fetch size variable is not a number in a sequence section", file, e);
+                    }
+                }
+
+                // Apply body lines
+                for (String line : sequenceSection.bodyLines) {
                     currentSequenceBuilder.bodyLine(line);
                 }
                 builder = currentSequenceBuilder.applySequence();
             }
 
-            // Extract post-sequence
-            currentSections = extractSections(rawText, Pattern.compile(SyntaxToken.POST_SEQUENCE_TOKEN.token(), Pattern.DOTALL), 1);
+            // Process post-sequence
+            currentSections = sections.get(SyntaxToken.POST_SEQUENCE);
             if (!currentSections.isEmpty()) {
                 if (currentSections.size() > 1) {
                     throw new SequenceParserException("More than one post-sequence section is present", file);
@@ -141,7 +171,7 @@ public class SequenceParser {
                 currentPostSequenceBuilder = builder.postSequenceBuilder();
 
                 // Extract result table
-                currentSubsections = extractSections(currentSection, Pattern.compile(SyntaxToken.RESULT_TABLE_TOKEN.token()), 1);
+                currentSubsections = currentSection.variables(SyntaxToken.RESULT_TABLE);
                 if (currentSubsections.size() > 1) {
                     throw new SequenceParserException("More than one result table variable in a post-sequence section", file);
                 } else if (currentSubsections.isEmpty()) {
@@ -149,9 +179,8 @@ public class SequenceParser {
                 }
                 currentPostSequenceBuilder.resultTable(currentSubsections.get(0));
 
-                // Extract body lines
-                currentSubsections = extractSections(currentSection, Pattern.compile(SyntaxToken.LINES_TOKEN.token(), Pattern.DOTALL), 0);
-                for (String line : currentSubsections) {
+                // Apply body lines
+                for (String line : currentSection.bodyLines) {
                     currentPostSequenceBuilder.bodyLine(line);
                 }
                 builder = currentPostSequenceBuilder.applyPostSequence();
@@ -166,19 +195,122 @@ public class SequenceParser {
     }
 
     /**
-     * Extracts sections from the provided content based on the given regex pattern.
+     * Splits the raw text into sections in a single pass.
+     * <p>
+     * Lines outside the sections are ignored. Inside a section, blank lines before the first
+     * and after the last non-blank line are dropped, body lines are trimmed.
+     * </p>
      *
-     * @param content the text content to parse
-     * @param pattern the regex pattern to match sections
-     * @param group the regex group to extract
-     * @return a list of matched sections
+     * @param rawText the raw text content of the sequence script
+     * @param file the file containing the sequence script
+     * @return the sections of each type in order of appearance
+     * @throws SequenceParserException if a section is opened inside another one or is not closed
      */
-    private List<String> extractSections(String content, Pattern pattern, int group) {
-        Matcher matcher = pattern.matcher(content);
-        List<String> sections = new ArrayList<>();
-        while (matcher.find()) {
-            sections.add(matcher.group(group).trim());
+    private Map<SyntaxToken, List<Section>> readSections(String rawText, File file) throws SequenceParserException {
+        Map<SyntaxToken, List<Section>> sections = new LinkedHashMap<>();
+        sections.put(SyntaxToken.HEAD, new ArrayList<>(1));
+        sections.put(SyntaxToken.SNIPPETS, new ArrayList<>(1));
+        sections.put(SyntaxToken.REGULAR_SEQUENCE, new ArrayList<>());
+        sections.put(SyntaxToken.POST_SEQUENCE, new ArrayList<>(1));
+        Matcher matcher = DIRECTIVE_PATTERN.matcher("");
+        Section section = null;
+        int lineStart = 0;
+        int length = rawText.length();
+        while (lineStart < length) {
+            int lineEnd = rawText.indexOf('\n', lineStart);
+            int nextLineStart = lineEnd == -1 ? length : lineEnd + 1;
+            if (lineEnd == -1) lineEnd = length;
+            if (lineEnd > lineStart && rawText.charAt(lineEnd - 1) == '\r') --lineEnd;
+            String line = rawText.substring(lineStart, lineEnd);
+            String trimmedLine = line.trim();
+
+            if (trimmedLine.startsWith(SyntaxToken.TOKEN.token()) && matcher.reset(trimmedLine).matches()) {
+                String keyword = matcher.group(1).toLowerCase(Locale.ROOT);
+                SyntaxToken sectionType = getSectionType(keyword);
+                if (sectionType != null) {
+                    if (section != null)
+                        throw new SequenceParserException(String.format("The %s section is not closed before the %s section", section.type.token(), sectionType.token()), file);
+                    section = new Section(sectionType, nextLineStart);
+                } else if (section != null && SyntaxToken.END.token().equals(keyword)) {
+                    section.contentEnd = lineStart;
+                    sections.get(section.type).add(section);
+                    section = null;
+                } else if (section != null) {
+                    section.directive(keyword, matcher.group(2) == null ? null : matcher.group(3).trim());
+                }
+            } else if (section != null && !trimmedLine.startsWith(SyntaxToken.TOKEN.token())) {
+                section.line(trimmedLine);
+            }
+            lineStart = nextLineStart;
         }
+        if (section != null)
+            throw new SequenceParserException(String.format("The %s section is not closed", section.type.token()), file);
         return sections;
     }
+
+    /**
+     * Resolves the section type opened by a directive keyword.
+     *
+     * @param keyword the lower-case directive keyword
+     * @return the section token, or {@code null} if the keyword does not open a section
+     */
+    private SyntaxToken getSectionType(String keyword) {
+        if (SyntaxToken.HEAD.token().equals(keyword)) return SyntaxToken.HEAD;
+        if (SyntaxToken.SNIPPETS.token().equals(keyword)) return SyntaxToken.SNIPPETS;
+        if (SyntaxToken.REGULAR_SEQUENCE.token().equals(keyword)) return SyntaxToken.REGULAR_SEQUENCE;
+        if (SyntaxToken.POST_SEQUENCE.token().equals(keyword)) return SyntaxToken.POST_SEQUENCE;
+        return null;
+    }
+
+    /**
+     * A section of the script collected by the single-pass reader.
+     */
+    private static class Section {
+        private final SyntaxToken type;
+        private final int contentStart;
+        private int contentEnd;
+        private final Map<String, List<String>> variables = new LinkedHashMap<>();
+        private final List<String> bodyLines = new ArrayList<>();
+        private boolean hasContent;
+        private int pendingBlankLines;
+
+        private Section(SyntaxToken type, int contentStart) {
+            this.type = type;
+            this.contentStart = contentStart;
+        }
+
+        private void directive(String keyword, String value) {
+            flushBlankLines();
+            hasContent = true;
+            if (value != null) variables.computeIfAbsent(keyword, k -> new ArrayList<>(1)).add(value);
+        }
+
+        private void line(String line) {
+            if (line.isEmpty()) {
+                ++pendingBlankLines;
+                return;
+            }
+            flushBlankLines();
+            hasContent = true;
+            bodyLines.add(line);
+        }
+
+        // blank lines are kept only between non-blank lines of the section
+        private void flushBlankLines() {
+            if (hasContent) for (; pendingBlankLines > 0; --pendingBlankLines) bodyLines.add("");
+            pendingBlankLines = 0;
+        }
+
+        private List<String> variables(SyntaxToken variable) {
+            return variables.getOrDefault(variable.token(), List.of());
+        }
+
+        private boolean isBlank() {
+            return !hasContent;
+        }
+
+        private String content(String rawText) {
+            return contentStart >= contentEnd ? "" : rawText.substring(contentStart, contentEnd).trim();
+        }
+    }
 }
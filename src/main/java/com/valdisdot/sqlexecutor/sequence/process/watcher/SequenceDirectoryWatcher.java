@@ -0,0 +1,153 @@
+package com.valdisdot.sqlexecutor.sequence.process.watcher;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Watches the directory of sequence scripts and reports the files which have been created, modified or deleted.
+ * <p>
+ * Events are debounced: the changed files are collected until the directory stays quiet for the debounce interval,
+ * so an editor saving a file several times in a row produces a single report. The report is delivered
+ * on the watcher thread, the listener decides what has happened by checking the reported files. A listener which
+ * fails is logged and does not stop the watching.
+ * </p>
+ */
+public class SequenceDirectoryWatcher implements Closeable {
+    private final Logger logger;
+    private final File directory;
+    private final long debounceMillis;
+    private final Consumer<Set<File>> listener;
+    private final Set<File> knownFiles;
+    private WatchService watchService;
+    private Thread thread;
+
+    /**
+     * Constructs a {@code SequenceDirectoryWatcher}, call {@link #start()} to begin watching.
+     *
+     * @param directory      the directory to watch
+     * @param debounceMillis the quiet interval before the collected changes are reported
+     * @param listener       the consumer of the changed files
+     */
+    public SequenceDirectoryWatcher(File directory, long debounceMillis, Consumer<Set<File>> listener) {
+        this.logger = LoggerFactory.getLogger(this.getClass());
+        this.directory = Objects.requireNonNull(directory, "Directory is null");
+        this.debounceMillis = Math.max(0, debounceMillis);
+        this.listener = Objects.requireNonNull(listener, "Listener is null");
+        this.knownFiles = new HashSet<>();
+    }
+
+    /**
+     * Starts watching the directory on a daemon thread.
+     *
+     * @throws SequenceDirectoryWatcherException if the directory can't be watched
+     */
+    public synchronized void start() throws SequenceDirectoryWatcherException {
+        if (thread != null) return;
+        try {
+            watchService = directory.toPath().getFileSystem().newWatchService();
+            directory.toPath().register(
+                    watchService,
+                    StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY,
+                    StandardWatchEventKinds.ENTRY_DELETE
+            );
+        } catch (IOException e) {
+            close();
+            throw new SequenceDirectoryWatcherException("Error during watching the directory: " + directory.getAbsolutePath(), e);
+        }
+        knownFiles.addAll(listFiles());
+        thread = new Thread(this::watch, "sequence-directory-watcher");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Stops watching the directory, pending changes are not reported.
+     */
+    @Override
+    public synchronized void close() {
+        if (thread != null) thread.interrupt();
+        if (watchService != null) {
+            try {
+                watchService.close();
+            } catch (IOException ignored) {
+                //nothing to release anymore
+            }
+        }
+    }
+
+    private void watch() {
+        Set<File> changedFiles = new LinkedHashSet<>();
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                //wait for the first change without a limit, then for the directory to stay quiet
+                WatchKey key = changedFiles.isEmpty()
+                        ? watchService.take()
+                        : watchService.poll(debounceMillis, TimeUnit.MILLISECONDS);
+                if (key == null) {
+                    report(changedFiles);
+                    changedFiles = new LinkedHashSet<>();
+                    continue;
+                }
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                        //some events are lost, everything which existed or exists now may have changed
+                        changedFiles.addAll(knownFiles);
+                        changedFiles.addAll(listFiles());
+                    } else {
+                        changedFiles.add(new File(directory, ((Path) event.context()).toString()));
+                    }
+                }
+                if (!key.reset()) {
+                    //the directory itself is gone, report what is left and stop
+                    changedFiles.addAll(knownFiles);
+                    report(changedFiles);
+                    return;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ClosedWatchServiceException ignored) {
+            //closed by the owner
+        }
+    }
+
+    private void report(Set<File> changedFiles) {
+        for (File file : changedFiles) {
+            if (file.isFile()) knownFiles.add(file);
+            else knownFiles.remove(file);
+        }
+        changedFiles.removeIf(File::isDirectory);
+        if (changedFiles.isEmpty()) return;
+        try {
+            listener.accept(Collections.unmodifiableSet(changedFiles));
+        } catch (RuntimeException e) {
+            //the next changes are reported anyway
+            logger.error("Error during reporting the changed files", e);
+        }
+    }
+
+    private Set<File> listFiles() {
+        File[] files = directory.listFiles(File::isFile);
+        Set<File> result = new HashSet<>();
+        if (files != null) Collections.addAll(result, files);
+        return result;
+    }
+}
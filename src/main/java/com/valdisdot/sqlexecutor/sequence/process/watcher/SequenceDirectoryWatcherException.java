@@ -0,0 +1,17 @@
+package com.valdisdot.sqlexecutor.sequence.process.watcher;
+
+/**
+ * Exception thrown when the {@link SequenceDirectoryWatcher} can't start watching its directory.
+ */
+public class SequenceDirectoryWatcherException extends Exception {
+
+    /**
+     * Constructs a new {@code SequenceDirectoryWatcherException} with the specified detail message and cause.
+     *
+     * @param message the detail message explaining the reason for the exception.
+     * @param cause   the underlying cause of the exception.
+     */
+    public SequenceDirectoryWatcherException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
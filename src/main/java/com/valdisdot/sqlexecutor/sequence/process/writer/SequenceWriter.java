@@ -40,8 +40,11 @@ public class SequenceWriter {
             writer
                     .append(SyntaxToken.TOKEN.token()).append(" ").append(SyntaxToken.HEAD.token()).append("\n")
                     .append(SyntaxToken.TOKEN.token()).append(" ").append(SyntaxToken.NAME.token()).append(SyntaxToken.SEPARATOR.token()).append(" ").append(holder.getName()).append("\n")
-                    .append(SyntaxToken.TOKEN.token()).append(" ").append(SyntaxToken.IDENTIFIERS.token()).append(SyntaxToken.SEPARATOR.token()).append(" ").append(holder.getIdentifiers().stream().collect(Collectors.joining(SyntaxToken.LIST_SEPARATOR.token() + " "))).append("\n")
-                    .append(SyntaxToken.TOKEN.token()).append(" ").append(SyntaxToken.END.token()).append("\n\n");
+                    .append(SyntaxToken.TOKEN.token()).append(" ").append(SyntaxToken.IDENTIFIERS.token()).append(SyntaxToken.SEPARATOR.token()).append(" ").append(holder.getIdentifiers().stream().collect(Collectors.joining(SyntaxToken.LIST_SEPARATOR.token() + " "))).append("\n");
+            if (holder.getOutputFormat() != null) {
+                writer.append(SyntaxToken.TOKEN.token()).append(" ").append(SyntaxToken.OUTPUT.token()).append(SyntaxToken.SEPARATOR.token()).append(" ").append(holder.getOutputFormat()).append("\n");
+            }
+            writer.append(SyntaxToken.TOKEN.token()).append(" ").append(SyntaxToken.END.token()).append("\n\n");
 
             // Write snippets section
             writer
@@ -55,7 +58,11 @@ public class SequenceWriter {
                         .append(SyntaxToken.TOKEN.token()).append(" ").append(SyntaxToken.REGULAR_SEQUENCE.token()).append("\n")
                         .append(SyntaxToken.TOKEN.token()).append(" ").append(SyntaxToken.CONNECTION.token()).append(SyntaxToken.SEPARATOR.token()).append(" ").append(sequence.getConnectionIdentifier()).append("\n")
                         .append(SyntaxToken.TOKEN.token()).append(" ").append(SyntaxToken.DATABASE.token()).append(SyntaxToken.SEPARATOR.token()).append(" ").append(sequence.getDatabaseName()).append("\n")
-                        .append(SyntaxToken.TOKEN.token()).append(" ").append(SyntaxToken.RESULT_TABLE.token()).append(SyntaxToken.SEPARATOR.token()).append(" ").append(sequence.getResultTable()).append("\n")
+                        .append(SyntaxToken.TOKEN.token()).append(" ").append(SyntaxToken.RESULT_TABLE.token()).append(SyntaxToken.SEPARATOR.token()).append(" ").append(sequence.getResultTable()).append("\n");
+                if (sequence.getFetchSize() != null) {
+                    writer.append(SyntaxToken.TOKEN.token()).append(" ").append(SyntaxToken.FETCH_SIZE.token()).append(SyntaxToken.SEPARATOR.token()).append(" ").append(String.valueOf(sequence.getFetchSize())).append("\n");
+                }
+                writer
                         .append(sequence.getBody().trim()).append("\n")
                         .append(SyntaxToken.TOKEN.token()).append(" ").append(SyntaxToken.END.token()).append("\n\n");
             }
@@ -10,8 +10,13 @@ import com.valdisdot.sqlexecutor.sequence.SequenceHolder;
 import com.valdisdot.sqlexecutor.sequence.SequenceQueue;
 import com.valdisdot.sqlexecutor.sequence.process.compiler.SequenceCompiler;
 import com.valdisdot.sqlexecutor.sequence.process.compiler.SequenceCompilerException;
+import com.valdisdot.sqlexecutor.sequence.process.cache.SequenceHolderCache;
+import com.valdisdot.sqlexecutor.sequence.process.cache.SequenceHolderCacheException;
+import com.valdisdot.sqlexecutor.sequence.process.loader.SequenceHolderLoader;
 import com.valdisdot.sqlexecutor.sequence.process.parser.SequenceParser;
 import com.valdisdot.sqlexecutor.sequence.process.parser.SequenceParserException;
+import com.valdisdot.sqlexecutor.sequence.process.watcher.SequenceDirectoryWatcher;
+import com.valdisdot.sqlexecutor.sequence.process.watcher.SequenceDirectoryWatcherException;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
@@ -19,35 +24,56 @@ import java.awt.*;
 import java.io.File;
 import java.io.IOException;
 import java.io.PrintStream;
+import java.util.Arrays;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Scanner;
+import java.util.Set;
 
 public class CommandLineUI implements Runnable {
     private final ApplicationConfig applicationConfig;
     private final SequenceCompiler sequenceCompiler;
     private final SequenceExecutor sequenceExecutor;
-    private final SequenceParser sequenceParser;
+    private final SequenceHolderCache sequenceHolderCache;
+    private final SequenceHolderLoader sequenceHolderLoader;
     private final Logger logger;
     private final PrintStream out;
     private final Scanner in;
     private final Map<Integer, SequenceHolder> sequenceHolderSheet;
+    private final Map<String, Integer> sequenceHolderIndexes;
+    private int nextSequenceHolderIndex;
+    private SequenceDirectoryWatcher directoryWatcher;
 
     public CommandLineUI(ApplicationConfig applicationConfig, List<ConnectionConfig> connectionConfigs) throws DatabaseManagerException {
         this.applicationConfig = applicationConfig;
         this.sequenceExecutor = new SequenceExecutor(new DatabaseManager(connectionConfigs, this.applicationConfig), this.applicationConfig);
         this.sequenceCompiler = new SequenceCompiler();
-        this.sequenceParser = new SequenceParser();
         this.logger = LogManager.getLogger(this.getClass());
+        this.sequenceHolderCache = new SequenceHolderCache(new SequenceParser(), this.applicationConfig.getSequenceHolderCacheFile());
+        try {
+            this.sequenceHolderCache.load();
+        } catch (SequenceHolderCacheException e) {
+            this.logger.warn("The sequence holder cache has been skipped", e);
+        }
+        this.sequenceHolderLoader = new SequenceHolderLoader(this.sequenceHolderCache, this.sequenceCompiler, this.applicationConfig.getLoadingThreads());
         this.out = System.out;
         this.in = new Scanner(System.in);
         this.sequenceHolderSheet = new LinkedHashMap<>();
+        this.sequenceHolderIndexes = new LinkedHashMap<>();
     }
 
     @Override
     public void run() {
         loadSequenceHolderSheet();
+        if (applicationConfig.shouldWatchInputDirectory()) {
+            directoryWatcher = new SequenceDirectoryWatcher(applicationConfig.getInputDirectory(), applicationConfig.getWatchDebounceMillis(), this::reloadChangedFiles);
+            try {
+                directoryWatcher.start();
+            } catch (SequenceDirectoryWatcherException e) {
+                this.logger.warn("The input directory is not watched, use the 'reload' command", e);
+            }
+        }
         String input = "";
         String menu = makeMainMenu();
         out.print(menu);
@@ -60,8 +86,10 @@ public class CommandLineUI implements Runnable {
             input = in.nextLine();
             try {
                 lastSequenceHolderNumber = Integer.parseInt(input);
-                if (sequenceHolderSheet.containsKey(lastSequenceHolderNumber)) {
+                synchronized (sequenceHolderSheet) {
                     lastSequenceHolder = this.sequenceHolderSheet.get(lastSequenceHolderNumber);
+                }
+                if (lastSequenceHolder != null) {
                     lastSequnceQueue = compileSequenceHolder(lastSequenceHolder);
                     lastResultFile = processSequenceHolder(lastSequnceQueue, lastSequenceHolder, lastSequenceHolderNumber);
                     if (lastResultFile != null) {
@@ -107,23 +135,70 @@ public class CommandLineUI implements Runnable {
             if (!in.nextLine().trim().equalsIgnoreCase("y")) exit();
             files = this.applicationConfig.getInputDirectory().listFiles();
         }
-        int holderIndex = 1;
-        this.sequenceHolderSheet.clear();
-        for (File file : files) {
-            SequenceHolder holder = loadSequenceHolder(file);
-            this.sequenceHolderSheet.put(holderIndex++, holder);
+        //prompts for the broken files come after the parallel loading, the sheet is filled once all files are done
+        List<SequenceHolder> holders = this.sequenceHolderLoader.load(Arrays.asList(files), this::loadSequenceHolder);
+        synchronized (sequenceHolderSheet) {
+            this.nextSequenceHolderIndex = 1;
+            this.sequenceHolderSheet.clear();
+            this.sequenceHolderIndexes.clear();
+            for (int i = 0; i < files.length; i++) {
+                //a skipped file keeps its number, so it comes back to the same place once fixed
+                int holderIndex = this.nextSequenceHolderIndex++;
+                this.sequenceHolderIndexes.put(files[i].getAbsolutePath(), holderIndex);
+                if (holders.get(i) != null) this.sequenceHolderSheet.put(holderIndex, holders.get(i));
+            }
+        }
+    }
+
+    //runs on the watcher thread, the files are reloaded in place without prompts, numbers of the others are kept
+    private void reloadChangedFiles(Set<File> files) {
+        StringBuilder report = new StringBuilder();
+        synchronized (sequenceHolderSheet) {
+            for (File file : files) {
+                String key = file.getAbsolutePath();
+                Integer holderIndex = this.sequenceHolderIndexes.get(key);
+                if (!file.isFile()) {
+                    this.sequenceHolderCache.invalidate(file);
+                    if (holderIndex == null) continue;
+                    this.sequenceHolderIndexes.remove(key);
+                    SequenceHolder removed = this.sequenceHolderSheet.remove(holderIndex);
+                    if (removed != null) report.append(holderIndex).append("\t").append(removed.getName()).append(" (removed)\n");
+                    continue;
+                }
+                boolean added = holderIndex == null;
+                if (added) {
+                    holderIndex = this.nextSequenceHolderIndex++;
+                    this.sequenceHolderIndexes.put(key, holderIndex);
+                }
+                try {
+                    SequenceHolder holder = this.sequenceHolderCache.getSequenceHolder(file);
+                    this.sequenceCompiler.compileSequenceHolder(holder);
+                    if (this.sequenceHolderSheet.put(holderIndex, holder) != holder)
+                        report.append(holderIndex).append("\t").append(holder.getName()).append(added ? " (added)\n" : " (reloaded)\n");
+                } catch (SequenceParserException | SequenceCompilerException e) {
+                    this.logger.warn("Can't reload the file: " + file.getAbsolutePath(), e);
+                    this.sequenceHolderSheet.remove(holderIndex);
+                    report.append(holderIndex).append("\t").append("Can't load the file: ").append(file.getAbsolutePath()).append(", it is skipped until the next change\n");
+                }
+            }
+        }
+        if (report.length() > 0) {
+            out.print("\nSequence holders have changed:\n" + report);
+            out.print("Type the sequence holder number or prompt a command: ");
         }
     }
 
     private String makeMainMenu() {
         StringBuilder builder = new StringBuilder("Sequence holders:\n");
-        sequenceHolderSheet.forEach((i, holder) -> builder.append(i).append("\t").append(holder.getName()).append("\n"));
+        synchronized (sequenceHolderSheet) {
+            sequenceHolderSheet.forEach((i, holder) -> builder.append(i).append("\t").append(holder.getName()).append("\n"));
+        }
         return builder.toString();
     }
 
     private SequenceHolder loadSequenceHolder(File file) {
         try {
-            SequenceHolder holder = this.sequenceParser.parseSequenceHolder(file);
+            SequenceHolder holder = this.sequenceHolderCache.getSequenceHolder(file);
             //validate compiling
             this.sequenceCompiler.compileSequenceHolder(holder);
             return holder;
@@ -191,7 +266,10 @@ public class CommandLineUI implements Runnable {
                 out.print("Hit enter to continue and try again.");
                 in.nextLine();
                 originSequenceHolder = loadSequenceHolder(originSequenceHolder.getOrigin());
-                this.sequenceHolderSheet.put(originSequenceHolderIndex, originSequenceHolder);
+                synchronized (sequenceHolderSheet) {
+                    if (originSequenceHolder != null) this.sequenceHolderSheet.put(originSequenceHolderIndex, originSequenceHolder);
+                    else this.sequenceHolderSheet.remove(originSequenceHolderIndex);
+                }
                 return processSequenceHolder(compileSequenceHolder(originSequenceHolder), originSequenceHolder, originSequenceHolderIndex);
             } else {
                 out.println("File has been skipped!");
@@ -219,6 +297,7 @@ public class CommandLineUI implements Runnable {
 
     private void exit() {
         out.print("Exit the application...");
+        if (directoryWatcher != null) directoryWatcher.close();
         System.exit(0);
     }
 }
@@ -6,6 +6,11 @@ import com.valdisdot.sqlexecutor.executor.SequenceExecutor;
 import com.valdisdot.sqlexecutor.executor.database.DatabaseManager;
 import com.valdisdot.sqlexecutor.executor.database.DatabaseManagerException;
 import com.valdisdot.sqlexecutor.sequence.SequenceHolder;
+import com.valdisdot.sqlexecutor.sequence.process.cache.SequenceHolderCache;
+import com.valdisdot.sqlexecutor.sequence.process.cache.SequenceHolderCacheException;
+import com.valdisdot.sqlexecutor.sequence.process.parser.SequenceParser;
+import com.valdisdot.sqlexecutor.sequence.process.watcher.SequenceDirectoryWatcher;
+import com.valdisdot.sqlexecutor.sequence.process.watcher.SequenceDirectoryWatcherException;
 import com.valdisdot.sqlexecutor.ui.gui.controller.Controller;
 import com.valdisdot.sqlexecutor.ui.gui.element.ScrollPanel;
 import com.valdisdot.sqlexecutor.ui.gui.element.WindowMenuBar;
@@ -19,6 +24,8 @@ import org.slf4j.LoggerFactory;
 
 import javax.swing.*;
 import java.awt.*;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.time.LocalDateTime;
@@ -27,6 +34,7 @@ import java.util.Arrays;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 
@@ -37,11 +45,13 @@ public class GraphicalUI implements Runnable {
     private Controller controller;
     private ApplicationConfig applicationConfig;
     private ExecutorService executorService;
+    private SequenceDirectoryWatcher directoryWatcher;
 
     private JFrame frame;
     private JPanel rootPanel;
     private Map<SequenceHolder, SequenceHolderEditorPanel> holderEditorPanels;
     private SequenceHolderEditorPanel last;
+    private SequenceHolderMenu menu;
 
     public GraphicalUI(
             ApplicationConfig applicationConfig,
@@ -53,7 +63,19 @@ public class GraphicalUI implements Runnable {
         this.executorService = Executors.newScheduledThreadPool(Runtime.getRuntime().availableProcessors());
         this.theme = theme;
         this.localization = localization;
-        this.controller = new Controller(new SequenceExecutor(new DatabaseManager(connectionConfigs, applicationConfig), applicationConfig), new Notificator(executorService, theme), localization);
+        SequenceHolderCache sequenceHolderCache = new SequenceHolderCache(new SequenceParser(), applicationConfig.getSequenceHolderCacheFile());
+        try {
+            sequenceHolderCache.load();
+        } catch (SequenceHolderCacheException e) {
+            logger.warn("The sequence holder cache has been skipped", e);
+        }
+        this.controller = new Controller(
+                new SequenceExecutor(new DatabaseManager(connectionConfigs, applicationConfig), applicationConfig),
+                sequenceHolderCache,
+                applicationConfig.getLoadingThreads(),
+                new Notificator(executorService, theme),
+                localization
+        );
         this.applicationConfig = applicationConfig;
         this.holderEditorPanels = new LinkedHashMap<>();
         prebuildUI();
@@ -94,7 +116,7 @@ public class GraphicalUI implements Runnable {
         holderEditorPanels.clear();
         rootPanel.removeAll();
 
-        SequenceHolderMenu menu = new SequenceHolderMenu(
+        this.menu = new SequenceHolderMenu(
                 localization.getTranslation("menu.button"),
                 sequenceHolder -> {
                     rootPanel.remove(last);
@@ -125,8 +147,63 @@ public class GraphicalUI implements Runnable {
         frame.setVisible(true);
     }
 
+    // Runs on the watcher thread: parse off the EDT, then update only the affected menu items and editors
+    private void reloadChangedFiles(Set<File> files) {
+        Map<File, SequenceHolder> reloadedHolders = new LinkedHashMap<>();
+        for (File file : files) {
+            //a file saved from its editor is not changed since, rebuilding the editor would only lose its state
+            if (controller.isSavedByApplication(file)) continue;
+            reloadedHolders.put(file, controller.reloadSequenceHolder(file));
+        }
+        SwingUtilities.invokeLater(() -> reloadedHolders.forEach(this::applyChangedFile));
+    }
+
+    private void applyChangedFile(File file, SequenceHolder holder) {
+        SequenceHolder previous = holderEditorPanels.keySet().stream()
+                .filter(sequenceHolder -> file.equals(sequenceHolder.getOrigin()))
+                .findFirst()
+                .orElse(null);
+        if (holder == null) {
+            //a broken file keeps its last good editor until it is fixed, a deleted one goes away
+            if (previous == null || file.isFile()) return;
+            menu.removeSequenceHolder(previous);
+            replaceEditorPanel(holderEditorPanels.remove(previous), holderEditorPanels.values().stream().findFirst().orElse(null));
+        } else if (previous != holder) {
+            SequenceHolderEditorPanel panel = new SequenceHolderEditorPanel(holder, controller, executorService, theme, localization);
+            SequenceHolderEditorPanel previousPanel = previous == null ? null : holderEditorPanels.remove(previous);
+            holderEditorPanels.put(holder, panel);
+            menu.replaceSequenceHolder(holder);
+            if (previousPanel != null) replaceEditorPanel(previousPanel, panel);
+        }
+    }
+
+    private void replaceEditorPanel(SequenceHolderEditorPanel previous, SequenceHolderEditorPanel replacement) {
+        if (previous == null || previous != last) return;
+        rootPanel.remove(last);
+        last = replacement;
+        if (last != null) rootPanel.add(last);
+        rootPanel.repaint();
+        rootPanel.revalidate();
+        frame.pack();
+    }
+
     @Override
     public void run() {
         initUI();
+        if (applicationConfig.shouldWatchInputDirectory()) {
+            directoryWatcher = new SequenceDirectoryWatcher(applicationConfig.getInputDirectory(), applicationConfig.getWatchDebounceMillis(), this::reloadChangedFiles);
+            try {
+                directoryWatcher.start();
+            } catch (SequenceDirectoryWatcherException e) {
+                logger.warn("The input directory is not watched, use File > Reload UI", e);
+            }
+            //the listeners are notified before the frame exits the application
+            frame.addWindowListener(new WindowAdapter() {
+                @Override
+                public void windowClosing(WindowEvent e) {
+                    directoryWatcher.close();
+                }
+            });
+        }
     }
 }
@@ -7,7 +7,8 @@ import com.valdisdot.sqlexecutor.sequence.SequenceQueue;
 import com.valdisdot.sqlexecutor.sequence.process.builder.SequenceBuildingException;
 import com.valdisdot.sqlexecutor.sequence.process.compiler.SequenceCompiler;
 import com.valdisdot.sqlexecutor.sequence.process.compiler.SequenceCompilerException;
-import com.valdisdot.sqlexecutor.sequence.process.parser.SequenceParser;
+import com.valdisdot.sqlexecutor.sequence.process.cache.SequenceHolderCache;
+import com.valdisdot.sqlexecutor.sequence.process.loader.SequenceHolderLoader;
 import com.valdisdot.sqlexecutor.sequence.process.parser.SequenceParserException;
 import com.valdisdot.sqlexecutor.sequence.process.writer.SequenceWriter;
 import com.valdisdot.sqlexecutor.sequence.process.writer.SequenceWriterException;
@@ -23,38 +24,57 @@ import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class Controller {
     private Logger logger;
-    private SequenceParser sequenceParser;
+    private SequenceHolderCache sequenceHolderCache;
+    private SequenceHolderLoader sequenceHolderLoader;
     private SequenceCompiler sequenceCompiler;
     private SequenceExecutor sequenceExecutor;
     private SequenceWriter sequenceWriter;
     private Notificator notificator;
     private Localization localization;
+    //the size and the modification time of the files the application has written, by file
+    private Map<File, String> savedFiles;
 
-    public Controller(SequenceExecutor sequenceExecutor, Notificator notificator, Localization localization) {
+    public Controller(SequenceExecutor sequenceExecutor, SequenceHolderCache sequenceHolderCache, int loadingThreads, Notificator notificator, Localization localization) {
         this.logger = LoggerFactory.getLogger(this.getClass());
         this.sequenceExecutor = sequenceExecutor;
-        this.sequenceParser = new SequenceParser();
+        this.sequenceHolderCache = sequenceHolderCache;
         this.sequenceCompiler = new SequenceCompiler();
+        this.sequenceHolderLoader = new SequenceHolderLoader(sequenceHolderCache, sequenceCompiler, loadingThreads);
         this.sequenceWriter = new SequenceWriter();
         this.notificator = notificator;
         this.localization = localization;
+        this.savedFiles = new ConcurrentHashMap<>();
     }
 
     public List<SequenceHolder> loadSequenceHolders(List<File> files) {
-        List<SequenceHolder> result = new ArrayList<>(files.size());
-        for (File file : files) {
-            SequenceHolder holder = loadSequenceHolder(file);
-            if (holder != null) result.add(holder);
-        }
+        //the broken files are loaded again one by one, with the notifications
+        List<SequenceHolder> result = new ArrayList<>(sequenceHolderLoader.load(files, this::loadValidSequenceHolder));
+        result.removeIf(Objects::isNull);
         return result;
     }
 
+    //a holder which doesn't compile is kept, so it can be fixed in its editor
+    private SequenceHolder loadValidSequenceHolder(File file) {
+        SequenceHolder holder = loadSequenceHolder(file);
+        if (holder == null) return null;
+        try {
+            sequenceCompiler.compileSequenceHolder(holder);
+        } catch (SequenceCompilerException e) {
+            logger.warn("Error during sequence holder validation", e);
+            showErrorNotification(e);
+        }
+        return holder;
+    }
+
     public SequenceHolder loadSequenceHolder(File file) {
         try {
-            return sequenceParser.parseSequenceHolder(file);
+            return sequenceHolderCache.getSequenceHolder(file);
         } catch (SequenceParserException e) {
             Variable<Boolean> doReopen = new Variable<>(false);
             Variable<Boolean> lock = new Variable<>(true);
@@ -94,11 +114,38 @@ public class Controller {
         }
     }
 
+    //no prompts here, called on the watcher thread for the files changed outside the application
+    public SequenceHolder reloadSequenceHolder(File file) {
+        if (!file.isFile()) {
+            sequenceHolderCache.invalidate(file);
+            return null;
+        }
+        try {
+            return sequenceHolderCache.getSequenceHolder(file);
+        } catch (SequenceParserException e) {
+            logger.warn("Error during sequence holder reloading", e);
+            showErrorNotification(e);
+            return null;
+        }
+    }
+
     public SequenceHolder saveSequenceHolder(SequenceHolder sequenceHolder) throws SequenceWriterException {
         sequenceWriter.writeSequenceHolder(sequenceHolder);
+        sequenceHolderCache.invalidate(sequenceHolder.getOrigin());
+        savedFiles.put(sequenceHolder.getOrigin().getAbsoluteFile(), getFileStamp(sequenceHolder.getOrigin()));
         return sequenceHolder;
     }
 
+    //the watcher reports the files saved by the application too, their editors have the saved content already
+    public boolean isSavedByApplication(File file) {
+        String stamp = savedFiles.get(file.getAbsoluteFile());
+        return stamp != null && stamp.equals(getFileStamp(file));
+    }
+
+    private String getFileStamp(File file) {
+        return file.length() + ":" + file.lastModified();
+    }
+
     public SequenceQueue compileSequenceQueue(SequenceHolder sequenceHolder) throws SequenceCompilerException {
         return sequenceCompiler.compileSequenceHolder(sequenceHolder);
     }
@@ -126,6 +173,8 @@ public class Controller {
             throw exception;
         } catch (SequenceBuildingException e) {
             message = localization.getTranslation("notification.error.builder");
+        } catch (SequenceParserException e) {
+            message = localization.getTranslation("notification.error.parser");
         } catch (SequenceCompilerException e) {
             message = localization.getTranslation("notification.error.compiler");
         } catch (SequenceWriterException e) {
@@ -70,12 +70,17 @@ public class SequenceHolderEditorContainerPanel extends InternalPanel {
                 .name(previous.getName())
                 .origin(previous.getOrigin())
                 .identifiers(previous.getIdentifiers())
+                //the output format has no field in the editor, it is kept from the script
+                .outputFormat(previous.getOutputFormat())
                 .snippet(snippedSection.getSnippetTextArea().getText());
-        for (SequenceHolderSequenceSection sequenceSection : sequenceSections) {
+        for (int i = 0; i < sequenceSections.size(); ++i) {
+            SequenceHolderSequenceSection sequenceSection = sequenceSections.get(i);
             builder.sequenceBuilder()
                     .connectionIdentifier(sequenceSection.getConnectionTextField().getText())
                     .databaseName(sequenceSection.getDatabaseTextField().getText())
                     .resultTable(sequenceSection.getResultTextField().getText())
+                    //the fetch size has no field in the editor, it is kept from the script
+                    .fetchSize(previous.getSequences().get(i).getFetchSize())
                     .bodyLine(sequenceSection.getSequenceBodyTextArea().getText())
                     .applySequence();
         }
@@ -6,6 +6,8 @@ import net.miginfocom.layout.LC;
 import net.miginfocom.swing.MigLayout;
 
 import javax.swing.*;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.ExecutorService;
 import java.util.function.Consumer;
@@ -15,6 +17,7 @@ public class SequenceHolderMenu extends JPanel {
     private final Consumer<SequenceHolder> sequenceHolderConsumer;
     private final ExecutorService actionExecutor;
     private final Theme theme;
+    private final Map<SequenceHolder, SequenceHolderMenuItem> items;
 
     public SequenceHolderMenu(
             String selectVerb,
@@ -26,6 +29,7 @@ public class SequenceHolderMenu extends JPanel {
         this.sequenceHolderConsumer = Objects.requireNonNull(sequenceHolderConsumer, "Selected sequence holder consumer is null");
         this.actionExecutor = Objects.requireNonNull(actionExecutor, "Action executor service is null");
         this.theme = Objects.requireNonNull(theme, "Theme is null");
+        this.items = new LinkedHashMap<>();
         setBackground(theme.getApplicationBackground());
         setLayout(new MigLayout(
                 new LC()
@@ -36,7 +40,33 @@ public class SequenceHolderMenu extends JPanel {
     }
 
     public void addSequenceHolder(SequenceHolder sequenceHolder) {
-        add(new SequenceHolderMenuItem(sequenceHolder, sequenceHolderConsumer, selectVerb, theme, actionExecutor));
+        SequenceHolderMenuItem item = new SequenceHolderMenuItem(sequenceHolder, sequenceHolderConsumer, selectVerb, theme, actionExecutor);
+        items.put(sequenceHolder, item);
+        add(item);
+        revalidate();
+        repaint();
+    }
+
+    // Replace the item of the sequence holder with the same origin in place, or add a new one
+    public void replaceSequenceHolder(SequenceHolder sequenceHolder) {
+        SequenceHolderMenuItem previous = items.remove(sequenceHolder);
+        if (previous == null) {
+            addSequenceHolder(sequenceHolder);
+            return;
+        }
+        SequenceHolderMenuItem item = new SequenceHolderMenuItem(sequenceHolder, sequenceHolderConsumer, selectVerb, theme, actionExecutor);
+        items.put(sequenceHolder, item);
+        int position = getComponentZOrder(previous);
+        remove(previous);
+        add(item, position);
+        revalidate();
+        repaint();
+    }
+
+    public void removeSequenceHolder(SequenceHolder sequenceHolder) {
+        SequenceHolderMenuItem previous = items.remove(sequenceHolder);
+        if (previous == null) return;
+        remove(previous);
         revalidate();
         repaint();
     }
@@ -3,8 +3,11 @@ package com.valdisdot.sqlexecutor.configuration;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.Test;
 
+import java.io.File;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -17,11 +20,46 @@ public class ApplicationConfigTest {
             assertEquals("scripts", config.getInputDirectory().getName());
             assertEquals("results", config.getOutputDirectory().getName());
             assertEquals("localDatabase", config.getLocalDatabaseDirectory().getName());
+            assertEquals("plugins", config.getPluginDirectory().getName());
+            assertNull(config.getSequenceHolderCacheFile());
+            assertEquals(Runtime.getRuntime().availableProcessors(), config.getLoadingThreads());
+            assertFalse(config.shouldWatchInputDirectory());
+            assertEquals(500, config.getWatchDebounceMillis());
             assertEquals(1, config.getPoolSize());
             assertEquals(10000, config.getConnectionTimeout());
             assertEquals(300000, config.getIdleTimeout());
             assertDoesNotThrow(() -> LocalDateTime.parse(config.getUniqueSuffixSupplier().get(), DateTimeFormatter.ofPattern(" (yyyy-MM-dd HHmmss)")));
             assertFalse(config.shouldIncludeSequenceResults());
+            assertFalse(config.shouldExecuteInParallel());
+            assertFalse(config.shouldStreamXLSX());
+            assertFalse(config.shouldExecutePipelined());
+            assertEquals(1000, config.getPipelineBatchSize());
+            assertEquals(16, config.getPipelineCapacity());
+            assertEquals(0, config.getResultCacheTtl());
+            assertEquals(1024L * 1024 * 1024, config.getResultCacheLimit());
+            assertEquals("lru", config.getResultCacheEviction());
+            assertEquals(100, config.getXLSXStreamingRowWindow());
+            assertEquals(1000, config.getXLSXAutoSizeSampleRows());
+            assertEquals(1048575, config.getXLSXMaxRowsPerSheet());
+            assertEquals("xlsx", config.getDefaultOutputFormat());
+            assertEquals(StandardCharsets.UTF_8, config.getCSVCharset());
+            assertFalse(config.shouldQuoteAllCSVValues());
+            assertEquals("none", config.getCSVCompression());
+            assertEquals(64L * 1024 * 1024, config.getParquetRowGroupSize());
+            assertEquals(1024 * 1024, config.getParquetDictionarySize());
+            assertTrue(config.shouldCompressParquet());
+            assertTrue(config.shouldWriteArrowFileFormat());
+            assertEquals(8192, config.getColumnarBatchSize());
+            assertEquals(0, mapper.readValue("{\"writer\": {\"xlsxAutoSize\": \"none\"}}", ApplicationConfig.class).getXLSXAutoSizeSampleRows());
+            assertEquals(10000, config.getStagingBatchSize());
+            assertEquals(Map.of("journal_mode", "OFF", "synchronous", "OFF", "cache_size", "-65536", "temp_store", "MEMORY"), config.getStagingPragmas());
+            assertFalse(config.shouldStageInMemory());
+            assertEquals(256L * 1024 * 1024, config.getStagingMemoryLimit());
+            assertEquals(1, config.getStagingDatabaseFiles());
+            assertTrue(config.shouldIndexStagingTables());
+            assertEquals(0, config.getStagingCacheTtl());
+            assertEquals(1024L * 1024 * 1024, config.getStagingCacheLimit());
+            assertTrue(config.getWriterProperties().isEmpty());
         });
     }
 
@@ -33,11 +71,45 @@ public class ApplicationConfigTest {
             assertEquals("in", config.getInputDirectory().getName());
             assertEquals("out", config.getOutputDirectory().getName());
             assertEquals("local", config.getLocalDatabaseDirectory().getName());
+            assertEquals("ext", config.getPluginDirectory().getName());
+            assertEquals(new File(config.getLocalDatabaseDirectory(), "sequence_holder_cache.json"), config.getSequenceHolderCacheFile());
+            assertEquals(3, config.getLoadingThreads());
+            assertTrue(config.shouldWatchInputDirectory());
+            assertEquals(200, config.getWatchDebounceMillis());
             assertEquals(5, config.getPoolSize());
             assertEquals(1000, config.getConnectionTimeout());
             assertEquals(2000, config.getIdleTimeout());
             assertEquals("", config.getUniqueSuffixSupplier().get());
             assertTrue(config.shouldIncludeSequenceResults());
+            assertTrue(config.shouldExecuteInParallel());
+            assertTrue(config.shouldStreamXLSX());
+            assertTrue(config.shouldExecutePipelined());
+            assertEquals(250, config.getPipelineBatchSize());
+            assertEquals(4, config.getPipelineCapacity());
+            assertEquals(120L * 60 * 1000, config.getResultCacheTtl());
+            assertEquals(64L * 1024 * 1024, config.getResultCacheLimit());
+            assertEquals("lfu", config.getResultCacheEviction());
+            assertEquals(50, config.getXLSXStreamingRowWindow());
+            assertEquals(-1, config.getXLSXAutoSizeSampleRows());
+            assertEquals(100000, config.getXLSXMaxRowsPerSheet());
+            assertEquals("csv,parquet", config.getDefaultOutputFormat());
+            assertEquals(StandardCharsets.ISO_8859_1, config.getCSVCharset());
+            assertTrue(config.shouldQuoteAllCSVValues());
+            assertEquals("zip", config.getCSVCompression());
+            assertEquals(16L * 1024 * 1024, config.getParquetRowGroupSize());
+            assertEquals(0, config.getParquetDictionarySize());
+            assertFalse(config.shouldCompressParquet());
+            assertFalse(config.shouldWriteArrowFileFormat());
+            assertEquals(1000, config.getColumnarBatchSize());
+            assertEquals("value", config.getWriterProperties().get("customWriterOption"));
+            assertEquals(500, config.getStagingBatchSize());
+            assertEquals(Map.of("journal_mode", "WAL", "synchronous", "NORMAL", "cache_size", "-2000", "temp_store", "FILE"), config.getStagingPragmas());
+            assertTrue(config.shouldStageInMemory());
+            assertEquals(32L * 1024 * 1024, config.getStagingMemoryLimit());
+            assertEquals(4, config.getStagingDatabaseFiles());
+            assertFalse(config.shouldIndexStagingTables());
+            assertEquals(30L * 60 * 1000, config.getStagingCacheTtl());
+            assertEquals(512L * 1024 * 1024, config.getStagingCacheLimit());
         });
     }
 }
@@ -42,6 +42,11 @@ public class ConnectionConfigTest {
             assertEquals("password", connectionConfig.getPassword());
             assertEquals(Map.of("val", "5"), connectionConfig.getProperties());
             assertEquals(List.of("db"), connectionConfig.getDatabases());
+            assertEquals(500, connectionConfig.getFetchSize());
+            assertTrue(connectionConfig.shouldStreamResults());
+            connectionConfig = connectionConfigList.get(1);
+            assertEquals(0, connectionConfig.getFetchSize());
+            assertFalse(connectionConfig.shouldStreamResults());
         });
     }
 }
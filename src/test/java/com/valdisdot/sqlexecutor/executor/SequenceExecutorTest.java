@@ -0,0 +1,176 @@
+package com.valdisdot.sqlexecutor.executor;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.valdisdot.sqlexecutor.configuration.ApplicationConfig;
+import com.valdisdot.sqlexecutor.executor.database.DatabaseManager;
+import com.valdisdot.sqlexecutor.executor.writer.ResultWriter;
+import com.valdisdot.sqlexecutor.executor.writer.ResultWriterProvider;
+import com.valdisdot.sqlexecutor.sequence.SequenceQueue;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.jar.JarOutputStream;
+import java.util.zip.ZipEntry;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SequenceExecutorTest {
+    private static final int SEQUENCES = 6;
+    private static final int POOL_SIZE = 2;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void test_parallel_sequences_share_the_pool_and_the_output() throws Exception {
+        CountingDatabaseManager databaseManager = new CountingDatabaseManager(createSource());
+        SequenceExecutor executor = new SequenceExecutor(databaseManager, createConfig());
+        SequenceQueue queue = new SequenceQueue("parallel");
+        for (int i = 1; i <= SEQUENCES; i++)
+            queue.addSequence("server", "main", "SELECT id, name FROM t WHERE id % " + SEQUENCES + " = " + (i - 1), "r" + i);
+
+        File result = executor.execute(queue);
+        assertEquals(POOL_SIZE, databaseManager.peakConnections.get());
+        for (int i = 1; i <= SEQUENCES; i++) {
+            List<String> lines = Files.readAllLines(new File(result, "r" + i + ".csv").toPath());
+            assertEquals("id,name", lines.get(0));
+            assertEquals(1 + 100 / SEQUENCES + (i - 1 < 100 % SEQUENCES ? 1 : 0), lines.size());
+        }
+        //the spooled results have been deleted
+        File[] spooled = new File(directory.toFile(), "local/spool").listFiles();
+        assertTrue(spooled == null || spooled.length == 0);
+    }
+
+    @Test
+    public void test_post_sequence_runs_after_all_sequences() throws Exception {
+        CountingDatabaseManager databaseManager = new CountingDatabaseManager(createSource());
+        SequenceExecutor executor = new SequenceExecutor(databaseManager, createConfig());
+        SequenceQueue queue = new SequenceQueue("joined");
+        StringBuilder postSequence = new StringBuilder("SELECT count(*) AS rows FROM r1");
+        for (int i = 1; i <= SEQUENCES; i++) {
+            queue.addSequence("server", "main", "SELECT id, name FROM t WHERE id % " + SEQUENCES + " = " + (i - 1), "r" + i);
+            if (i > 1) postSequence.append(" UNION ALL SELECT count(*) FROM r").append(i);
+        }
+        queue.addPostSequence("SELECT sum(rows) AS total FROM (" + postSequence + ")", "total");
+
+        File result = executor.execute(queue);
+        assertEquals(POOL_SIZE, databaseManager.peakConnections.get());
+        assertEquals(List.of("total", "100"), Files.readAllLines(new File(result, "total.csv").toPath()));
+    }
+
+    @Test
+    public void test_broken_result_writer_providers_are_skipped() throws Exception {
+        //an absent class, a failing constructor and a failing writer
+        File pluginDirectory = Files.createDirectories(directory.resolve("plugins")).toFile();
+        try (JarOutputStream jar = new JarOutputStream(new FileOutputStream(new File(pluginDirectory, "broken.jar")))) {
+            jar.putNextEntry(new ZipEntry("META-INF/services/" + ResultWriterProvider.class.getName()));
+            jar.write(String.join("\n", "com.example.AbsentProvider", FailingProvider.class.getName(), FailingWriterProvider.class.getName()).getBytes(StandardCharsets.UTF_8));
+            jar.closeEntry();
+        }
+        SequenceExecutor executor = new SequenceExecutor(new CountingDatabaseManager(createSource()), createConfig());
+        SequenceQueue queue = new SequenceQueue("plugins");
+        queue.addSequence("server", "main", "SELECT count(*) AS rows FROM t", "r");
+        assertEquals(List.of("rows", "100"), Files.readAllLines(new File(executor.execute(queue), "r.csv").toPath()));
+
+        SequenceQueue broken = new SequenceQueue("broken");
+        broken.setOutputFormat("broken");
+        broken.addSequence("server", "main", "SELECT 1", "r");
+        assertThrows(SequenceExecutorException.class, () -> executor.execute(broken));
+    }
+
+    private File createSource() throws SQLException {
+        File source = new File(directory.toFile(), "source.db");
+        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + source.getAbsolutePath()); Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE t (id INTEGER, name TEXT);");
+            statement.execute("INSERT INTO t WITH RECURSIVE n(i) AS (SELECT 0 UNION ALL SELECT i + 1 FROM n LIMIT 100) SELECT i, 'name ' || i FROM n;");
+        }
+        return source;
+    }
+
+    private ApplicationConfig createConfig() throws Exception {
+        String config = "{\"application\": {\"localDatabaseDirectory\": \"" + directory.resolve("local").toString().replace("\\", "\\\\") + "\", "
+                + "\"outputDirectory\": \"" + directory.resolve("out").toString().replace("\\", "\\\\") + "\", "
+                + "\"pluginDirectory\": \"" + directory.resolve("plugins").toString().replace("\\", "\\\\") + "\"}, "
+                + "\"executor\": {\"uniqueSuffixGenerator\": \"none\", \"parallelExecution\": true}, "
+                + "\"writer\": {\"defaultOutput\": \"csv\"}}";
+        return new ObjectMapper().readValue(config, ApplicationConfig.class);
+    }
+
+    // A server connection of a pool of two, which is served by a SQLite file. Every connection is held for a while,
+    // so the sequences overlap and the peak of the open connections is the limit of the pool
+    private static class CountingDatabaseManager extends DatabaseManager {
+        private final File source;
+        private final AtomicInteger openConnections = new AtomicInteger();
+        private final AtomicInteger peakConnections = new AtomicInteger();
+
+        private CountingDatabaseManager(File source) throws Exception {
+            super(List.of(), new ObjectMapper().readValue("{}", ApplicationConfig.class));
+            this.source = source;
+        }
+
+        @Override
+        public Connection getConnection(String connectionIdentifier, String databaseName) throws SQLException {
+            Connection connection = getLocalConnection(source.getAbsolutePath());
+            peakConnections.accumulateAndGet(openConnections.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class[]{Connection.class}, (proxy, method, args) -> {
+                if (method.getName().equals("close")) openConnections.decrementAndGet();
+                try {
+                    return method.invoke(connection, args);
+                } catch (InvocationTargetException e) {
+                    throw e.getCause();
+                }
+            });
+        }
+
+        @Override
+        public int getMaximumConnections(String connectionIdentifier, String databaseName) {
+            return POOL_SIZE;
+        }
+    }
+
+    public static class FailingProvider implements ResultWriterProvider {
+        public FailingProvider() {
+            throw new IllegalStateException("no license");
+        }
+
+        @Override
+        public String getOutputFormat() {
+            return "failing";
+        }
+
+        @Override
+        public ResultWriter createResultWriter(ApplicationConfig applicationConfig, DatabaseManager databaseManager) {
+            return null;
+        }
+    }
+
+    public static class FailingWriterProvider implements ResultWriterProvider {
+        @Override
+        public String getOutputFormat() {
+            return "broken";
+        }
+
+        @Override
+        public ResultWriter createResultWriter(ApplicationConfig applicationConfig, DatabaseManager databaseManager) {
+            throw new IllegalStateException("no output");
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.valdisdot.sqlexecutor.executor.cache;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FileCacheTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    public void test_cache_expires_entries() throws Exception {
+        AtomicLong clock = new AtomicLong(1000);
+        FileCache cache = new FileCache(directory.toFile(), ".db", 60000, 1024, EvictionPolicy.LRU, clock::get);
+        String key = FileCache.key("connection", "database", "select 1");
+        assertNull(cache.get(key));
+
+        cache.put(key, writeEntry(cache, 10));
+        File file = cache.get(key);
+        assertNotNull(file);
+        assertEquals(10, file.length());
+
+        clock.addAndGet(59999);
+        assertNotNull(cache.get(key));
+        assertEquals(59999, cache.getAge(key));
+        clock.addAndGet(1);
+        assertNull(cache.get(key));
+        assertFalse(file.exists());
+    }
+
+    @Test
+    public void test_cache_evicts_least_recently_used_entries() throws Exception {
+        AtomicLong clock = new AtomicLong(1000);
+        FileCache cache = new FileCache(directory.toFile(), ".db", 60000, 100, EvictionPolicy.LRU, clock::get);
+        cache.put("a", writeEntry(cache, 40));
+        clock.incrementAndGet();
+        cache.put("b", writeEntry(cache, 40));
+        clock.incrementAndGet();
+        //"a" is used after "b"
+        assertNotNull(cache.get("a"));
+        clock.incrementAndGet();
+        cache.put("c", writeEntry(cache, 40));
+        assertNotNull(cache.get("a"));
+        assertNull(cache.get("b"));
+        assertNotNull(cache.get("c"));
+
+        //an entry larger than the cache doesn't evict the others
+        File large = writeEntry(cache, 101);
+        cache.put("d", large);
+        assertNull(cache.get("d"));
+        assertFalse(large.exists());
+        assertNotNull(cache.get("a"));
+    }
+
+    @Test
+    public void test_cache_evicts_by_policy() throws Exception {
+        AtomicLong clock = new AtomicLong(1000);
+        FileCache lfu = new FileCache(directory.resolve("lfu").toFile(), ".db", 60000, 100, EvictionPolicy.LFU, clock::get);
+        FileCache fifo = new FileCache(directory.resolve("fifo").toFile(), ".db", 60000, 100, EvictionPolicy.FIFO, clock::get);
+        for (FileCache cache : new FileCache[]{lfu, fifo}) {
+            cache.put("a", writeEntry(cache, 40));
+            clock.incrementAndGet();
+            cache.put("b", writeEntry(cache, 40));
+            clock.incrementAndGet();
+            //"a" is used twice, "b" once, but more recently
+            cache.get("a");
+            cache.get("a");
+            clock.incrementAndGet();
+            cache.get("b");
+            clock.incrementAndGet();
+            cache.put("c", writeEntry(cache, 40));
+        }
+        assertNotNull(lfu.get("a"));
+        assertNull(lfu.get("b"));
+        assertNull(fifo.get("a"));
+        assertNotNull(fifo.get("b"));
+
+        fifo.invalidate("b");
+        assertNull(fifo.get("b"));
+    }
+
+    @Test
+    public void test_cache_persistence() throws Exception {
+        AtomicLong clock = new AtomicLong(1000);
+        FileCache cache = new FileCache(directory.toFile(), ".db", 60000, 1024, EvictionPolicy.LRU, clock::get);
+        cache.put("a", writeEntry(cache, 10));
+        //left by an interrupted run
+        File orphan = new File(directory.toFile(), "orphan.db");
+        Files.write(orphan.toPath(), new byte[1]);
+
+        FileCache restored = new FileCache(directory.toFile(), ".db", 60000, 1024, EvictionPolicy.LRU, clock::get);
+        assertNotNull(restored.get("a"));
+        assertFalse(orphan.exists());
+
+        clock.addAndGet(60000);
+        FileCache expired = new FileCache(directory.toFile(), ".db", 60000, 1024, EvictionPolicy.LRU, clock::get);
+        assertNull(expired.get("a"));
+    }
+
+    @Test
+    public void test_key_separates_values() {
+        assertEquals(FileCache.key("a", "bc"), FileCache.key("a", "bc"));
+        assertNotEquals(FileCache.key("a", "bc"), FileCache.key("ab", "c"));
+        assertNotEquals(FileCache.key("a", null), FileCache.key("a", "-"));
+    }
+
+    private File writeEntry(FileCache cache, int size) throws Exception {
+        File file = cache.createTemporaryFile();
+        Files.write(file.toPath(), new byte[size]);
+        return file;
+    }
+}
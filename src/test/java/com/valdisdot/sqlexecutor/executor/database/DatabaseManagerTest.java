@@ -0,0 +1,69 @@
+package com.valdisdot.sqlexecutor.executor.database;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.valdisdot.sqlexecutor.configuration.ApplicationConfig;
+import com.valdisdot.sqlexecutor.configuration.ConnectionConfig;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DatabaseManagerTest {
+    @Test
+    public void test_statements_stream_by_the_driver_rules() throws Exception {
+        //no databases, no pools: the statements are created on the recording connections only
+        DatabaseManager databaseManager = new DatabaseManager(List.of(
+                new ConnectionConfig("postgres", "jdbc:postgresql://localhost:5432", null, null, null, List.of(), null, true),
+                new ConnectionConfig("mysql", "jdbc:mysql://localhost:3306", null, null, null, List.of(), 200, true),
+                new ConnectionConfig("mysql_cursor", "jdbc:mysql://localhost:3306", null, null, Map.of("useCursorFetch", "true"), List.of(), null, true),
+                new ConnectionConfig("buffered", "jdbc:postgresql://localhost:5432", null, null, null, List.of(), 300, false)
+        ), new ObjectMapper().readValue("{}", ApplicationConfig.class));
+
+        //a cursor of PostgreSQL needs a transaction
+        Map<String, Object> calls = create(databaseManager, "postgres", null);
+        assertEquals(List.of(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY), calls.get("createStatement"));
+        assertEquals(false, calls.get("setAutoCommit"));
+        assertEquals(1000, calls.get("setFetchSize"));
+        assertEquals(50, create(databaseManager, "postgres", 50).get("setFetchSize"));
+
+        //row by row streaming of MySQL, whatever the fetch size is, unless the server cursors are used
+        calls = create(databaseManager, "mysql", null);
+        assertEquals(List.of(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY), calls.get("createStatement"));
+        assertEquals(Integer.MIN_VALUE, calls.get("setFetchSize"));
+        assertFalse(calls.containsKey("setAutoCommit"));
+        assertEquals(1000, create(databaseManager, "mysql_cursor", null).get("setFetchSize"));
+
+        //a plain fetch size without streaming, a fetch size of the sequence streams by itself
+        calls = create(databaseManager, "buffered", null);
+        assertEquals(300, calls.get("setFetchSize"));
+        assertFalse(calls.containsKey("setAutoCommit"));
+        assertEquals(false, create(databaseManager, "buffered", 20).get("setAutoCommit"));
+        assertFalse(create(databaseManager, "unknown", null).containsKey("setFetchSize"));
+    }
+
+    // the calls of the statement creation by their names, with their first argument or all of them
+    private Map<String, Object> create(DatabaseManager databaseManager, String connectionIdentifier, Integer fetchSize) throws Exception {
+        Map<String, Object> calls = new HashMap<>();
+        Statement statement = (Statement) Proxy.newProxyInstance(getClass().getClassLoader(), new Class[]{Statement.class}, (proxy, method, args) -> {
+            calls.put(method.getName(), args[0]);
+            return null;
+        });
+        Connection connection = (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class[]{Connection.class}, (proxy, method, args) -> {
+            if ("createStatement".equals(method.getName())) {
+                calls.put(method.getName(), List.of(args));
+                return statement;
+            }
+            calls.put(method.getName(), args[0]);
+            return null;
+        });
+        databaseManager.createStatement(connection, connectionIdentifier, fetchSize);
+        return calls;
+    }
+}
@@ -0,0 +1,125 @@
+package com.valdisdot.sqlexecutor.executor.pipeline;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PipelinedResultSetTest {
+    private final ExecutorService readers = Executors.newCachedThreadPool();
+
+    @AfterEach
+    public void shutdown() {
+        readers.shutdownNow();
+    }
+
+    @Test
+    public void test_all_rows_are_read_until_the_end() throws Exception {
+        CountingSource source = new CountingSource(5, -1);
+        try (ResultSet rs = PipelinedResultSet.open(source, readers, 2, 1, null)) {
+            for (int i = 1; i <= 5; i++) {
+                assertTrue(rs.next());
+                assertEquals(i, rs.getInt(1));
+                assertEquals("row " + i, rs.getString("name"));
+            }
+            assertFalse(rs.next());
+            assertFalse(rs.next());
+            assertTrue(rs.isAfterLast());
+        }
+        assertTrue(source.closed.get());
+    }
+
+    @Test
+    public void test_failure_of_the_reader_is_thrown_after_the_rows_before_it() throws Exception {
+        CountingSource source = new CountingSource(10, 4);
+        try (ResultSet rs = PipelinedResultSet.open(source, readers, 3, 2, null)) {
+            for (int i = 1; i <= 3; i++) assertTrue(rs.next());
+            SQLException e = assertThrows(SQLException.class, () -> {
+                while (rs.next()) {
+                    //the rows of the last complete batch
+                }
+            });
+            assertEquals("row 4 can't be read", e.getCause().getMessage());
+        }
+        assertTrue(source.closed.get());
+    }
+
+    @Test
+    public void test_early_close_stops_the_reader() {
+        //an endless source, the reader waits for the consumer at the full queue
+        CountingSource source = new CountingSource(Integer.MAX_VALUE, -1);
+        assertTimeoutPreemptively(Duration.ofSeconds(10), () -> {
+            ResultSet rs = PipelinedResultSet.open(source, readers, 1, 1, null);
+            assertTrue(rs.next());
+            assertTrue(rs.next());
+            rs.close();
+            //the reader has stopped before close returns
+            assertTrue(source.closed.get());
+            assertThrows(SQLException.class, rs::next);
+        });
+        assertTrue(source.rows.get() < 100);
+    }
+
+    @Test
+    public void test_tee_consumers_read_the_same_rows() throws Exception {
+        CountingSource source = new CountingSource(7, -1);
+        List<ResultSet> resultSets = PipelinedResultSet.tee(source, readers, 2, 1, 2, null);
+        ResultSet first = resultSets.get(0);
+        ResultSet second = resultSets.get(1);
+        for (int i = 1; i <= 7; i++) {
+            assertTrue(first.next());
+            assertTrue(second.next());
+            assertEquals(i, first.getLong(1));
+            assertEquals(i, second.getLong(1));
+        }
+        assertFalse(first.next());
+        assertFalse(second.next());
+        first.close();
+        second.close();
+        assertTrue(source.closed.get());
+    }
+
+    // rows of an id and a name, the row of the failing index (if any) throws
+    private static class CountingSource implements RowSource {
+        private final ResultSetMetaDataSnapshot metaData = new ResultSetMetaDataSnapshot(
+                new String[]{"id", "name"}, new String[]{"id", "name"}, new int[]{4, 12}, new String[]{"INTEGER", "VARCHAR"},
+                new String[]{"java.lang.Integer", "java.lang.String"}, new int[]{10, 20}, new int[]{0, 0},
+                new int[]{0, 1}, new boolean[]{true, false}, "t"
+        );
+        private final int rowCount;
+        private final int failingRow;
+        private final AtomicInteger rows = new AtomicInteger();
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        private CountingSource(int rowCount, int failingRow) {
+            this.rowCount = rowCount;
+            this.failingRow = failingRow;
+        }
+
+        @Override
+        public ResultSetMetaDataSnapshot getMetaData() {
+            return metaData;
+        }
+
+        @Override
+        public Object[] nextRow() throws SQLException {
+            int row = rows.incrementAndGet();
+            if (row == failingRow) throw new SQLException("row " + row + " can't be read");
+            return row > rowCount ? null : new Object[]{row, "row " + row};
+        }
+
+        @Override
+        public void close() {
+            closed.set(true);
+        }
+    }
+}
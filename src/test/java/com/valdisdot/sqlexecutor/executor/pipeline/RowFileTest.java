@@ -0,0 +1,120 @@
+package com.valdisdot.sqlexecutor.executor.pipeline;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RowFileTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    public void test_recorded_result_is_replayed_with_the_same_values() throws Exception {
+        ResultSetPipeline pipeline = new ResultSetPipeline(2, 4);
+        File file = new File(directory.toFile(), "result.rows");
+        RowFileWriter recorder = new RowFileWriter(file);
+        List<List<Object>> fetched;
+        try (Connection connection = DriverManager.getConnection("jdbc:sqlite::memory:"); Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE t (id INTEGER, name TEXT, amount REAL, data BLOB);");
+            statement.execute("INSERT INTO t VALUES (1, 'first', 2.5, x'0102'), (-70000000000, NULL, -0.125, NULL), (3, 'третій', 1e300, x'');");
+            try (ResultSet rs = statement.executeQuery("SELECT * FROM t;"); ResultSet recorded = pipeline.open(rs, recorder)) {
+                fetched = readAll(recorded);
+            }
+        }
+        assertTrue(recorder.isComplete());
+        assertEquals(3, fetched.size());
+
+        try (ResultSet replayed = pipeline.replay(file)) {
+            assertEquals(4, replayed.getMetaData().getColumnCount());
+            assertEquals("name", replayed.getMetaData().getColumnName(2));
+            assertEquals(fetched.toString(), readAll(replayed).toString());
+        }
+        try (ResultSet replayed = pipeline.replay(file)) {
+            assertTrue(replayed.next());
+            assertEquals(1, replayed.getInt("id"));
+            assertEquals(new BigDecimal("2.5"), replayed.getBigDecimal(3));
+            assertArrayEquals(new byte[]{1, 2}, replayed.getBytes(4));
+            assertTrue(replayed.next());
+            assertEquals(-70000000000L, replayed.getLong(1));
+            assertNull(replayed.getString(2));
+            assertTrue(replayed.wasNull());
+        }
+    }
+
+    @Test
+    public void test_values_keep_their_types() throws Exception {
+        File file = new File(directory.toFile(), "values.rows");
+        RowFileWriter recorder = new RowFileWriter(file);
+        ResultSetMetaDataSnapshot metaData = new ResultSetMetaDataSnapshot(
+                new String[]{"a", "b", "c"}, new String[]{"a", "b", "c"}, new int[]{3, 93, 12}, new String[]{"DECIMAL", "TIMESTAMP", "VARCHAR"},
+                new String[]{"java.math.BigDecimal", "java.sql.Timestamp", "java.lang.String"}, new int[]{20, 0, 10}, new int[]{4, 0, 0},
+                new int[]{1, 1, 1}, new boolean[]{true, false, false}, "t"
+        );
+        Timestamp timestamp = Timestamp.valueOf("2024-02-29 13:45:10.123456789");
+        List<Object[]> rows = List.of(
+                new Object[]{new BigDecimal("-12345678901234567890.1234"), timestamp, new PipelinedResultSet.RenderedValue(1.0, "1")},
+                new Object[]{null, null, "x"}
+        );
+        recorder.start(metaData);
+        recorder.write(rows);
+        recorder.finish(true);
+        assertTrue(recorder.isComplete());
+
+        RowFileReader reader = new RowFileReader(file);
+        assertEquals(4, reader.getMetaData().getScale(1));
+        assertEquals("t", reader.getMetaData().getTableName(1));
+        Object[] row = reader.nextRow();
+        assertEquals(rows.get(0)[0], row[0]);
+        assertEquals(timestamp, row[1]);
+        assertEquals("1", ((PipelinedResultSet.RenderedValue) row[2]).getText());
+        assertEquals(1.0, ((PipelinedResultSet.RenderedValue) row[2]).getValue());
+        assertArrayEquals(rows.get(1), reader.nextRow());
+        assertNull(reader.nextRow());
+        reader.close();
+    }
+
+    @Test
+    public void test_incomplete_recording_is_not_replayed() throws Exception {
+        ResultSetPipeline pipeline = new ResultSetPipeline(1, 1);
+        File file = new File(directory.toFile(), "partial.rows");
+        RowFileWriter recorder = new RowFileWriter(file);
+        try (Connection connection = DriverManager.getConnection("jdbc:sqlite::memory:"); Statement statement = connection.createStatement()) {
+            try (ResultSet rs = statement.executeQuery("WITH RECURSIVE n(i) AS (SELECT 1 UNION ALL SELECT i + 1 FROM n LIMIT 100) SELECT i FROM n;");
+                 ResultSet recorded = pipeline.open(rs, recorder)) {
+                //the writer stops early
+                assertTrue(recorded.next());
+            }
+        }
+        assertFalse(recorder.isComplete());
+
+        Files.write(file.toPath(), new byte[]{1, 2, 3});
+        assertThrows(SQLException.class, () -> pipeline.replay(file));
+    }
+
+    private List<List<Object>> readAll(ResultSet rs) throws SQLException {
+        List<List<Object>> rows = new ArrayList<>();
+        while (rs.next()) {
+            List<Object> row = new ArrayList<>();
+            for (int i = 1; i <= rs.getMetaData().getColumnCount(); i++) {
+                Object value = rs.getObject(i);
+                row.add(value instanceof byte[] ? List.of(value.getClass(), new String((byte[]) value)) : value == null ? null : List.of(value.getClass(), value, rs.getString(i)));
+            }
+            rows.add(row);
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,146 @@
+package com.valdisdot.sqlexecutor.executor.writer;
+
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.memory.RootAllocator;
+import org.apache.arrow.vector.BigIntVector;
+import org.apache.arrow.vector.BitVector;
+import org.apache.arrow.vector.DateDayVector;
+import org.apache.arrow.vector.DecimalVector;
+import org.apache.arrow.vector.Float8Vector;
+import org.apache.arrow.vector.TimeStampMilliVector;
+import org.apache.arrow.vector.VarBinaryVector;
+import org.apache.arrow.vector.VarCharVector;
+import org.apache.arrow.vector.VectorSchemaRoot;
+import org.apache.arrow.vector.ipc.ArrowFileReader;
+import org.apache.arrow.vector.ipc.ArrowReader;
+import org.apache.arrow.vector.ipc.ArrowStreamReader;
+import org.apache.arrow.vector.types.TimeUnit;
+import org.apache.arrow.vector.types.pojo.ArrowType;
+import org.apache.arrow.vector.types.pojo.Schema;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ArrowResultWriterTest {
+    private static final ResultSetStub TYPES = new ResultSetStub(
+            new String[]{"id", "name", "amount", "day", "at", "flag", "ratio", "data"},
+            new int[]{Types.BIGINT, Types.VARCHAR, Types.DECIMAL, Types.DATE, Types.TIMESTAMP, Types.BOOLEAN, Types.DOUBLE, Types.VARBINARY},
+            new int[]{19, 20, 20, 0, 0, 0, 0, 0},
+            new int[]{0, 0, 4, 0, 0, 0, 0, 0}
+    );
+
+    @TempDir
+    Path directory;
+
+    private final BufferAllocator allocator = new RootAllocator();
+
+    @AfterEach
+    public void close() {
+        allocator.close();
+    }
+
+    @Test
+    public void test_file_format_is_read_back() throws Exception {
+        List<Object[]> rows = createRows(250);
+        File table = write(true, rows);
+        assertTrue(table.getName().endsWith(".arrow"));
+        try (FileChannel channel = FileChannel.open(table.toPath()); ArrowFileReader reader = new ArrowFileReader(channel, allocator)) {
+            //a record batch of every 100 rows, which the footer lists
+            assertEquals(3, reader.getRecordBlocks().size());
+            assertRows(rows, reader);
+        }
+    }
+
+    @Test
+    public void test_stream_format_is_read_back() throws Exception {
+        List<Object[]> rows = createRows(250);
+        File table = write(false, rows);
+        assertTrue(table.getName().endsWith(".arrows"));
+        try (FileInputStream in = new FileInputStream(table); ArrowStreamReader reader = new ArrowStreamReader(in, allocator)) {
+            assertRows(rows, reader);
+        }
+    }
+
+    @Test
+    public void test_empty_result_has_the_schema_only() throws Exception {
+        File table = write(true, List.of());
+        try (FileChannel channel = FileChannel.open(table.toPath()); ArrowFileReader reader = new ArrowFileReader(channel, allocator)) {
+            Schema schema = reader.getVectorSchemaRoot().getSchema();
+            assertEquals(8, schema.getFields().size());
+            assertEquals(new ArrowType.Decimal(20, 4, 128), schema.getFields().get(2).getType());
+            assertEquals(0, reader.getRecordBlocks().size());
+            assertFalse(reader.loadNextBatch());
+        }
+        table = write(false, List.of());
+        try (FileInputStream in = new FileInputStream(table); ArrowStreamReader reader = new ArrowStreamReader(in, allocator)) {
+            assertEquals(8, reader.getVectorSchemaRoot().getSchema().getFields().size());
+            assertFalse(reader.loadNextBatch());
+        }
+    }
+
+    private File write(boolean fileFormat, List<Object[]> rows) throws Exception {
+        ArrowResultWriter writer = new ArrowResultWriter(directory.toFile(), () -> "", fileFormat, 100);
+        File output = writer.initializeResultFile(fileFormat ? "file" : "stream");
+        writer.write("t", TYPES.of(rows), output);
+        writer.finalizeResultFile(output);
+        return new File(output, fileFormat ? "t.arrow" : "t.arrows");
+    }
+
+    private void assertRows(List<Object[]> rows, ArrowReader reader) throws Exception {
+        VectorSchemaRoot root = reader.getVectorSchemaRoot();
+        assertEquals(new ArrowType.Timestamp(TimeUnit.MILLISECOND, null), root.getSchema().getFields().get(4).getType());
+        int row = 0;
+        while (reader.loadNextBatch()) {
+            for (int i = 0; i < root.getRowCount(); i++, row++) {
+                Object[] expected = rows.get(row);
+                assertEquals(expected[0], ((BigIntVector) root.getVector("id")).getObject(i));
+                assertEquals(expected[1], ((VarCharVector) root.getVector("name")).getObject(i).toString());
+                if (expected[2] == null) {
+                    for (int column = 2; column < expected.length; column++) assertTrue(root.getVector(column).isNull(i));
+                    continue;
+                }
+                assertEquals(expected[2], ((DecimalVector) root.getVector("amount")).getObject(i));
+                assertEquals(((Date) expected[3]).toLocalDate(), LocalDate.ofEpochDay(((DateDayVector) root.getVector("day")).get(i)));
+                assertEquals(((Timestamp) expected[4]).toLocalDateTime(), ((TimeStampMilliVector) root.getVector("at")).getObject(i));
+                assertEquals(expected[5], ((BitVector) root.getVector("flag")).getObject(i));
+                assertEquals(expected[6], ((Float8Vector) root.getVector("ratio")).getObject(i));
+                assertArrayEquals((byte[]) expected[7], ((VarBinaryVector) root.getVector("data")).getObject(i));
+            }
+        }
+        assertEquals(rows.size(), row);
+    }
+
+    private List<Object[]> createRows(int count) {
+        List<Object[]> rows = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            boolean nulls = i % 5 == 2;
+            rows.add(new Object[]{
+                    (long) i - 100,
+                    "name " + i + (i % 3 == 0 ? " ще" : ""),
+                    nulls ? null : new BigDecimal(BigInteger.valueOf(i).pow(5).negate().add(BigInteger.valueOf(31)), 4),
+                    nulls ? null : Date.valueOf(LocalDate.of(1969, 12, 30).plusDays(i)),
+                    nulls ? null : Timestamp.valueOf(LocalDateTime.of(2024, 2, 29, 23, 59, 59).plusMinutes(i).plusNanos(7_000_000)),
+                    nulls ? null : i % 3 == 1,
+                    nulls ? null : i * -0.25,
+                    nulls ? null : new byte[]{(byte) i, 0, (byte) -i}
+            });
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,116 @@
+package com.valdisdot.sqlexecutor.executor.writer;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Types;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CSVResultWriterTest {
+    private static final ResultSetStub TYPES = new ResultSetStub(
+            new String[]{"id", "text"},
+            new int[]{Types.INTEGER, Types.VARCHAR},
+            new int[]{10, 50},
+            new int[]{0, 0}
+    );
+    private static final List<Object[]> ROWS = List.of(
+            new Object[]{1, "plain"},
+            new Object[]{2, "a,b"},
+            new Object[]{3, "say \"hi\""},
+            new Object[]{4, "two\nlines"},
+            new Object[]{null, ""},
+            new Object[]{6, null}
+    );
+    private static final String MINIMAL = "id,text\r\n1,plain\r\n2,\"a,b\"\r\n3,\"say \"\"hi\"\"\"\r\n4,\"two\nlines\"\r\n,\r\n6,\r\n";
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void test_minimal_quoting_and_nulls() throws Exception {
+        CSVResultWriter writer = new CSVResultWriter(directory.toFile(), () -> "", ',', StandardCharsets.UTF_8, false, CSVResultWriter.Compression.NONE);
+        File output = writer.write("minimal", "t", TYPES.of(ROWS));
+        //null and an empty text are both an empty unquoted field
+        assertEquals(MINIMAL, Files.readString(output.toPath().resolve("t.csv")));
+    }
+
+    @Test
+    public void test_all_quoting_of_tsv() throws Exception {
+        CSVResultWriter writer = new CSVResultWriter(directory.toFile(), () -> "", '\t', StandardCharsets.UTF_8, true, CSVResultWriter.Compression.NONE);
+        File output = writer.write("all", "t", TYPES.of(ROWS.subList(0, 3)));
+        assertEquals(
+                "\"id\"\t\"text\"\r\n\"1\"\t\"plain\"\r\n\"2\"\t\"a,b\"\r\n\"3\"\t\"say \"\"hi\"\"\"\r\n",
+                Files.readString(output.toPath().resolve("t.tsv"))
+        );
+    }
+
+    @Test
+    public void test_gzip_tables() throws Exception {
+        CSVResultWriter writer = new CSVResultWriter(directory.toFile(), () -> "", ',', StandardCharsets.UTF_8, false, CSVResultWriter.Compression.GZIP);
+        File output = writer.write("gzip", "t", TYPES.of(ROWS));
+        try (InputStream in = new GZIPInputStream(new FileInputStream(output.toPath().resolve("t.csv.gz").toFile()))) {
+            assertEquals(MINIMAL, new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    public void test_zip_bundle_of_colliding_names() throws Exception {
+        CSVResultWriter writer = new CSVResultWriter(directory.toFile(), () -> "", ',', StandardCharsets.UTF_8, false, CSVResultWriter.Compression.ZIP);
+        File output = writer.initializeResultFile("bundle");
+        writer.write("a/b", TYPES.of(ROWS), output);
+        writer.write("a:b", TYPES.of(ROWS.subList(0, 1)), output);
+        writer.write("A_B", TYPES.of(List.of()), output);
+        writer.finalizeResultFile(output);
+
+        assertEquals("bundle.zip", output.getName());
+        Map<String, String> entries = readBundle(output);
+        assertEquals(Map.of(
+                "a_b.csv", MINIMAL,
+                "a_b_2.csv", "id,text\r\n1,plain\r\n",
+                "A_B_3.csv", "id,text\r\n"
+        ), entries);
+    }
+
+    @Test
+    public void test_colliding_names_in_directory() throws Exception {
+        CSVResultWriter writer = new CSVResultWriter(directory.toFile(), () -> "", ',', StandardCharsets.UTF_8, false, CSVResultWriter.Compression.NONE);
+        File output = writer.initializeResultFile("directory");
+        writer.write("a/b", TYPES.of(ROWS), output);
+        writer.write("a*b", TYPES.of(ROWS.subList(0, 1)), output);
+        writer.finalizeResultFile(output);
+        assertEquals(MINIMAL, Files.readString(output.toPath().resolve("a_b.csv")));
+        assertEquals("id,text\r\n1,plain\r\n", Files.readString(output.toPath().resolve("a_b_2.csv")));
+
+        //a new result of the same output starts with the plain names again
+        output = writer.write("directory", "a:b", TYPES.of(List.of()));
+        try (Stream<Path> files = Files.list(output.toPath())) {
+            assertEquals(List.of("a_b.csv"), files.map(file -> file.getFileName().toString()).collect(Collectors.toList()));
+        }
+    }
+
+    private Map<String, String> readBundle(File bundle) throws IOException {
+        Map<String, String> entries = new HashMap<>();
+        try (ZipInputStream in = new ZipInputStream(new FileInputStream(bundle))) {
+            for (ZipEntry entry = in.getNextEntry(); entry != null; entry = in.getNextEntry()) {
+                entries.put(entry.getName(), new String(in.readAllBytes(), StandardCharsets.UTF_8));
+            }
+        }
+        return entries;
+    }
+}
@@ -0,0 +1,174 @@
+package com.valdisdot.sqlexecutor.executor.writer;
+
+import org.apache.parquet.column.Encoding;
+import org.apache.parquet.column.page.PageReadStore;
+import org.apache.parquet.example.data.Group;
+import org.apache.parquet.example.data.simple.convert.GroupRecordConverter;
+import org.apache.parquet.hadoop.ParquetFileReader;
+import org.apache.parquet.hadoop.metadata.BlockMetaData;
+import org.apache.parquet.hadoop.metadata.ColumnChunkMetaData;
+import org.apache.parquet.io.ColumnIOFactory;
+import org.apache.parquet.io.LocalInputFile;
+import org.apache.parquet.io.RecordReader;
+import org.apache.parquet.schema.LogicalTypeAnnotation;
+import org.apache.parquet.schema.MessageType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ParquetResultWriterTest {
+    private static final ResultSetStub TYPES = new ResultSetStub(
+            new String[]{"id", "name", "code", "amount", "day", "at", "flag", "ratio", "data"},
+            new int[]{Types.BIGINT, Types.VARCHAR, Types.VARCHAR, Types.DECIMAL, Types.DATE, Types.TIMESTAMP, Types.BOOLEAN, Types.DOUBLE, Types.VARBINARY},
+            new int[]{19, 20, 20, 12, 0, 0, 0, 0, 0},
+            new int[]{0, 0, 0, 2, 0, 0, 0, 0, 0}
+    );
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void test_typed_values_are_read_back() throws Exception {
+        List<Object[]> rows = createRows(300);
+        //a few kilobytes per row group and a dictionary which only the column of three names fits into
+        ParquetResultWriter writer = new ParquetResultWriter(directory.toFile(), () -> "", 4096, 256, true, 64);
+        File output = writer.initializeResultFile("typed");
+        writer.write("t", TYPES.of(rows), output);
+        writer.finalizeResultFile(output);
+
+        try (ParquetFileReader reader = ParquetFileReader.open(new LocalInputFile(output.toPath().resolve("t.parquet")))) {
+            MessageType schema = reader.getFooter().getFileMetaData().getSchema();
+            assertEquals(LogicalTypeAnnotation.decimalType(2, 12), schema.getType("amount").getLogicalTypeAnnotation());
+            assertEquals(LogicalTypeAnnotation.dateType(), schema.getType("day").getLogicalTypeAnnotation());
+            assertEquals(LogicalTypeAnnotation.stringType(), schema.getType("name").getLogicalTypeAnnotation());
+            List<BlockMetaData> rowGroups = reader.getRowGroups();
+            assertTrue(rowGroups.size() > 1);
+            assertEquals(rows.size(), reader.getRecordCount());
+            for (BlockMetaData rowGroup : rowGroups) {
+                ColumnChunkMetaData name = rowGroup.getColumns().get(1);
+                ColumnChunkMetaData code = rowGroup.getColumns().get(2);
+                assertTrue(name.getEncodings().contains(Encoding.PLAIN_DICTIONARY));
+                //the distinct codes outgrow the dictionary, the chunk falls back to the plain values
+                assertFalse(code.getEncodings().contains(Encoding.PLAIN_DICTIONARY));
+            }
+
+            List<Group> groups = readAll(reader, schema);
+            assertEquals(rows.size(), groups.size());
+            for (int i = 0; i < rows.size(); i++) {
+                Object[] row = rows.get(i);
+                Group group = groups.get(i);
+                assertEquals(row[0], group.getLong("id", 0));
+                assertEquals(row[1], group.getString("name", 0));
+                assertEquals(row[2], group.getString("code", 0));
+                if (row[3] == null) {
+                    assertEquals(0, group.getFieldRepetitionCount("amount"));
+                    assertEquals(0, group.getFieldRepetitionCount("day"));
+                    assertEquals(0, group.getFieldRepetitionCount("at"));
+                    assertEquals(0, group.getFieldRepetitionCount("flag"));
+                    assertEquals(0, group.getFieldRepetitionCount("ratio"));
+                    assertEquals(0, group.getFieldRepetitionCount("data"));
+                    continue;
+                }
+                assertEquals(row[3], new BigDecimal(new BigInteger(group.getBinary("amount", 0).getBytes()), 2));
+                assertEquals(((Date) row[4]).toLocalDate(), LocalDate.ofEpochDay(group.getInteger("day", 0)));
+                assertEquals(((Timestamp) row[5]).toLocalDateTime(), LocalDateTime.ofEpochSecond(group.getLong("at", 0) / 1000, (int) (group.getLong("at", 0) % 1000) * 1_000_000, ZoneOffset.UTC));
+                assertEquals(row[6], group.getBoolean("flag", 0));
+                assertEquals(row[7], group.getDouble("ratio", 0));
+                assertArrayEquals((byte[]) row[8], group.getBinary("data", 0).getBytes());
+            }
+        }
+    }
+
+    @Test
+    public void test_empty_result_and_duplicate_names() throws Exception {
+        ResultSetStub duplicates = new ResultSetStub(new String[]{"a", "a", "a"}, new int[]{Types.INTEGER, Types.VARCHAR, Types.DOUBLE}, new int[3], new int[3]);
+        ParquetResultWriter writer = new ParquetResultWriter(directory.toFile(), () -> "", 1 << 20, 0, false, 16);
+        File output = writer.initializeResultFile("empty");
+        writer.write("t", duplicates.of(List.of()), output);
+
+        try (ParquetFileReader reader = ParquetFileReader.open(new LocalInputFile(output.toPath().resolve("t.parquet")))) {
+            MessageType schema = reader.getFooter().getFileMetaData().getSchema();
+            assertEquals(List.of("a", "a_2", "a_3"), List.of(schema.getFieldName(0), schema.getFieldName(1), schema.getFieldName(2)));
+            assertEquals(0, reader.getRecordCount());
+            assertNull(reader.readNextRowGroup());
+        }
+    }
+
+    @Test
+    public void test_hybrid_encoding_of_known_values() {
+        //a run of ten zeros is run-length encoded, the rest is a bit-packed group padded to eight values
+        ParquetColumnChunk.Buffer buffer = new ParquetColumnChunk.Buffer();
+        ParquetColumnChunk.encodeHybrid(new int[]{0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 1, 0, 1}, 13, 1, buffer);
+        assertArrayEquals(new byte[]{0x14, 0x00, 0x03, 0x05}, toBytes(buffer));
+
+        //the example of the Parquet format specification: 0 to 7 bit-packed by 3 bits
+        buffer = new ParquetColumnChunk.Buffer();
+        ParquetColumnChunk.encodeHybrid(new int[]{0, 1, 2, 3, 4, 5, 6, 7}, 8, 3, buffer);
+        assertArrayEquals(new byte[]{0x03, (byte) 0x88, (byte) 0xC6, (byte) 0xFA}, toBytes(buffer));
+
+        //a run longer than a varint byte, its value takes two bytes
+        buffer = new ParquetColumnChunk.Buffer();
+        int[] values = new int[100];
+        Arrays.fill(values, 300);
+        ParquetColumnChunk.encodeHybrid(values, 100, 9, buffer);
+        assertArrayEquals(new byte[]{(byte) 0xC8, 0x01, 0x2C, 0x01}, toBytes(buffer));
+    }
+
+    private List<Object[]> createRows(int count) {
+        String[] names = {"first", "second", "third"};
+        List<Object[]> rows = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            boolean nulls = i % 7 == 3;
+            rows.add(new Object[]{
+                    (long) i * 1_000_003 - 5_000,
+                    names[i % names.length],
+                    "code-" + i,
+                    nulls ? null : new BigDecimal(BigInteger.valueOf(i * 12_345L - 777), 2),
+                    nulls ? null : Date.valueOf(LocalDate.of(2024, 1, 1).plusDays(i)),
+                    nulls ? null : Timestamp.valueOf(LocalDateTime.of(2024, 2, 29, 13, 45, 10).plusSeconds(i * 61L).plusNanos(123_000_000)),
+                    nulls ? null : i % 2 == 0,
+                    nulls ? null : i / 8.0,
+                    nulls ? null : ("bytes " + i).getBytes(StandardCharsets.UTF_8)
+            });
+        }
+        return rows;
+    }
+
+    private List<Group> readAll(ParquetFileReader reader, MessageType schema) throws Exception {
+        List<Group> groups = new ArrayList<>();
+        PageReadStore pages;
+        while ((pages = reader.readNextRowGroup()) != null) {
+            RecordReader<Group> records = new ColumnIOFactory().getColumnIO(schema).getRecordReader(pages, new GroupRecordConverter(schema));
+            for (long i = 0; i < pages.getRowCount(); i++) groups.add(records.read());
+        }
+        return groups;
+    }
+
+    private byte[] toBytes(ParquetColumnChunk.Buffer buffer) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            buffer.writeTo(out);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,80 @@
+package com.valdisdot.sqlexecutor.executor.writer;
+
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.util.List;
+
+// A forward-only result set of the rows of the declared columns, the values are served as the drivers serve them
+class ResultSetStub {
+    private final String[] names;
+    private final int[] types;
+    private final int[] precisions;
+    private final int[] scales;
+
+    // the precisions and the scales are declared for all columns, decimals use them
+    ResultSetStub(String[] names, int[] types, int[] precisions, int[] scales) {
+        this.names = names;
+        this.types = types;
+        this.precisions = precisions;
+        this.scales = scales;
+    }
+
+    ResultSet of(List<Object[]> rows) {
+        ResultSetMetaData metaData = (ResultSetMetaData) Proxy.newProxyInstance(getClass().getClassLoader(), new Class[]{ResultSetMetaData.class}, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "getColumnCount":
+                    return names.length;
+                case "getColumnName":
+                case "getColumnLabel":
+                    return names[(Integer) args[0] - 1];
+                case "getColumnType":
+                    return types[(Integer) args[0] - 1];
+                case "getPrecision":
+                    return precisions[(Integer) args[0] - 1];
+                case "getScale":
+                    return scales[(Integer) args[0] - 1];
+                default:
+                    throw new UnsupportedOperationException(method.getName());
+            }
+        });
+        int[] row = {-1};
+        boolean[] lastValueNull = {false};
+        return (ResultSet) Proxy.newProxyInstance(getClass().getClassLoader(), new Class[]{ResultSet.class}, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "getMetaData":
+                    return metaData;
+                case "next":
+                    return ++row[0] < rows.size();
+                case "wasNull":
+                    return lastValueNull[0];
+                case "close":
+                    return null;
+            }
+            if (!method.getName().startsWith("get")) throw new UnsupportedOperationException(method.getName());
+            Object value = rows.get(row[0])[(Integer) args[0] - 1];
+            lastValueNull[0] = value == null;
+            switch (method.getName()) {
+                case "getObject":
+                    return value;
+                case "getString":
+                    return value == null ? null : value instanceof byte[] ? new String((byte[]) value, StandardCharsets.UTF_8) : value.toString();
+                case "getBoolean":
+                    return value != null && (Boolean) value;
+                case "getLong":
+                    return value == null ? 0L : ((Number) value).longValue();
+                case "getInt":
+                    return value == null ? 0 : ((Number) value).intValue();
+                case "getDouble":
+                    return value == null ? 0.0 : ((Number) value).doubleValue();
+                case "getBigDecimal":
+                    return value;
+                case "getBytes":
+                    return value instanceof String ? ((String) value).getBytes(StandardCharsets.UTF_8) : value;
+                default:
+                    throw new UnsupportedOperationException(method.getName());
+            }
+        });
+    }
+}
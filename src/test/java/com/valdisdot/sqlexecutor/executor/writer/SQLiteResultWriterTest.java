@@ -0,0 +1,285 @@
+package com.valdisdot.sqlexecutor.executor.writer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.valdisdot.sqlexecutor.configuration.ApplicationConfig;
+import com.valdisdot.sqlexecutor.executor.database.DatabaseManager;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SQLiteResultWriterTest {
+    private static final ResultSetStub ROWS = new ResultSetStub(
+            new String[]{"id", "name"},
+            new int[]{Types.INTEGER, Types.VARCHAR},
+            new int[]{10, 100},
+            new int[]{0, 0}
+    );
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void test_decimals_keep_their_values() throws Exception {
+        DatabaseManager databaseManager = new DatabaseManager(List.of(), new ObjectMapper().readValue("{}", ApplicationConfig.class));
+        SQLiteResultWriter writer = new SQLiteResultWriter(directory.toFile(), databaseManager);
+        File output = writer.initializeResultFile("decimals");
+        //declared precision, a wide declared precision and an unknown one
+        int[] precisions = {10, 30, 0};
+        List<Object[]> rows = List.of(
+                new Object[]{new BigDecimal("253.78"), new BigDecimal("12345678901234567.89"), new BigDecimal("12345678901234567890")},
+                new Object[]{new BigDecimal("-1.50"), new BigDecimal("0.10"), new BigDecimal("42")}
+        );
+        writer.write("t", resultSet(precisions, rows), output);
+
+        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + output.getAbsolutePath()); Statement statement = connection.createStatement()) {
+            try (ResultSet rs = statement.executeQuery("SELECT c1, c2, c3, typeof(c1), typeof(c2), typeof(c3) FROM t;")) {
+                assertTrue(rs.next());
+                assertEquals(253.78, rs.getDouble(1));
+                assertEquals("real", rs.getString(4));
+                assertEquals("12345678901234567.89", rs.getString(2));
+                assertEquals("text", rs.getString(5));
+                assertEquals("12345678901234567890", rs.getString(3));
+                assertEquals("text", rs.getString(6));
+                assertTrue(rs.next());
+                assertEquals(-1.5, rs.getDouble(1));
+                assertEquals(42, rs.getLong(3));
+                assertEquals("integer", rs.getString(6));
+                assertFalse(rs.next());
+            }
+        }
+    }
+
+    @Test
+    public void test_wide_money_columns_stay_numeric() throws Exception {
+        DatabaseManager databaseManager = new DatabaseManager(List.of(), new ObjectMapper().readValue("{}", ApplicationConfig.class));
+        SQLiteResultWriter writer = new SQLiteResultWriter(directory.toFile(), databaseManager);
+        File output = writer.initializeResultFile("money");
+        //DECIMAL(18,2)
+        List<Object[]> rows = List.of(
+                new Object[]{new BigDecimal("253.78")},
+                new Object[]{new BigDecimal("1000.00")},
+                new Object[]{new BigDecimal("-0.78")}
+        );
+        writer.write("t", resultSet(new int[]{18}, rows), output);
+
+        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + output.getAbsolutePath()); Statement statement = connection.createStatement()) {
+            try (ResultSet rs = statement.executeQuery("SELECT group_concat(typeof(c1)), sum(c1), typeof(sum(c1)) FROM t;")) {
+                assertTrue(rs.next());
+                assertEquals("real,integer,real", rs.getString(1));
+                assertEquals(1253.0, rs.getDouble(2));
+                assertEquals("real", rs.getString(3));
+            }
+            try (ResultSet rs = statement.executeQuery("SELECT type FROM pragma_table_info('t');")) {
+                assertTrue(rs.next());
+                assertEquals("", rs.getString(1));
+            }
+        }
+    }
+
+    @Test
+    public void test_rows_are_flushed_in_chunks_of_one_transaction() throws Exception {
+        CountingDatabaseManager databaseManager = new CountingDatabaseManager();
+        SQLiteResultWriter writer = new SQLiteResultWriter(directory.toFile(), databaseManager, 3, Map.of());
+        File output = writer.initializeResultFile("chunks");
+        writer.write("t", ROWS.of(rows(10)), output);
+        //three full chunks and the rest
+        assertEquals(4, databaseManager.batches.get());
+        assertEquals(1, databaseManager.commits.get());
+        assertEquals(10, count(output, "t"));
+
+        //a source failure after the flushed chunks rolls them back
+        ResultSet source = ROWS.of(rows(5));
+        ResultSet failing = (ResultSet) Proxy.newProxyInstance(getClass().getClassLoader(), new Class[]{ResultSet.class}, (proxy, method, args) -> {
+            if ("next".equals(method.getName()) && !source.next()) throw new SQLException("connection reset");
+            return "next".equals(method.getName()) ? Boolean.TRUE : invoke(method, source, args);
+        });
+        assertThrows(SQLException.class, () -> writer.write("failed", failing, output));
+        assertEquals(0, count(output, "failed"));
+    }
+
+    @Test
+    public void test_sqlite_source_is_staged_natively() throws Exception {
+        DatabaseManager databaseManager = new DatabaseManager(List.of(), new ObjectMapper().readValue("{}", ApplicationConfig.class));
+        SQLiteResultWriter writer = new SQLiteResultWriter(directory.toFile(), databaseManager);
+        File source = writer.write("source", "items", ROWS.of(rows(20)));
+        File output = writer.initializeResultFile("native");
+        writer.writeAttached("even", source.getAbsolutePath(), "SELECT id, name FROM items WHERE id % 2 = 0;;", output);
+        assertEquals(10, count(output, "even"));
+
+        //a statement which can't define a table fails without leaving anything, the caller fetches the result instead
+        assertThrows(SQLException.class, () -> writer.writeAttached("plan", source.getAbsolutePath(), "PRAGMA table_info(items)", output));
+        assertEquals(0, count(output, "plan"));
+        try (
+                Connection connection = DriverManager.getConnection("jdbc:sqlite:" + source.getAbsolutePath());
+                Statement statement = connection.createStatement();
+                ResultSet rs = statement.executeQuery("PRAGMA table_info(items);")
+        ) {
+            writer.write("plan", rs, output);
+        }
+        assertEquals(2, count(output, "plan"));
+    }
+
+    @Test
+    public void test_in_memory_staging_is_moved_to_its_file() throws Exception {
+        DatabaseManager databaseManager = new DatabaseManager(List.of(), new ObjectMapper().readValue("{}", ApplicationConfig.class));
+        SQLiteResultWriter writer = new SQLiteResultWriter(directory.toFile(), databaseManager, 100, Map.of(), true, 64 * 1024);
+        File output = writer.initializeResultFile("memory");
+        writer.write("small", ROWS.of(rows(5)), output);
+        //the other connections see the shared in-memory database, nothing is written to the file
+        assertFalse(output.exists());
+        try (Connection connection = writer.getConnection(output); Statement statement = connection.createStatement()) {
+            try (ResultSet rs = statement.executeQuery("SELECT count(*) FROM small;")) {
+                assertEquals(5, rs.getInt(1));
+            }
+        }
+
+        writer.write("large", ROWS.of(rows(5000)), output);
+        assertTrue(output.isFile());
+        assertEquals(5, count(output, "small"));
+        assertEquals(5000, count(output, "large"));
+        //the next tables are written to the file
+        writer.write("next", ROWS.of(rows(1)), output);
+        assertEquals(1, count(output, "next"));
+    }
+
+    @Test
+    public void test_staging_databases_are_attached_as_parts() throws Exception {
+        DatabaseManager databaseManager = new DatabaseManager(List.of(), new ObjectMapper().readValue("{}", ApplicationConfig.class));
+        SQLiteResultWriter writer = new SQLiteResultWriter(directory.toFile(), databaseManager);
+        File main = writer.write("main", "a", ROWS.of(rows(1)));
+        File first = writer.write("staging.part1", "b", ROWS.of(rows(2)));
+        File second = writer.write("staging.part2", "c", ROWS.of(rows(3)));
+        File third = writer.write("staging.part3", "a", ROWS.of(rows(4)));
+
+        try (Connection connection = writer.getConnection(main, List.of(first, second, third)); Statement statement = connection.createStatement()) {
+            //unqualified names resolve in the main database first, then in the order of attaching
+            try (ResultSet rs = statement.executeQuery("SELECT (SELECT count(*) FROM a), (SELECT count(*) FROM b), (SELECT count(*) FROM c), (SELECT count(*) FROM part3.a);")) {
+                assertEquals(1, rs.getInt(1));
+                assertEquals(2, rs.getInt(2));
+                assertEquals(3, rs.getInt(3));
+                assertEquals(4, rs.getInt(4));
+            }
+        }
+
+        File output = writer.initializeResultFile("all");
+        writer.writeAllDatabaseTables(main, List.of(first, second, third), output, writer);
+        assertEquals(1, count(output, "a"));
+        assertEquals(2, count(output, "b"));
+        assertEquals(3, count(output, "c"));
+
+        List<File> tooMany = Collections.nCopies(11, first);
+        assertThrows(SQLException.class, () -> writer.getConnection(main, tooMany));
+    }
+
+    // a result of the decimal columns of the precisions, the scale of every column is 2
+    private ResultSet resultSet(int[] precisions, List<Object[]> rows) {
+        ResultSetMetaData metaData = (ResultSetMetaData) Proxy.newProxyInstance(getClass().getClassLoader(), new Class[]{ResultSetMetaData.class}, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "getColumnCount":
+                    return precisions.length;
+                case "getColumnName":
+                case "getColumnLabel":
+                    return "c" + args[0];
+                case "getColumnType":
+                    return Types.DECIMAL;
+                case "getPrecision":
+                    return precisions[(Integer) args[0] - 1];
+                case "getScale":
+                    return 2;
+                default:
+                    throw new UnsupportedOperationException(method.getName());
+            }
+        });
+        int[] row = {-1};
+        return (ResultSet) Proxy.newProxyInstance(getClass().getClassLoader(), new Class[]{ResultSet.class}, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "getMetaData":
+                    return metaData;
+                case "next":
+                    return ++row[0] < rows.size();
+                case "getObject":
+                    return rows.get(row[0])[(Integer) args[0] - 1];
+                default:
+                    throw new UnsupportedOperationException(method.getName());
+            }
+        });
+    }
+
+    private List<Object[]> rows(int count) {
+        List<Object[]> rows = new ArrayList<>(count);
+        for (int i = 1; i <= count; i++) rows.add(new Object[]{i, "row " + i});
+        return rows;
+    }
+
+    private long count(File database, String table) throws SQLException {
+        try (
+                Connection connection = DriverManager.getConnection("jdbc:sqlite:" + database.getAbsolutePath());
+                Statement statement = connection.createStatement();
+                ResultSet rs = statement.executeQuery("SELECT count(*) FROM sqlite_master WHERE type = 'table' AND name = '" + table + "';")
+        ) {
+            if (rs.getInt(1) == 0) return 0;
+        }
+        try (
+                Connection connection = DriverManager.getConnection("jdbc:sqlite:" + database.getAbsolutePath());
+                Statement statement = connection.createStatement();
+                ResultSet rs = statement.executeQuery("SELECT count(*) FROM \"" + table + "\";")
+        ) {
+            return rs.getLong(1);
+        }
+    }
+
+    // a call of the wrapped object, which throws as the object itself
+    private static Object invoke(Method method, Object target, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    // counts the flushed chunks and the commits of the local connections
+    private static class CountingDatabaseManager extends DatabaseManager {
+        private final AtomicInteger batches = new AtomicInteger();
+        private final AtomicInteger commits = new AtomicInteger();
+
+        private CountingDatabaseManager() throws Exception {
+            super(List.of(), new ObjectMapper().readValue("{}", ApplicationConfig.class));
+        }
+
+        @Override
+        public Connection getLocalConnection(String databaseFilePath) throws SQLException {
+            Connection connection = super.getLocalConnection(databaseFilePath);
+            return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class[]{Connection.class}, (proxy, method, args) -> {
+                if ("commit".equals(method.getName())) commits.incrementAndGet();
+                Object result = invoke(method, connection, args);
+                if (!"prepareStatement".equals(method.getName())) return result;
+                PreparedStatement preparedStatement = (PreparedStatement) result;
+                return Proxy.newProxyInstance(getClass().getClassLoader(), new Class[]{PreparedStatement.class}, (statementProxy, statementMethod, statementArgs) -> {
+                    if ("executeBatch".equals(statementMethod.getName())) batches.incrementAndGet();
+                    return invoke(statementMethod, preparedStatement, statementArgs);
+                });
+            });
+        }
+    }
+}
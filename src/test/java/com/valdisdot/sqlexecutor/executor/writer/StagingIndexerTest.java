@@ -0,0 +1,67 @@
+package com.valdisdot.sqlexecutor.executor.writer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.valdisdot.sqlexecutor.configuration.ApplicationConfig;
+import com.valdisdot.sqlexecutor.executor.database.DatabaseManager;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StagingIndexerTest {
+    private static final ResultSetStub CUSTOMERS = new ResultSetStub(new String[]{"id", "name"}, new int[]{Types.INTEGER, Types.VARCHAR}, new int[]{10, 100}, new int[2]);
+    private static final ResultSetStub ORDERS = new ResultSetStub(new String[]{"id", "customer_id"}, new int[]{Types.INTEGER, Types.INTEGER}, new int[]{10, 10}, new int[2]);
+    private static final String QUERY = "SELECT c.name, count(*) FROM orders o JOIN \"customers\" AS c ON c.id = o.customer_id GROUP BY c.name;";
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void test_automatic_indexes_are_created_on_the_staged_tables() throws Exception {
+        SQLiteResultWriter writer = new SQLiteResultWriter(directory.toFile(), new DatabaseManager(List.of(), new ObjectMapper().readValue("{}", ApplicationConfig.class)));
+        List<Object[]> customers = new ArrayList<>();
+        List<Object[]> orders = new ArrayList<>();
+        for (int i = 1; i <= 100; i++) customers.add(new Object[]{i, "customer " + i});
+        for (int i = 1; i <= 1000; i++) orders.add(new Object[]{i, i % 100 + 1});
+        File main = writer.write("main", "orders", ORDERS.of(orders));
+        File part = writer.write("staging.part1", "customers", CUSTOMERS.of(customers));
+
+        try (Connection connection = writer.getConnection(main, List.of(part)); Statement statement = connection.createStatement()) {
+            //the plan names the table by its alias
+            assertTrue(getPlan(statement).contains("SEARCH c USING AUTOMATIC COVERING INDEX (id=?)"), getPlan(statement));
+            new StagingIndexer().createIndexes(connection, QUERY);
+
+            //the index is created in the database of the table
+            try (ResultSet rs = statement.executeQuery("SELECT tbl_name, sql FROM part1.sqlite_master WHERE type = 'index';")) {
+                assertTrue(rs.next());
+                assertEquals("customers", rs.getString(1));
+                assertEquals("CREATE INDEX \"staging_customers_id\" ON \"customers\" (\"id\")", rs.getString(2));
+                assertFalse(rs.next());
+            }
+            assertFalse(getPlan(statement).contains("AUTOMATIC"), getPlan(statement));
+            try (ResultSet rs = statement.executeQuery("SELECT count(*) FROM main.sqlite_master WHERE type = 'index';")) {
+                assertEquals(0, rs.getInt(1));
+            }
+
+            //a query which can't be planned is left to its execution
+            new StagingIndexer().createIndexes(connection, "SELECT * FROM absent;");
+        }
+    }
+
+    private String getPlan(Statement statement) throws Exception {
+        StringBuilder plan = new StringBuilder();
+        try (ResultSet rs = statement.executeQuery("EXPLAIN QUERY PLAN " + QUERY)) {
+            while (rs.next()) plan.append(rs.getString("detail")).append('\n');
+        }
+        return plan.toString();
+    }
+}
@@ -0,0 +1,193 @@
+package com.valdisdot.sqlexecutor.executor.writer;
+
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.util.DefaultTempFileCreationStrategy;
+import org.apache.poi.util.TempFile;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class XLSXResultWriterTest {
+    private static final ResultSetStub TYPES = new ResultSetStub(
+            new String[]{"int", "long", "decimal", "integer", "double", "flag", "day", "at", "text"},
+            new int[]{Types.INTEGER, Types.BIGINT, Types.DECIMAL, Types.NUMERIC, Types.DOUBLE, Types.BOOLEAN, Types.DATE, Types.TIMESTAMP, Types.VARCHAR},
+            new int[]{10, 19, 30, 30, 0, 0, 0, 0, 20},
+            new int[]{0, 0, 2, 0, 0, 0, 0, 0, 0}
+    );
+    private static final ResultSetStub TEXT = new ResultSetStub(new String[]{"text"}, new int[]{Types.VARCHAR}, new int[]{100}, new int[1]);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void test_typed_cells() throws Exception {
+        List<Object[]> rows = List.of(
+                new Object[]{
+                        42, 999_999_999_999_999L, new BigDecimal("253.78"), BigInteger.valueOf(-999_999_999_999_999L), 0.25, true,
+                        Date.valueOf("2024-02-29"), Timestamp.valueOf("2024-02-29 13:45:10"), "007"
+                },
+                //beyond the 15 digits Excel keeps, the values are exact text
+                new Object[]{
+                        -7, 1_000_000_000_000_000L, new BigDecimal("12345678901234567.89"), new BigInteger("12345678901234567890"), Double.NaN, false,
+                        null, null, null
+                }
+        );
+        XLSXResultWriter writer = new XLSXResultWriter(directory.toFile(), () -> "");
+        File output = writer.write("typed", "t", TYPES.of(rows));
+
+        try (XSSFWorkbook workbook = read(output)) {
+            Sheet sheet = workbook.getSheet("t");
+            assertEquals("decimal", sheet.getRow(0).getCell(2).getStringCellValue());
+            Row row = sheet.getRow(1);
+            assertEquals(42, row.getCell(0).getNumericCellValue());
+            assertEquals(999_999_999_999_999.0, row.getCell(1).getNumericCellValue());
+            assertEquals(253.78, row.getCell(2).getNumericCellValue());
+            assertEquals(-999_999_999_999_999.0, row.getCell(3).getNumericCellValue());
+            assertEquals(0.25, row.getCell(4).getNumericCellValue());
+            assertTrue(row.getCell(5).getBooleanCellValue());
+            assertEquals(LocalDate.of(2024, 2, 29).atStartOfDay(), row.getCell(6).getLocalDateTimeCellValue());
+            assertEquals("yyyy-mm-dd", row.getCell(6).getCellStyle().getDataFormatString());
+            assertEquals(LocalDateTime.of(2024, 2, 29, 13, 45, 10), row.getCell(7).getLocalDateTimeCellValue());
+            assertEquals("yyyy-mm-dd hh:mm:ss", row.getCell(7).getCellStyle().getDataFormatString());
+            //a text column stays text, even if it looks like a number
+            assertEquals(CellType.STRING, row.getCell(8).getCellType());
+            assertEquals("007", row.getCell(8).getStringCellValue());
+
+            row = sheet.getRow(2);
+            assertEquals(-7, row.getCell(0).getNumericCellValue());
+            assertEquals("1000000000000000", row.getCell(1).getStringCellValue());
+            assertEquals("12345678901234567.89", row.getCell(2).getStringCellValue());
+            assertEquals("12345678901234567890", row.getCell(3).getStringCellValue());
+            assertEquals("NaN", row.getCell(4).getStringCellValue());
+            assertFalse(row.getCell(5).getBooleanCellValue());
+            //nulls are no cells
+            assertNull(row.getCell(6));
+            assertNull(row.getCell(8));
+            assertEquals(3, sheet.getPhysicalNumberOfRows());
+        }
+    }
+
+    @Test
+    public void test_streaming_window_spills_rows_and_releases_them() throws Exception {
+        Path temporaryFiles = Files.createDirectory(directory.resolve("poifiles"));
+        TempFile.setTempFileCreationStrategy(new DefaultTempFileCreationStrategy(temporaryFiles.toFile()));
+        try {
+            List<Object[]> rows = new ArrayList<>();
+            for (int i = 0; i < 500; i++) rows.add(new Object[]{"row " + i});
+            XLSXResultWriter writer = new XLSXResultWriter(directory.toFile(), () -> "", true, 10, 0, XLSXResultWriter.MAX_ROWS_PER_SHEET);
+            File output = writer.initializeResultFile("streaming");
+            writer.write("t", TEXT.of(rows), output);
+            //the rows out of the window are in the temporary file of the sheet
+            assertTrue(countFiles(temporaryFiles) > 0);
+            writer.finalizeResultFile(output);
+            assertEquals(0, countFiles(temporaryFiles));
+
+            try (XSSFWorkbook workbook = read(output)) {
+                Sheet sheet = workbook.getSheet("t");
+                assertEquals(501, sheet.getPhysicalNumberOfRows());
+                assertEquals("row 0", sheet.getRow(1).getCell(0).getStringCellValue());
+                assertEquals("row 499", sheet.getRow(500).getCell(0).getStringCellValue());
+            }
+        } finally {
+            TempFile.setTempFileCreationStrategy(new DefaultTempFileCreationStrategy());
+        }
+    }
+
+    @Test
+    public void test_sampled_column_widths() throws Exception {
+        List<Object[]> rows = List.of(new Object[]{"abc"}, new Object[]{"abcdefghij"}, new Object[]{"x".repeat(50)});
+        XLSXResultWriter writer = new XLSXResultWriter(directory.toFile(), () -> "", false, 0, 2, XLSXResultWriter.MAX_ROWS_PER_SHEET);
+        File output = writer.write("sampled", "t", TEXT.of(rows));
+        XLSXResultWriter defaultWidths = new XLSXResultWriter(directory.toFile(), () -> "", false, 0, 0, XLSXResultWriter.MAX_ROWS_PER_SHEET);
+        File defaultOutput = defaultWidths.write("default", "t", TEXT.of(rows));
+
+        try (XSSFWorkbook workbook = read(output); XSSFWorkbook defaultWorkbook = read(defaultOutput)) {
+            //the widest of the two sampled rows and the padding, the third row is not sampled
+            assertEquals((10 + 2) * 256, workbook.getSheet("t").getColumnWidth(0));
+            Sheet sheet = defaultWorkbook.getSheet("t");
+            assertEquals(sheet.getDefaultColumnWidth() * 256, sheet.getColumnWidth(0));
+        }
+    }
+
+    @Test
+    public void test_continuation_sheets() throws Exception {
+        String longName = "a result table of thirty chars";
+        assertEquals(30, longName.length());
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < 8; i++) rows.add(new Object[]{"row " + i});
+        XLSXResultWriter writer = new XLSXResultWriter(directory.toFile(), () -> "", false, 0, 10, 3);
+        File output = writer.initializeResultFile("continued");
+        writer.write("b", TEXT.of(rows.subList(0, 1)), output);
+        writer.write(longName, TEXT.of(rows), output);
+        writer.orderResults(output, List.of(longName, "b"));
+        writer.finalizeResultFile(output);
+
+        try (XSSFWorkbook workbook = read(output)) {
+            List<String> names = new ArrayList<>();
+            for (Sheet sheet : workbook) names.add(sheet.getSheetName());
+            //shortened to the 31 characters of a sheet name
+            assertEquals(List.of(longName, "a result table of thirty ch (2)", "a result table of thirty ch (3)", "b"), names);
+            int[] rowCounts = {3, 3, 2, 1};
+            for (int i = 0; i < rowCounts.length; i++) {
+                Sheet sheet = workbook.getSheetAt(i);
+                assertEquals("text", sheet.getRow(0).getCell(0).getStringCellValue());
+                assertEquals(rowCounts[i] + 1, sheet.getPhysicalNumberOfRows());
+            }
+            assertEquals("row 3", workbook.getSheetAt(1).getRow(1).getCell(0).getStringCellValue());
+            assertEquals("row 7", workbook.getSheetAt(2).getRow(2).getCell(0).getStringCellValue());
+        }
+    }
+
+    @Test
+    public void test_file_is_written_once_by_finalize() throws Exception {
+        XLSXResultWriter writer = new XLSXResultWriter(directory.toFile(), () -> "");
+        File output = writer.initializeResultFile("once");
+        writer.write("first", TEXT.of(List.<Object[]>of(new Object[]{"a"})), output);
+        writer.write("second", TEXT.of(List.<Object[]>of(new Object[]{"b"})), output);
+        assertFalse(output.exists() && output.length() > 0);
+        writer.finalizeResultFile(output);
+        try (XSSFWorkbook workbook = read(output)) {
+            assertEquals(2, workbook.getNumberOfSheets());
+        }
+        assertThrows(ResultWriterException.class, () -> writer.finalizeResultFile(output));
+        assertThrows(ResultWriterException.class, () -> writer.write("third", TEXT.of(List.of()), output));
+
+        //a discarded result leaves no file
+        File discarded = writer.initializeResultFile("discarded");
+        writer.write("first", TEXT.of(List.of()), discarded);
+        writer.discardResultFile(discarded);
+        assertFalse(discarded.exists());
+    }
+
+    private XSSFWorkbook read(File output) throws Exception {
+        try (FileInputStream in = new FileInputStream(output)) {
+            return new XSSFWorkbook(in);
+        }
+    }
+
+    private long countFiles(Path directory) throws Exception {
+        try (Stream<Path> files = Files.walk(directory)) {
+            return files.filter(Files::isRegularFile).count();
+        }
+    }
+}
@@ -10,7 +10,7 @@ public class SequenceQueueTest {
         int i = 1;
         int amount = 3;
         SequenceQueue queue = new SequenceQueue("test");
-        for(int j = i; j <= amount; ++j) queue.addSequence("con" + j, "dat" + j, "seq" + j, "res" + j);
+        for(int j = i; j <= amount; ++j) queue.addSequence("con" + j, "dat" + j, "seq" + j, "res" + j, j == amount ? null : j * 100);
         queue.addPostSequence("seq", "res");
 
         assertEquals("test", queue.getSequenceName());
@@ -19,6 +19,7 @@ public class SequenceQueueTest {
             assertEquals("dat" + j, queue.nextDatabase());
             assertEquals("seq" + j, queue.nextSequence());
             assertEquals("res" + j, queue.nextResultIdentifier());
+            assertEquals(j == amount ? null : j * 100, queue.nextFetchSize());
         }
         assertFalse(queue.hasNextSequence());
         assertTrue(queue.hasPostSequence());
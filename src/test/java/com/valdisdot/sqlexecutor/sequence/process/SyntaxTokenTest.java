@@ -1,21 +1,36 @@
 package com.valdisdot.sqlexecutor.sequence.process;
 
 import org.junit.jupiter.api.Test;
+import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
-import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.*;
 
 public class SyntaxTokenTest {
     @Test
-    public void test_sequence_token_matching(){
-        assertTrue(Pattern.compile(SyntaxToken.SEQUENCE_HEAD_TOKEN.token(), Pattern.DOTALL).matcher("## head\n## end").matches());
-        assertTrue(Pattern.compile(SyntaxToken.SNIPPETS_TOKEN.token(), Pattern.DOTALL).matcher("## snippets\n## end").matches());
-        assertTrue(Pattern.compile(SyntaxToken.REGULAR_SEQUENCE_TOKEN.token(), Pattern.DOTALL).matcher("## sequence\n## end").matches());
-        assertTrue(Pattern.compile(SyntaxToken.POST_SEQUENCE_TOKEN.token(), Pattern.DOTALL).matcher("## post-sequence\n## end").matches());
-        assertTrue(Pattern.compile(SyntaxToken.NAME_TOKEN.token(), Pattern.DOTALL).matcher("## name:").matches());
-        assertTrue(Pattern.compile(SyntaxToken.IDENTIFIERS_TOKEN.token(), Pattern.DOTALL).matcher("## identifiers:").matches());
-        assertTrue(Pattern.compile(SyntaxToken.CONNECTION_TOKEN.token(), Pattern.DOTALL).matcher("## connection:").matches());
-        assertTrue(Pattern.compile(SyntaxToken.DATABASE_TOKEN.token(), Pattern.DOTALL).matcher("## database:").matches());
-        assertTrue(Pattern.compile(SyntaxToken.RESULT_TABLE_TOKEN.token(), Pattern.DOTALL).matcher("## result-table:").matches());
+    public void test_directive_token_matching(){
+        Pattern pattern = Pattern.compile(SyntaxToken.DIRECTIVE_TOKEN.token());
+        Matcher matcher = pattern.matcher("## head");
+        assertTrue(matcher.matches());
+        assertEquals("head", matcher.group(1));
+        assertNull(matcher.group(2));
+
+        matcher = pattern.matcher("  ##post-sequence  ");
+        assertTrue(matcher.matches());
+        assertEquals("post-sequence", matcher.group(1));
+
+        matcher = pattern.matcher("## result-table:  report ");
+        assertTrue(matcher.matches());
+        assertEquals("result-table", matcher.group(1));
+        assertEquals(":", matcher.group(2));
+        assertEquals("report", matcher.group(3));
+
+        //a separator without a value is an empty value
+        matcher = pattern.matcher("## name:");
+        assertTrue(matcher.matches());
+        assertEquals("", matcher.group(3));
+
+        assertFalse(pattern.matcher("select 1 ## head").matches());
+        assertFalse(pattern.matcher("## ").matches());
     }
 }
@@ -51,6 +51,24 @@ public class SequenceHolderBuilderTest {
         assertDoesNotThrow(builder::applySequence);
     }
 
+    @Test
+    public void test_output_format_list() {
+        SequenceHolderBuilder builder = SequenceHolderBuilder.builder();
+        assertDoesNotThrow(() -> builder.outputFormat(" XLSX, csv ,xlsx"));
+        assertThrows(SequenceBuildingException.class, () -> builder.outputFormat("xlsx, "));
+        assertThrows(SequenceBuildingException.class, () -> builder.outputFormat("xlsx csv"));
+        assertDoesNotThrow(() -> {
+            builder.outputFormat("parquet,CSV");
+            builder.name("name");
+            builder.identifier("id");
+            builder.origin(new File(ClassLoader.getSystemResource("script.txt").toURI()));
+            SequenceHolderBuilder.SequenceBuilder sequenceBuilder = builder.sequenceBuilder();
+            sequenceBuilder.connectionIdentifier("connect_id").databaseName("db").resultTable("res").bodyLine("line");
+            sequenceBuilder.applySequence();
+            assertEquals("parquet,csv", builder.build().getOutputFormat());
+        });
+    }
+
     @Test
     public void test_finalize_sequence_holder_builder() throws URISyntaxException {
         SequenceHolderBuilder builder = SequenceHolderBuilder.builder();
@@ -0,0 +1,96 @@
+package com.valdisdot.sqlexecutor.sequence.process.cache;
+
+import com.valdisdot.sqlexecutor.sequence.SequenceHolder;
+import com.valdisdot.sqlexecutor.sequence.process.parser.SequenceParser;
+import com.valdisdot.sqlexecutor.sequence.process.parser.SequenceParserException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SequenceHolderCacheTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    public void test_cache_parses_only_changed_files() throws Exception {
+        File file = copyScript("script.txt");
+        CountingSequenceParser parser = new CountingSequenceParser();
+        SequenceHolderCache cache = new SequenceHolderCache(parser);
+
+        SequenceHolder holder = cache.getSequenceHolder(file);
+        assertSame(holder, cache.getSequenceHolder(file));
+        assertEquals(1, parser.count.get());
+
+        //touched, but not changed
+        Files.setLastModifiedTime(file.toPath(), FileTime.fromMillis(file.lastModified() - 60000));
+        assertSame(holder, cache.getSequenceHolder(file));
+        assertEquals(1, parser.count.get());
+
+        Files.writeString(file.toPath(), Files.readString(file.toPath()).replace("sales report", "sales summary"));
+        SequenceHolder changed = cache.getSequenceHolder(file);
+        assertEquals(2, parser.count.get());
+        assertEquals("sales summary", changed.getName());
+
+        cache.invalidate(file);
+        cache.getSequenceHolder(file);
+        assertEquals(3, parser.count.get());
+    }
+
+    @Test
+    public void test_cache_does_not_keep_broken_files() throws Exception {
+        File file = copyScript("wrong_files/no_head_script.txt");
+        CountingSequenceParser parser = new CountingSequenceParser();
+        SequenceHolderCache cache = new SequenceHolderCache(parser);
+        assertThrows(SequenceParserException.class, () -> cache.getSequenceHolder(file));
+        assertThrows(SequenceParserException.class, () -> cache.getSequenceHolder(file));
+        assertEquals(2, parser.count.get());
+        assertThrows(SequenceParserException.class, () -> cache.getSequenceHolder(new File(directory.toFile(), "absent.txt")));
+    }
+
+    @Test
+    public void test_cache_persistence() throws Exception {
+        File file = copyScript("script.txt");
+        File storeFile = new File(directory.toFile(), "cache/sequence_holder_cache.json");
+        SequenceHolderCache cache = new SequenceHolderCache(new SequenceParser(), storeFile);
+        SequenceHolder holder = cache.getSequenceHolder(file);
+        cache.save();
+        assertTrue(storeFile.isFile());
+
+        CountingSequenceParser parser = new CountingSequenceParser();
+        SequenceHolderCache restored = new SequenceHolderCache(parser, storeFile);
+        restored.load();
+        assertEquals(holder.toString(), restored.getSequenceHolder(file).toString());
+        assertEquals(0, parser.count.get());
+
+        restored.retainAll(List.of());
+        restored.getSequenceHolder(file);
+        assertEquals(1, parser.count.get());
+    }
+
+    private File copyScript(String resource) throws Exception {
+        File file = new File(directory.toFile(), new File(resource).getName());
+        Files.copy(Path.of(ClassLoader.getSystemResource(resource).toURI()), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        //out of the racy interval, so unchanged stats are trusted
+        Files.setLastModifiedTime(file.toPath(), FileTime.fromMillis(System.currentTimeMillis() - 10000));
+        return file;
+    }
+
+    private static class CountingSequenceParser extends SequenceParser {
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public SequenceHolder parseSequenceHolder(String rawText, File file) throws SequenceParserException {
+            count.incrementAndGet();
+            return super.parseSequenceHolder(rawText, file);
+        }
+    }
+}
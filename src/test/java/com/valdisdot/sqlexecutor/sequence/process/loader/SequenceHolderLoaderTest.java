@@ -0,0 +1,52 @@
+package com.valdisdot.sqlexecutor.sequence.process.loader;
+
+import com.valdisdot.sqlexecutor.sequence.SequenceHolder;
+import com.valdisdot.sqlexecutor.sequence.process.cache.SequenceHolderCache;
+import com.valdisdot.sqlexecutor.sequence.process.compiler.SequenceCompiler;
+import com.valdisdot.sqlexecutor.sequence.process.parser.SequenceParser;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SequenceHolderLoaderTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    public void test_failed_files_are_left_to_the_fallback() throws Exception {
+        //the first script refers to an absent snippet, it is parsed, but not compiled
+        List<File> files = List.of(
+                copyScript("script.txt"),
+                copyScript("wrong_files/no_head_script.txt"),
+                copyScript("script_2.txt")
+        );
+        File storeFile = new File(directory.toFile(), "cache/sequence_holder_cache.json");
+        SequenceHolderLoader loader = new SequenceHolderLoader(new SequenceHolderCache(new SequenceParser(), storeFile), new SequenceCompiler(), 2);
+        List<File> fallbackFiles = new ArrayList<>();
+        List<SequenceHolder> holders = loader.load(files, file -> {
+            fallbackFiles.add(file);
+            return null;
+        });
+
+        //the compiling and the parsing failures, in the order of the files
+        assertEquals(List.of(files.get(0), files.get(1)), fallbackFiles);
+        assertEquals(3, holders.size());
+        assertNull(holders.get(0));
+        assertNull(holders.get(1));
+        assertEquals(files.get(2), holders.get(2).getOrigin());
+        assertTrue(storeFile.isFile());
+    }
+
+    private File copyScript(String resource) throws Exception {
+        File file = new File(directory.toFile(), new File(resource).getName());
+        Files.copy(Path.of(ClassLoader.getSystemResource(resource).toURI()), file.toPath());
+        return file;
+    }
+}
@@ -22,6 +22,7 @@ public class SequenceParserTest {
         badFiles.add(new File(ClassLoader.getSystemResource("wrong_files/no_sequences_script.txt").toURI()));
         badFiles.add(new File(ClassLoader.getSystemResource("wrong_files/violate_head_syntax_script.txt.txt").toURI()));
         badFiles.add(new File(ClassLoader.getSystemResource("wrong_files/violate_sequence_syntax_script.txt.txt").toURI()));
+        badFiles.add(new File(ClassLoader.getSystemResource("wrong_files/unclosed_sequence_script.txt").toURI()));
         SequenceParser parser = new SequenceParser();
         badFiles.forEach(file -> assertThrows(SequenceParserException.class, () -> parser.parseSequenceHolder(file)));
     }
@@ -34,6 +35,7 @@ public class SequenceParserTest {
             SequenceHolder sequenceHolder = parser.parseSequenceHolder(file);
             assertEquals("sales report", sequenceHolder.getName());
             assertEquals(Set.of("sales", "report", "year"), sequenceHolder.getIdentifiers());
+            assertEquals("csv", sequenceHolder.getOutputFormat());
             assertEquals("customer_predicate: = 259\r\ndate_predicate: between '2024-01-01 00:00:00' and '2025-01-01 00:00'", sequenceHolder.getSnippetBody());
             List<Sequence> sequences = sequenceHolder.getSequences();
             assertNotNull(sequences);
@@ -50,4 +52,15 @@ public class SequenceParserTest {
             assertEquals("select * from (select * from sale_a union all select * from sale_b) res order by 1\n", postSequence.getBody());
         });
     }
+
+    @Test
+    public void test_parsing_fetch_size() throws URISyntaxException, SequenceParserException {
+        SequenceParser parser = new SequenceParser();
+        List<Sequence> sequences = parser.parseSequenceHolder(new File(ClassLoader.getSystemResource("fetch_size_script.txt").toURI())).getSequences();
+        assertEquals(2, sequences.size());
+        assertNull(sequences.get(0).getFetchSize());
+        assertEquals(500, sequences.get(1).getFetchSize());
+        File badFile = new File(ClassLoader.getSystemResource("wrong_files/not_a_number_fetch_size_script.txt").toURI());
+        assertThrows(SequenceParserException.class, () -> parser.parseSequenceHolder(badFile));
+    }
 }
@@ -0,0 +1,66 @@
+package com.valdisdot.sqlexecutor.sequence.process.watcher;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SequenceDirectoryWatcherTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    public void test_watcher_reports_debounced_changes() throws Exception {
+        BlockingQueue<Set<File>> reports = new LinkedBlockingQueue<>();
+        File file = new File(directory.toFile(), "script.txt");
+        try (SequenceDirectoryWatcher watcher = new SequenceDirectoryWatcher(directory.toFile(), 300, reports::add)) {
+            watcher.start();
+            for (int i = 0; i < 5; i++) Files.writeString(file.toPath(), "## head " + i);
+            Set<File> report = reports.poll(10, TimeUnit.SECONDS);
+            assertEquals(Set.of(file), report);
+            //the repeated saves are reported once
+            assertNull(reports.poll(1, TimeUnit.SECONDS));
+
+            Files.delete(file.toPath());
+            assertEquals(Set.of(file), reports.poll(10, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    public void test_watcher_survives_failing_listener() throws Exception {
+        BlockingQueue<Set<File>> reports = new LinkedBlockingQueue<>();
+        AtomicInteger calls = new AtomicInteger();
+        File file = new File(directory.toFile(), "script.txt");
+        try (SequenceDirectoryWatcher watcher = new SequenceDirectoryWatcher(directory.toFile(), 100, files -> {
+            reports.add(files);
+            if (calls.incrementAndGet() == 1) throw new IllegalStateException("listener failure");
+        })) {
+            watcher.start();
+            Files.writeString(file.toPath(), "## head");
+            assertEquals(Set.of(file), reports.poll(10, TimeUnit.SECONDS));
+            Files.delete(file.toPath());
+            assertEquals(Set.of(file), reports.poll(10, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    public void test_watcher_ignores_directories() throws Exception {
+        BlockingQueue<Set<File>> reports = new LinkedBlockingQueue<>();
+        try (SequenceDirectoryWatcher watcher = new SequenceDirectoryWatcher(directory.toFile(), 100, reports::add)) {
+            watcher.start();
+            Files.createDirectory(directory.resolve("nested"));
+            assertNull(reports.poll(1, TimeUnit.SECONDS));
+        }
+        assertThrows(SequenceDirectoryWatcherException.class, () -> new SequenceDirectoryWatcher(new File(directory.toFile(), "absent"), 100, files -> {
+        }).start());
+    }
+}